@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Compares time-to-first-successful-shop-request and RSS for the JVM jar and the native binary.
+#
+#   mvn clean package                  -> target/distributed-api-demo-backend-0.0.1-SNAPSHOT.jar
+#   mvn -Pnative clean native:compile  -> target/distributed-api-demo-backend
+#   scripts/compare-startup.sh [runs]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-8099}
+OFFERS="http://localhost:${PORT}/shop/v1/hotels/XSBOXD1/offers?adults=1&numberOfUnits=1&arrivalDate=2024-12-10&departureDate=2024-12-13"
+
+measure() {
+  local label=$1; shift
+  for ((i = 1; i <= RUNS; i++)); do
+    local start end pid
+    start=$(date +%s%N)
+    OPENAI_API_KEY=${OPENAI_API_KEY:-unset} "$@" --server.port="${PORT}" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null -H "Authorization: x" -H "x-app-key: x" -H "x-channelCode: x" -H "x-request-id: x" "$OFFERS"; do
+      sleep 0.01
+    done
+    end=$(date +%s%N)
+    printf '%-8s run %d: first request after %5d ms, RSS %6d KB\n' \
+      "$label" "$i" $(((end - start) / 1000000)) "$(ps -o rss= -p "$pid")"
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+  done
+}
+
+measure jvm java -jar target/distributed-api-demo-backend-0.0.1-SNAPSHOT.jar
+if [[ -x target/distributed-api-demo-backend ]]; then
+  measure native target/distributed-api-demo-backend
+else
+  echo "native binary not found - build it with: mvn -Pnative clean native:compile"
+fi
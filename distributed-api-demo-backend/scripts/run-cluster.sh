@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Starts a local three-node cluster on ports 8081-8083 from the packaged jar.
+#
+#   mvn clean package -DskipTests
+#   scripts/run-cluster.sh          # start n1, n2, n3
+#   scripts/run-cluster.sh stop     # stop all nodes
+#   scripts/run-cluster.sh stop n2  # stop one node to exercise failover
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=target/distributed-api-demo-backend-0.0.1-SNAPSHOT.jar
+RUN_DIR=target/cluster
+NODES="n1=http://localhost:8081,n2=http://localhost:8082,n3=http://localhost:8083"
+# Nodes authenticate each other with a shared secret; generated per run unless CLUSTER_SECRET is set
+CLUSTER_SECRET=${CLUSTER_SECRET:-$(head -c 24 /dev/urandom | od -An -tx1 | tr -d ' \n')}
+export CLUSTER_SECRET
+mkdir -p "$RUN_DIR"
+
+stop() {
+  for node in "$@"; do
+    if [[ -f "$RUN_DIR/$node.pid" ]]; then
+      kill "$(cat "$RUN_DIR/$node.pid")" 2> /dev/null || true
+      rm -f "$RUN_DIR/$node.pid"
+      echo "stopped $node"
+    fi
+  done
+}
+
+start() {
+  local node=$1 port=$2
+  OPENAI_API_KEY=${OPENAI_API_KEY:-unset} java --add-modules jdk.incubator.vector -jar "$JAR" \
+    --server.port="$port" \
+    --cluster.enabled=true \
+    --cluster.node-id="$node" \
+    --cluster.nodes="$NODES" \
+    > "$RUN_DIR/$node.log" 2>&1 &
+  echo $! > "$RUN_DIR/$node.pid"
+  echo "started $node on :$port (log: $RUN_DIR/$node.log)"
+}
+
+case "${1:-start}" in
+  stop)
+    shift
+    if [[ $# -eq 0 ]]; then stop n1 n2 n3; else stop "$@"; fi
+    ;;
+  start)
+    start n1 8081
+    start n2 8082
+    start n3 8083
+    ;;
+  *)
+    echo "usage: $0 [start|stop [node...]]" >&2
+    exit 1
+    ;;
+esac
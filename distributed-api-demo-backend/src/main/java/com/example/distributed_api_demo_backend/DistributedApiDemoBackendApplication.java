@@ -6,6 +6,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
 @SpringBootApplication
 @Slf4j
@@ -21,6 +22,8 @@ public class DistributedApiDemoBackendApplication {
 	public ObjectMapper objectMapper() {
 		ObjectMapper mapper = new ObjectMapper();
 		mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+		// Generated property accessors instead of reflection for the typed response records
+		mapper.registerModule(new BlackbirdModule());
 		return mapper;
 	}
 }
@@ -0,0 +1,81 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import com.example.distributed_api_demo_backend.service.BookService;
+import com.example.distributed_api_demo_backend.service.StoredReservation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal/cluster/v1")
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+@Hidden
+public class ClusterController {
+
+    private final ClusterTopology topology;
+    private final ReservationReplicator replicator;
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/replicate")
+    public ResponseEntity<JsonNode> replicate(@RequestBody JsonNode entry) {
+        log.debug("Write log entry #{} from {} for {}",
+                  entry.path("sequence").asLong(), entry.path("origin").asText(), entry.path("confirmationNumber").asText());
+        if (!replicator.apply(entry)) {
+            ObjectNode refused = objectMapper.createObjectNode();
+            refused.put("hotelCode", entry.path("hotelCode").asText());
+            refused.put("epoch", topology.seenEpoch(entry.path("hotelCode").asText()));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(refused);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/revert")
+    public ResponseEntity<Void> revert(@RequestBody JsonNode entry) {
+        log.debug("Revert of {} v{} from {}",
+                  entry.path("confirmationNumber").asText(), entry.path("version").asLong(), entry.path("origin").asText());
+        replicator.revert(entry);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/snapshot")
+    public ResponseEntity<JsonNode> snapshot(@RequestParam String nodeId) {
+        Map<String, StoredReservation> owned = bookService.snapshot(
+                hotelCode -> topology.ownersOf(hotelCode).contains(nodeId));
+
+        ArrayNode entries = objectMapper.createArrayNode();
+        owned.forEach((confirmationNumber, reservation) -> {
+            ObjectNode entry = entries.addObject();
+            entry.put("origin", topology.nodeId());
+            entry.put("hotelCode", reservation.hotelCode());
+            entry.put("confirmationNumber", confirmationNumber);
+            entry.put("epoch", reservation.epoch());
+            entry.put("version", reservation.version());
+            entry.set("reservation", reservation.body());
+        });
+        log.info("Serving snapshot of {} reservation(s) to {}", entries.size(), nodeId);
+        return ResponseEntity.ok(entries);
+    }
+
+    @GetMapping("/owners/{hotelCode}")
+    public ResponseEntity<JsonNode> owners(@PathVariable String hotelCode) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("hotelCode", hotelCode);
+        response.put("nodeId", topology.nodeId());
+        ArrayNode owners = response.putArray("owners");
+        topology.ownersOf(hotelCode).forEach(owners::add);
+        return ResponseEntity.ok(response);
+    }
+}
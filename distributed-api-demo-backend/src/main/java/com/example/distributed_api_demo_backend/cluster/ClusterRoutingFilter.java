@@ -0,0 +1,218 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import com.example.distributed_api_demo_backend.dto.ApiError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends book requests to the node that owns the hotel. Owners are tried in ring order. Reads move on to the
+ * next owner as soon as one cannot be reached; writes only do once the owner has failed
+ * {@code cluster.suspect-after} times in a row, and get a 503 to retry until then. A replica accepts a
+ * forwarded write only after confirming for itself that every owner ahead of it is down, so two nodes never
+ * both take writes for a hotel because of one dropped connection. Shop requests are always served locally
+ * since every node holds the same shop data. Internal endpoints and forwarded requests without the
+ * {@link ClusterSecret} get a 401.
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    static final String FORWARDED_BY = "x-cluster-forwarded-by";
+    static final String SERVED_BY = "x-cluster-node";
+
+    private static final String INTERNAL_PATH = "/internal/cluster/";
+    private static final String OWNERS_PATH = INTERNAL_PATH + "v1/owners/";
+    private static final Duration PROBE_TIMEOUT = Duration.ofMillis(500);
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final Pattern BOOK_PATH = Pattern.compile("^/book/v1/hotels/([^/]+)/reservations(?:/.*)?$");
+    private static final Set<String> HOP_BY_HOP = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade", "transfer-encoding", "keep-alive");
+
+    private final ClusterTopology topology;
+    private final ClusterSecret secret;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean fromPeer = secret.matches(request.getHeader(ClusterSecret.HEADER));
+        boolean internal = request.getRequestURI().startsWith(INTERNAL_PATH);
+        if (!fromPeer && (internal || request.getHeader(FORWARDED_BY) != null)) {
+            log.warn("Refusing {} {} from {}: no valid cluster secret",
+                     request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiError.of(401, "Unauthorized",
+                    "Cluster requests need a valid " + ClusterSecret.HEADER, request.getRequestURI()));
+            return;
+        }
+
+        Matcher matcher = BOOK_PATH.matcher(request.getRequestURI());
+        if (!matcher.matches()) {
+            response.setHeader(SERVED_BY, topology.nodeId());
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String hotelCode = matcher.group(1);
+        List<String> owners = topology.ownersOf(hotelCode);
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (request.getHeader(FORWARDED_BY) != null) {
+            if (write && !isActingOwner(hotelCode, owners)) {
+                log.warn("Refusing write for hotel {} forwarded by {}: {} is not its acting owner",
+                         hotelCode, request.getHeader(FORWARDED_BY), topology.nodeId());
+                writeError(response, request, "Node " + topology.nodeId() + " does not own hotel " + hotelCode);
+                return;
+            }
+            response.setHeader(SERVED_BY, topology.nodeId());
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = null;
+        for (String owner : owners) {
+            if (owner.equals(topology.nodeId())) {
+                response.setHeader(SERVED_BY, topology.nodeId());
+                chain.doFilter(request, response);
+                return;
+            }
+            if (topology.isSuspect(owner)) {
+                continue;
+            }
+            if (body == null) {
+                body = request.getInputStream().readAllBytes();
+            }
+            try {
+                forward(owner, request, body, response);
+                topology.recordSuccess(owner);
+                return;
+            } catch (ConnectException | HttpConnectTimeoutException e) {
+                if (!topology.recordFailure(owner) && write) {
+                    writeError(response, request, "Owner " + owner + " of hotel " + hotelCode + " is unreachable");
+                    return;
+                }
+            } catch (HttpTimeoutException e) {
+                // The owner may have applied the write; another owner must not apply it again
+                topology.recordFailure(owner);
+                writeError(response, request, "Owner " + owner + " of hotel " + hotelCode + " timed out");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        log.error("No owner of hotel {} reachable (owners: {})", hotelCode, owners);
+        writeError(response, request, "No node owning hotel " + hotelCode + " is reachable");
+    }
+
+    /**
+     * True when this node is an owner of the hotel and every owner ahead of it in ring order is down. Owners
+     * not yet known to be down are probed until they answer or reach the failure threshold.
+     */
+    private boolean isActingOwner(String hotelCode, List<String> owners) {
+        if (!owners.contains(topology.nodeId())) {
+            return false;
+        }
+        for (String owner : owners) {
+            if (owner.equals(topology.nodeId())) {
+                return true;
+            }
+            if (!topology.isSuspect(owner) && isReachable(owner, hotelCode)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean isReachable(String node, String hotelCode) {
+        HttpRequest probe = secret.sign(HttpRequest.newBuilder(topology.uriOf(node).resolve(OWNERS_PATH + hotelCode)))
+                .timeout(PROBE_TIMEOUT)
+                .GET()
+                .build();
+        do {
+            try {
+                httpClient.send(probe, HttpResponse.BodyHandlers.discarding());
+                topology.recordSuccess(node);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            } catch (IOException e) {
+                log.debug("Probe of {} failed: {}", node, e.toString());
+            }
+        } while (!topology.recordFailure(node));
+        return false;
+    }
+
+    private void forward(String node, HttpServletRequest request, byte[] body, HttpServletResponse response)
+            throws IOException, InterruptedException {
+        String query = request.getQueryString();
+        URI target = topology.uriOf(node).resolve(request.getRequestURI() + (query != null ? "?" + query : ""));
+
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(10))
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT)) && !ClusterSecret.HEADER.equalsIgnoreCase(name)) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forwarded.header(name, value);
+                }
+            }
+        }
+        secret.sign(forwarded).setHeader(FORWARDED_BY, topology.nodeId());
+
+        HttpResponse<byte[]> upstream = httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        log.debug("Forwarded {} {} to {} -> {}", request.getMethod(), request.getRequestURI(), node, upstream.statusCode());
+
+        response.setStatus(upstream.statusCode());
+        upstream.headers().map().forEach((name, values) -> {
+            if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.getOutputStream().write(upstream.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpServletRequest request, String detail) throws IOException {
+        ApiError error = ApiError.of(503, "Service unavailable", detail, request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared secret every node sends on its calls to another node, in {@value #HEADER}. Internal endpoints and
+ * forwarded requests are only honoured when they carry it, so no client can replicate, revert or read
+ * reservations, or pose as a forwarding node. Cluster mode does not start without one.
+ */
+@Component
+public class ClusterSecret {
+
+    public static final String HEADER = "x-cluster-secret";
+
+    private static final int MIN_LENGTH = 16;
+
+    private final String secret;
+
+    public ClusterSecret(@Value("${cluster.enabled:false}") boolean enabled,
+                         @Value("${cluster.secret:}") String secret) {
+        if (enabled && secret.length() < MIN_LENGTH) {
+            throw new IllegalStateException("cluster.secret must be at least " + MIN_LENGTH
+                    + " characters when cluster.enabled is true");
+        }
+        this.secret = secret;
+    }
+
+    public HttpRequest.Builder sign(HttpRequest.Builder request) {
+        return secret.isEmpty() ? request : request.setHeader(HEADER, secret);
+    }
+
+    /**
+     * Compares in constant time, so response timing does not reveal how much of a guess was right.
+     */
+    public boolean matches(String presented) {
+        return !secret.isEmpty() && presented != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Static cluster membership and a consistent-hash ring over hotel codes. The first owner of a hotel
+ * is its primary; the following {@code replication-factor - 1} distinct nodes hold replicas. A node is only
+ * treated as down after {@code suspect-after} consecutive failures, and every node that writes a hotel's
+ * reservations does so under an ownership epoch, so a replica that takes over fences out the old primary.
+ *
+ * <pre>
+ * cluster.enabled=true
+ * cluster.node-id=n1
+ * cluster.nodes=n1=http://localhost:8081,n2=http://localhost:8082,n3=http://localhost:8083
+ * </pre>
+ */
+@Component
+@Slf4j
+public class ClusterTopology {
+
+    private static final long SUSPECT_MILLIS = 5_000;
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final int replicationFactor;
+    private final Map<String, URI> nodes = new LinkedHashMap<>();
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final int suspectAfter;
+    private final Map<String, Long> suspectUntil = new ConcurrentHashMap<>();
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Map<String, Long> seenEpochs = new ConcurrentHashMap<>();
+    private final Map<String, Long> heldEpochs = new ConcurrentHashMap<>();
+
+    public ClusterTopology(@Value("${cluster.enabled:false}") boolean enabled,
+                           @Value("${cluster.node-id:local}") String nodeId,
+                           @Value("${cluster.nodes:}") String nodes,
+                           @Value("${cluster.replication-factor:2}") int replicationFactor,
+                           @Value("${cluster.virtual-nodes:128}") int virtualNodes,
+                           @Value("${cluster.suspect-after:3}") int suspectAfter) {
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.suspectAfter = Math.max(1, suspectAfter);
+        for (String node : nodes.split(",")) {
+            String[] parts = node.trim().split("=", 2);
+            if (parts.length == 2) {
+                this.nodes.put(parts[0].trim(), URI.create(parts[1].trim()));
+            }
+        }
+        if (enabled && !this.nodes.containsKey(nodeId)) {
+            throw new IllegalStateException("cluster.nodes does not contain this node (" + nodeId + ")");
+        }
+        this.replicationFactor = Math.max(1, Math.min(replicationFactor, Math.max(1, this.nodes.size())));
+        for (String node : this.nodes.keySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        if (enabled) {
+            log.info("Cluster mode: node {} of {}, replication factor {}", nodeId, this.nodes.keySet(), this.replicationFactor);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public URI uriOf(String node) {
+        return nodes.get(node);
+    }
+
+    public Set<String> nodes() {
+        return Collections.unmodifiableSet(nodes.keySet());
+    }
+
+    public List<String> ownersOf(String hotelCode) {
+        if (ring.isEmpty()) {
+            return List.of(nodeId);
+        }
+        List<String> owners = new ArrayList<>(replicationFactor);
+        for (String node : ring.tailMap(hash(hotelCode), true).values()) {
+            if (owners.size() == replicationFactor) {
+                return owners;
+            }
+            if (!owners.contains(node)) {
+                owners.add(node);
+            }
+        }
+        for (String node : ring.values()) {
+            if (owners.size() == replicationFactor) {
+                break;
+            }
+            if (!owners.contains(node)) {
+                owners.add(node);
+            }
+        }
+        return owners;
+    }
+
+    public boolean isSuspect(String node) {
+        Long until = suspectUntil.get(node);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Counts a failed call to {@code node}; returns true once it has failed {@code suspect-after} times in a
+     * row and is skipped as down.
+     */
+    public boolean recordFailure(String node) {
+        int failed = failures.merge(node, 1, Integer::sum);
+        if (failed < suspectAfter) {
+            log.info("Node {} unreachable ({} of {} failures before failover)", node, failed, suspectAfter);
+            return isSuspect(node);
+        }
+        if (!isSuspect(node)) {
+            log.warn("Node {} unreachable {} times in a row, skipping it for {} ms", node, failed, SUSPECT_MILLIS);
+        }
+        suspectUntil.put(node, System.currentTimeMillis() + SUSPECT_MILLIS);
+        return true;
+    }
+
+    public void recordSuccess(String node) {
+        failures.remove(node);
+        if (suspectUntil.remove(node) != null) {
+            log.info("Node {} reachable again", node);
+        }
+    }
+
+    /**
+     * Epoch this node writes the hotel's reservations under. The first write after another owner's epoch was
+     * seen, i.e. after a takeover in either direction, starts a new epoch above every one seen so far. Epochs
+     * are numbered per node (congruent to its position in {@code cluster.nodes}), so two nodes never share one.
+     */
+    public synchronized long writeEpoch(String hotelCode) {
+        long seen = seenEpochs.getOrDefault(hotelCode, 0L);
+        Long held = heldEpochs.get(hotelCode);
+        if (held == null || held < seen) {
+            long span = Math.max(1, nodes.size());
+            held = (seen / span + 1) * span + Math.max(0, new ArrayList<>(nodes.keySet()).indexOf(nodeId));
+            heldEpochs.put(hotelCode, held);
+            seenEpochs.put(hotelCode, held);
+            log.info("Node {} writes hotel {} in ownership epoch {}", nodeId, hotelCode, held);
+        }
+        return held;
+    }
+
+    /**
+     * Records the epoch of a write received from another owner; false when a newer epoch has already been
+     * seen for the hotel, meaning the sender was superseded and its write must be refused.
+     */
+    public synchronized boolean observeEpoch(String hotelCode, long epoch) {
+        long seen = seenEpochs.getOrDefault(hotelCode, 0L);
+        if (epoch < seen) {
+            return false;
+        }
+        seenEpochs.put(hotelCode, epoch);
+        return true;
+    }
+
+    public long seenEpoch(String hotelCode) {
+        return seenEpochs.getOrDefault(hotelCode, 0L);
+    }
+
+    /** 64-bit FNV-1a with a murmur3 finaliser, so similar hotel codes spread evenly around the ring. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
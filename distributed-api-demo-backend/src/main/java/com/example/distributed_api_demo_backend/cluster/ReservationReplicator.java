@@ -0,0 +1,263 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import com.example.distributed_api_demo_backend.exception.ReplicationQuorumException;
+import com.example.distributed_api_demo_backend.exception.StaleOwnerException;
+import com.example.distributed_api_demo_backend.service.BookService;
+import com.example.distributed_api_demo_backend.service.StoredReservation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ships every reservation write to the other owners of its hotel before it is stored, and on startup rebuilds
+ * this node's share of reservations from its peers. A write goes through only once a majority of the hotel's
+ * owners, this node included, has acknowledged it; otherwise the owners that took it are told to revert it and
+ * the request fails with nothing stored. Each write carries the writer's ownership epoch; an owner refuses
+ * writes from an epoch older than one it has seen, and a writer refused that way has been superseded, so it
+ * reloads the hotel's reservations from the peer that refused it.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReservationReplicator {
+
+    static final String REPLICATE_PATH = "/internal/cluster/v1/replicate";
+    static final String REVERT_PATH = "/internal/cluster/v1/revert";
+    static final String SNAPSHOT_PATH = "/internal/cluster/v1/snapshot";
+
+    private static final Duration REPLICATION_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ClusterTopology topology;
+    private final ClusterSecret secret;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<BookService> bookService;
+    private final AtomicLong sequence = new AtomicLong();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    /**
+     * Epoch to store and replicate this node's writes for the hotel under; always 0 on a single node.
+     */
+    public long writeEpoch(String hotelCode) {
+        return topology.isEnabled() ? topology.writeEpoch(hotelCode) : 0;
+    }
+
+    /**
+     * Returns once a quorum of the hotel's owners holds the write, so the caller can store it.
+     *
+     * @param reservation the new reservation body, or {@code null} when the reservation is cancelled
+     * @param previous    the reservation the write replaces, or {@code null} when it creates one; owners that
+     *                    took the write go back to it when the write fails
+     * @throws StaleOwnerException         when a peer has seen a newer epoch for the hotel
+     * @throws ReplicationQuorumException when too few owners acknowledged the write
+     */
+    public void replicate(String hotelCode, String confirmationNumber, long epoch, long version, JsonNode reservation,
+                          StoredReservation previous) {
+        if (!topology.isEnabled()) {
+            return;
+        }
+        ObjectNode entry = entry(hotelCode, confirmationNumber, epoch, version, reservation);
+        List<String> owners = topology.ownersOf(hotelCode);
+        Map<String, HttpResponse<byte[]>> responses = post(REPLICATE_PATH, entry, owners);
+
+        List<String> accepted = new ArrayList<>();
+        String refusedBy = null;
+        for (Map.Entry<String, HttpResponse<byte[]>> response : responses.entrySet()) {
+            int status = response.getValue() != null ? response.getValue().statusCode() : 0;
+            if (status >= 200 && status < 300) {
+                accepted.add(response.getKey());
+            } else if (status == HttpStatus.CONFLICT.value()) {
+                refusedBy = response.getKey();
+                observeRefusal(hotelCode, response.getValue());
+            }
+        }
+        int acknowledged = accepted.size() + (owners.contains(topology.nodeId()) ? 1 : 0);
+        int quorum = owners.size() / 2 + 1;
+        if (refusedBy == null && acknowledged >= quorum) {
+            log.debug("Replicated {} v{} for hotel {} to {} node(s)", confirmationNumber, version, hotelCode,
+                      accepted.size());
+            return;
+        }
+
+        if (!accepted.isEmpty()) {
+            entry.set("previous", previous != null ? entry(hotelCode, confirmationNumber, previous.epoch(),
+                    previous.version(), previous.body()) : null);
+            post(REVERT_PATH, entry, accepted);
+        }
+        if (refusedBy != null) {
+            String node = refusedBy;
+            log.error("Write {} v{} for hotel {} in epoch {} refused by {}: ownership moved, reloading from it",
+                      confirmationNumber, version, hotelCode, epoch, node);
+            // Off this thread: the caller holds the reservation's write lock, and catch-up takes others
+            CompletableFuture.runAsync(() -> catchUpFrom(node));
+            throw new StaleOwnerException("Ownership of hotel " + hotelCode + " moved to another node; retry");
+        }
+        log.error("Write {} v{} for hotel {} acknowledged by {} of {} owner(s), {} needed",
+                  confirmationNumber, version, hotelCode, acknowledged, owners.size(), quorum);
+        throw new ReplicationQuorumException("Too few owners of hotel " + hotelCode + " reachable; retry");
+    }
+
+    /**
+     * Applies a write from another owner; false when it comes from a superseded epoch and was refused.
+     */
+    public boolean apply(JsonNode entry) {
+        String hotelCode = entry.path("hotelCode").asText();
+        long epoch = entry.path("epoch").asLong();
+        if (!topology.observeEpoch(hotelCode, epoch)) {
+            log.warn("Refusing write {} for hotel {} from {}: epoch {} is older than {}",
+                     entry.path("confirmationNumber").asText(), hotelCode, entry.path("origin").asText(),
+                     epoch, topology.seenEpoch(hotelCode));
+            return false;
+        }
+        store(entry);
+        return true;
+    }
+
+    private void store(JsonNode entry) {
+        bookService.getObject().applyReplicated(
+                entry.path("hotelCode").asText(),
+                entry.path("confirmationNumber").asText(),
+                entry.path("epoch").asLong(),
+                entry.path("version").asLong(),
+                reservation(entry));
+    }
+
+    /**
+     * Takes back a write its origin could not get a quorum for, unless it has been superseded already.
+     */
+    public void revert(JsonNode entry) {
+        String hotelCode = entry.path("hotelCode").asText();
+        JsonNode previous = entry.path("previous");
+        bookService.getObject().revertReplicated(
+                hotelCode,
+                entry.path("confirmationNumber").asText(),
+                entry.path("epoch").asLong(),
+                entry.path("version").asLong(),
+                previous.isObject() ? new StoredReservation(hotelCode, reservation(previous),
+                        previous.path("version").asLong(), previous.path("epoch").asLong()) : null);
+    }
+
+    private ObjectNode entry(String hotelCode, String confirmationNumber, long epoch, long version,
+                             JsonNode reservation) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("origin", topology.nodeId());
+        entry.put("sequence", sequence.incrementAndGet());
+        entry.put("hotelCode", hotelCode);
+        entry.put("confirmationNumber", confirmationNumber);
+        entry.put("epoch", epoch);
+        entry.put("version", version);
+        entry.set("reservation", reservation);
+        return entry;
+    }
+
+    private static JsonNode reservation(JsonNode entry) {
+        JsonNode reservation = entry.path("reservation");
+        return reservation.isNull() || reservation.isMissingNode() ? null : reservation;
+    }
+
+    /**
+     * Posts the entry to every node but this one and waits for all of them; a node that could not be reached
+     * or did not answer in time maps to {@code null}.
+     */
+    private Map<String, HttpResponse<byte[]>> post(String path, ObjectNode entry, List<String> nodes) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(entry);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialise write log entry", e);
+        }
+
+        Map<String, CompletableFuture<HttpResponse<byte[]>>> pending = new LinkedHashMap<>();
+        for (String node : nodes) {
+            if (node.equals(topology.nodeId())) {
+                continue;
+            }
+            HttpRequest request = secret.sign(HttpRequest.newBuilder(topology.uriOf(node).resolve(path)))
+                    .timeout(REPLICATION_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                    .build();
+            pending.put(node, httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() >= 300) {
+                            log.warn("Sending {} v{} to {}{} failed: {}", entry.path("confirmationNumber").asText(),
+                                     entry.path("version").asLong(), node, path,
+                                     error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                        }
+                    }));
+        }
+
+        Map<String, HttpResponse<byte[]>> responses = new LinkedHashMap<>();
+        pending.forEach((node, response) -> responses.put(node, response.exceptionally(e -> null).join()));
+        return responses;
+    }
+
+    private void observeRefusal(String hotelCode, HttpResponse<byte[]> response) {
+        try {
+            long seen = objectMapper.readTree(response.body()).path("epoch").asLong();
+            topology.observeEpoch(hotelCode, seen);
+        } catch (Exception e) {
+            log.debug("Refusal for hotel {} carried no epoch: {}", hotelCode, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        if (!topology.isEnabled()) {
+            return;
+        }
+        for (String node : topology.nodes()) {
+            if (!node.equals(topology.nodeId())) {
+                catchUpFrom(node);
+            }
+        }
+    }
+
+    /**
+     * Applies the peer's snapshot of every reservation, cancellations included, for hotels this node owns.
+     */
+    void catchUpFrom(String node) {
+        URI uri = topology.uriOf(node).resolve(SNAPSHOT_PATH + "?nodeId=" + topology.nodeId());
+        try {
+            HttpResponse<byte[]> response = httpClient.send(
+                    secret.sign(HttpRequest.newBuilder(uri)).timeout(Duration.ofSeconds(10)).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                log.warn("Snapshot from {} returned HTTP {}", node, response.statusCode());
+                return;
+            }
+            JsonNode entries = objectMapper.readTree(response.body());
+            // Snapshot entries are writes the peer already holds, not new ones, so no epoch fences them out;
+            // applyReplicated still keeps only the newest of each reservation
+            for (JsonNode entry : entries) {
+                topology.observeEpoch(entry.path("hotelCode").asText(), entry.path("epoch").asLong());
+                store(entry);
+            }
+            log.info("Caught up {} reservation(s) from {}", entries.size(), node);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.info("Peer {} not available for catch-up: {}", node, e.getMessage());
+        }
+    }
+}
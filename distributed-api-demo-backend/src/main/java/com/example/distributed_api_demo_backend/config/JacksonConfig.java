@@ -1,5 +1,6 @@
 package com.example.distributed_api_demo_backend.config;
 
+import com.example.distributed_api_demo_backend.diagnostics.RecordingJackson2HttpMessageConverter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
@@ -16,6 +17,11 @@ public class JacksonConfig {
         return builder -> builder.featuresToDisable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new RecordingJackson2HttpMessageConverter(objectMapper);
+    }
+
     @Bean
     public RestClient.Builder restClientBuilder() {
         ObjectMapper objectMapper = new ObjectMapper()
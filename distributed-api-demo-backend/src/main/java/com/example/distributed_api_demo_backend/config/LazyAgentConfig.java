@@ -0,0 +1,36 @@
+package com.example.distributed_api_demo_backend.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Marks every Spring AI bean lazy so the OpenAI client, HTTP clients and chat model are only
+ * created when {@code AgentService} handles its first request, not during startup. Only the observation
+ * handlers are still built eagerly, because Micrometer collects them while starting up.
+ */
+@Configuration
+public class LazyAgentConfig {
+
+    private static final String SPRING_AI_PACKAGE = "org.springframework.ai.";
+
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringAiBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isSpringAi(definition.getBeanClassName())
+                        || (definition.getFactoryBeanName() != null
+                            && beanFactory.containsBeanDefinition(definition.getFactoryBeanName())
+                            && isSpringAi(beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName()))) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isSpringAi(String className) {
+        return className != null && className.startsWith(SPRING_AI_PACKAGE);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.distributed_api_demo_backend.config;
+
+import com.example.distributed_api_demo_backend.dto.ApiError;
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.dto.PropertySearchResults;
+import com.example.distributed_api_demo_backend.service.AgentShopTools;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * GraalVM native-image hints: the {@code /data/*.json} fixtures loaded by the Shop and Book services,
+ * the Jackson tree types bound directly as controller request/response bodies, the typed offer,
+ * search and error records (also read from the fixtures, outside any controller signature), and the agent's
+ * {@code @Tool} methods, which Spring AI invokes reflectively.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.DistributionApiHints.class)
+public class NativeHintsConfig {
+
+    static class DistributionApiHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("data/*.json");
+            hints.reflection()
+                    .registerType(ObjectNode.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS)
+                    .registerType(ArrayNode.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS)
+                    .registerType(AgentShopTools.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+            new BindingReflectionHintsRegistrar()
+                    .registerReflectionHints(hints.reflection(), PropertyOffers.class, PropertySearchResults.class, ApiError.class);
+        }
+    }
+}
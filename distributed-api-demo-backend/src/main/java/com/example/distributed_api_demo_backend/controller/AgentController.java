@@ -1,9 +1,12 @@
 package com.example.distributed_api_demo_backend.controller;
 
+import com.example.distributed_api_demo_backend.service.AgentPromptBuilder;
 import com.example.distributed_api_demo_backend.service.AgentService;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -17,20 +20,37 @@ import org.springframework.web.bind.annotation.*;
 public class AgentController {
 
     private final AgentService agentService;
+    private final AgentPromptBuilder agentPromptBuilder;
 
     @PostMapping("/reservation-agent")
     @Operation(
         summary = "Chat with reservation agent",
-        description = "Send a conversation history to the AI agent. Returns either a chat message or a structured reservation_draft when enough info is collected."
+        description = "Send a conversation history to the AI agent. Returns either a chat message or a structured reservation_draft when enough info is collected. "
+                + "A draft holds its rooms for the request's conversationId, releasing that conversation's earlier hold; "
+                + "send back the conversationId every response carries. Each client may only place a limited number of holds per minute."
     )
-    public ResponseEntity<JsonNode> chat(@RequestBody JsonNode request) {
+    public ResponseEntity<JsonNode> chat(
+            @Parameter(description = "Application key; holds are rate-limited per key, or per client address without one")
+            @RequestHeader(value = "x-app-key", required = false) String appKey,
+            @RequestBody JsonNode request,
+            HttpServletRequest servletRequest) {
         log.info("Agent chat request received");
 
-        JsonNode response = agentService.chat(request);
+        JsonNode response = agentService.chat(request,
+                appKey != null && !appKey.isBlank() ? appKey : servletRequest.getRemoteAddr());
 
         log.info("Agent chat response type: {}",
                 response.has("reservation_draft") ? "reservation_draft" : "message");
 
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/reservation-agent/prompt")
+    @Operation(
+        summary = "Current agent system prompt",
+        description = "The system prompt built from live shop data, with its content-hash version and estimated token count."
+    )
+    public ResponseEntity<AgentPromptBuilder.AgentPrompt> prompt() {
+        return ResponseEntity.ok(agentPromptBuilder.current());
+    }
 }
@@ -0,0 +1,154 @@
+package com.example.distributed_api_demo_backend.controller;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.service.AriDeltaFeed;
+import com.example.distributed_api_demo_backend.service.AriWebhookDispatcher;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/shop/v1/ari")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "ARI Push", description = "Availability, rates and inventory deltas pushed to channels instead of re-polling offers")
+public class AriController {
+
+    private static final int MAX_BATCH = 1000;
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    private final AriDeltaFeed ariDeltaFeed;
+    private final AriWebhookDispatcher ariWebhookDispatcher;
+
+    @GetMapping("/deltas")
+    @Operation(summary = "Poll ARI deltas", description = "Long-poll for deltas at or after fromSequence. Resume with the returned nextSequence.")
+    public CompletableFuture<ResponseEntity<JsonNode>> pollDeltas(
+            @Parameter(description = "First sequence number to return (0 = oldest retained)")
+            @RequestParam(defaultValue = "0") Long fromSequence,
+
+            @Parameter(description = "Comma-separated hotel codes (all hotels when omitted)")
+            @RequestParam(required = false) String hotelCodes,
+
+            @Parameter(description = "Maximum number of deltas to return")
+            @RequestParam(defaultValue = "100") Integer limit,
+
+            @Parameter(description = "Seconds to wait for new deltas when none are available")
+            @RequestParam(defaultValue = "30") Integer waitSeconds,
+
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        log.debug("Poll ARI deltas - from: {}, hotels: {}, limit: {}, wait: {}s, requestId: {}",
+                  fromSequence, hotelCodes, limit, waitSeconds, requestId);
+
+        int batchSize = Math.clamp(limit, 1, MAX_BATCH);
+        Duration wait = Duration.ofSeconds(Math.clamp(waitSeconds, 0, MAX_WAIT_SECONDS));
+
+        return ariDeltaFeed.poll(fromSequence, batchSize, parseHotelCodes(hotelCodes), wait)
+                .thenApply(batch -> ResponseEntity.ok((JsonNode) ariDeltaFeed.toJson(batch)));
+    }
+
+    @GetMapping(path = "/deltas/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream ARI deltas", description = "Server-sent events; each event id is its sequence number, so reconnecting with Last-Event-ID resumes the feed.")
+    public SseEmitter streamDeltas(
+            @Parameter(description = "First sequence number to send (0 = oldest retained)")
+            @RequestParam(defaultValue = "0") Long fromSequence,
+
+            @Parameter(description = "Comma-separated hotel codes (all hotels when omitted)")
+            @RequestParam(required = false) String hotelCodes,
+
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        long start = lastEventId != null ? lastEventId + 1 : fromSequence;
+        Set<String> hotels = parseHotelCodes(hotelCodes);
+        log.info("ARI delta stream opened - channel: {}, from: {}, hotels: {}, requestId: {}",
+                 channelCode, start, hotelCodes, requestId);
+
+        return SsePump.start(new SseEmitter(0L), "ari-sse-" + requestId, start,
+                (cursor, limit, timeout) -> ariDeltaFeed.poll(cursor, limit, hotels, timeout),
+                ariDeltaFeed::toJson,
+                delta -> SseEmitter.event()
+                        .id(Long.toString(delta.sequence()))
+                        .name("ari")
+                        .data(ariDeltaFeed.toJson(delta), MediaType.APPLICATION_JSON));
+    }
+
+    @PostMapping("/subscriptions")
+    @Operation(summary = "Subscribe a webhook", description = "Push ARI deltas to callbackUrl as they are published. Body: {\"callbackUrl\": \"...\", \"hotelCodes\": [...], \"fromSequence\": 0}")
+    public ResponseEntity<JsonNode> subscribe(
+            @RequestBody JsonNode request,
+
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        log.info("ARI webhook subscription request - channel: {}, requestId: {}", channelCode, requestId);
+
+        String callbackUrl = request.path("callbackUrl").asText("");
+        if (callbackUrl.isBlank()) {
+            throw new InvalidRequestException("callbackUrl is required");
+        }
+        Set<String> hotels = new HashSet<>();
+        request.path("hotelCodes").forEach(hotel -> hotels.add(hotel.asText()));
+        long fromSequence = request.path("fromSequence").asLong(0);
+
+        JsonNode subscription = ariWebhookDispatcher.subscribe(channelCode, URI.create(callbackUrl), hotels, fromSequence);
+        return ResponseEntity.status(HttpStatus.CREATED).body(subscription);
+    }
+
+    @GetMapping("/subscriptions")
+    @Operation(summary = "List webhook subscriptions", description = "Current webhook subscriptions with their delivery position")
+    public ResponseEntity<JsonNode> listSubscriptions(
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        return ResponseEntity.ok(ariWebhookDispatcher.listSubscriptions());
+    }
+
+    @DeleteMapping("/subscriptions/{subscriptionId}")
+    @Operation(summary = "Remove a webhook subscription")
+    public ResponseEntity<Void> unsubscribe(
+            @Parameter(description = "Subscription id", required = true)
+            @PathVariable String subscriptionId,
+
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        log.info("ARI webhook unsubscribe - subscription: {}, requestId: {}", subscriptionId, requestId);
+        ariWebhookDispatcher.unsubscribe(subscriptionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private Set<String> parseHotelCodes(String hotelCodes) {
+        if (hotelCodes == null || hotelCodes.isBlank()) {
+            return Set.of();
+        }
+        return Set.copyOf(List.of(hotelCodes.trim().split("\\s*,\\s*")));
+    }
+}
@@ -1,16 +1,27 @@
 package com.example.distributed_api_demo_backend.controller;
 
+import com.example.distributed_api_demo_backend.exception.VersionConflictException;
 import com.example.distributed_api_demo_backend.service.BookService;
+import com.example.distributed_api_demo_backend.service.BookingRequest;
+import com.example.distributed_api_demo_backend.service.BookingRequestReader;
+import com.example.distributed_api_demo_backend.service.StoredReservation;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/book/v1/hotels")
 @RequiredArgsConstructor
@@ -19,31 +30,76 @@ import org.springframework.web.bind.annotation.*;
 public class BookController {
 
     private final BookService bookService;
+    private final BookingRequestReader bookingRequestReader;
 
     @PostMapping("/{hotelCode}/reservations")
-    @Operation(summary = "Create reservation", description = "Create a new hotel reservation")
+    @Operation(summary = "Create reservation", description = "Create a new hotel reservation. Send the holdId of an agent reservation_draft as x-hold-id to book the rooms held for it.")
     public ResponseEntity<JsonNode> createReservation(
             @Parameter(description = "Hotel code", required = true)
             @PathVariable String hotelCode,
             
-            @RequestBody JsonNode request,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Reservation request", required = true,
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "object")))
+            InputStream body,
             
+            @RequestHeader(value = "Content-Length", required = false) Long contentLength,
             @RequestHeader("Authorization") String authorization,
             @RequestHeader("Content-Type") String contentType,
             @RequestHeader("x-app-key") String appKey,
             @RequestHeader("x-channelCode") String channelCode,
-            @RequestHeader("x-request-id") String requestId) {
+            @RequestHeader("x-request-id") String requestId,
+            
+            @Parameter(description = "Inventory hold from an agent reservation_draft")
+            @RequestHeader(value = "x-hold-id", required = false) String holdId) {
 
-        log.info("Create reservation request - hotel: {}, requestId: {}", hotelCode, requestId);
-        log.debug("Request body: {}", request);
+        log.info("Create reservation request - hotel: {}, hold: {}, requestId: {}", hotelCode, holdId, requestId);
 
-        JsonNode response = bookService.createReservation(request);
+        BookingRequest request = bookingRequestReader.read(body, contentLength == null ? -1 : contentLength);
+        JsonNode response = bookService.createReservation(hotelCode, request, holdId);
         
         log.info("Reservation created successfully - hotel: {}, requestId: {}", hotelCode, requestId);
         
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
+    @GetMapping("/{hotelCode}/reservations")
+    @Operation(summary = "Search reservations", description = "List reservations for a hotel by arrival date range, guest surname or guest email")
+    public ResponseEntity<JsonNode> searchReservations(
+            @Parameter(description = "Hotel code", required = true)
+            @PathVariable String hotelCode,
+            
+            @Parameter(description = "Earliest arrival date (YYYY-MM-DD)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate arrivalStartDate,
+            
+            @Parameter(description = "Latest arrival date (YYYY-MM-DD)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate arrivalEndDate,
+            
+            @Parameter(description = "Guest surname")
+            @RequestParam(required = false) String surname,
+            
+            @Parameter(description = "Guest email")
+            @RequestParam(required = false) String email,
+            
+            @Parameter(description = "Maximum number of reservations to return")
+            @RequestParam(defaultValue = "100") Integer limit,
+            
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        log.info("Search reservations request - hotel: {}, arrival: {}..{}, surname: {}, email: {}, requestId: {}", 
+                 hotelCode, arrivalStartDate, arrivalEndDate, surname, email, requestId);
+
+        JsonNode response = bookService.searchReservations(
+                hotelCode, arrivalStartDate, arrivalEndDate, surname, email, Math.max(1, limit));
+        
+        log.info("Returning {} reservations for hotel: {}, requestId: {}", 
+                 response.get("totalResults").asInt(), hotelCode, requestId);
+        
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{hotelCode}/reservations/{confirmationNumber}")
     @Operation(summary = "Retrieve reservation", description = "Get reservation details by confirmation number")
     public ResponseEntity<JsonNode> getReservation(
@@ -61,16 +117,16 @@ public class BookController {
         log.info("Retrieve reservation request - hotel: {}, confirmation: {}, requestId: {}", 
                  hotelCode, confirmationNumber, requestId);
 
-        JsonNode response = bookService.getReservation(confirmationNumber);
+        StoredReservation reservation = bookService.getReservation(hotelCode, confirmationNumber);
         
         log.info("Reservation retrieved successfully - confirmation: {}, requestId: {}", 
                  confirmationNumber, requestId);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(reservation.eTag()).body(reservation.body());
     }
 
     @PutMapping("/{hotelCode}/reservations/{confirmationNumber}")
-    @Operation(summary = "Modify reservation", description = "Update an existing reservation")
+    @Operation(summary = "Modify reservation", description = "Apply a partial change (dates, room type, occupancy, rate plan) to an existing reservation. Send the ETag from a previous response as If-Match to reject concurrent updates.")
     public ResponseEntity<JsonNode> modifyReservation(
             @Parameter(description = "Hotel code", required = true)
             @PathVariable String hotelCode,
@@ -84,18 +140,20 @@ public class BookController {
             @RequestHeader("Content-Type") String contentType,
             @RequestHeader("x-app-key") String appKey,
             @RequestHeader("x-channelCode") String channelCode,
-            @RequestHeader("x-request-id") String requestId) {
+            @RequestHeader("x-request-id") String requestId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
 
-        log.info("Modify reservation request - hotel: {}, confirmation: {}, requestId: {}", 
-                 hotelCode, confirmationNumber, requestId);
+        log.info("Modify reservation request - hotel: {}, confirmation: {}, If-Match: {}, requestId: {}", 
+                 hotelCode, confirmationNumber, ifMatch, requestId);
         log.debug("Request body: {}", request);
 
-        JsonNode response = bookService.modifyReservation(confirmationNumber, request);
+        StoredReservation reservation = bookService.modifyReservation(
+                hotelCode, confirmationNumber, request, parseVersion(ifMatch));
         
-        log.info("Reservation modified successfully - confirmation: {}, requestId: {}", 
-                 confirmationNumber, requestId);
+        log.info("Reservation modified successfully - confirmation: {}, version: {}, requestId: {}", 
+                 confirmationNumber, reservation.version(), requestId);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(reservation.eTag()).body(reservation.body());
     }
 
     @DeleteMapping("/{hotelCode}/reservations/{confirmationNumber}")
@@ -115,11 +173,26 @@ public class BookController {
         log.info("Cancel reservation request - hotel: {}, confirmation: {}, requestId: {}", 
                  hotelCode, confirmationNumber, requestId);
 
-        JsonNode response = bookService.cancelReservation(confirmationNumber);
+        JsonNode response = bookService.cancelReservation(hotelCode, confirmationNumber);
         
         log.info("Reservation cancelled successfully - confirmation: {}, requestId: {}", 
                  confirmationNumber, requestId);
         
         return ResponseEntity.ok(response);
     }
+
+    private Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new VersionConflictException("Unrecognised If-Match value: " + ifMatch);
+        }
+    }
 }
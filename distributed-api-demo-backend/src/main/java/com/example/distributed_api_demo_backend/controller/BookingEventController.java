@@ -0,0 +1,86 @@
+package com.example.distributed_api_demo_backend.controller;
+
+import com.example.distributed_api_demo_backend.service.BookingEventStream;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/book/v1/events")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Booking Events", description = "Change feed of reservation create/modify/cancel events")
+public class BookingEventController {
+
+    private static final int MAX_BATCH = 1000;
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    private final BookingEventStream bookingEventStream;
+
+    @GetMapping
+    @Operation(summary = "Poll booking events", description = "Long-poll for events at or after fromSequence. Resume with the returned nextSequence.")
+    public CompletableFuture<ResponseEntity<JsonNode>> pollEvents(
+            @Parameter(description = "First sequence number to return (0 = oldest retained)")
+            @RequestParam(defaultValue = "0") Long fromSequence,
+
+            @Parameter(description = "Only return events for this hotel")
+            @RequestParam(required = false) String hotelCode,
+
+            @Parameter(description = "Maximum number of events to return")
+            @RequestParam(defaultValue = "100") Integer limit,
+
+            @Parameter(description = "Seconds to wait for new events when none are available")
+            @RequestParam(defaultValue = "30") Integer waitSeconds,
+
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        log.debug("Poll booking events - from: {}, hotel: {}, limit: {}, wait: {}s, requestId: {}",
+                  fromSequence, hotelCode, limit, waitSeconds, requestId);
+
+        int batchSize = Math.clamp(limit, 1, MAX_BATCH);
+        Duration wait = Duration.ofSeconds(Math.clamp(waitSeconds, 0, MAX_WAIT_SECONDS));
+
+        return bookingEventStream.poll(fromSequence, batchSize, hotelCode, wait)
+                .thenApply(batch -> ResponseEntity.ok((JsonNode) bookingEventStream.toJson(batch)));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream booking events", description = "Server-sent events; each event id is its sequence number, so reconnecting with Last-Event-ID resumes the feed.")
+    public SseEmitter streamEvents(
+            @Parameter(description = "First sequence number to send (0 = oldest retained)")
+            @RequestParam(defaultValue = "0") Long fromSequence,
+
+            @Parameter(description = "Only send events for this hotel")
+            @RequestParam(required = false) String hotelCode,
+
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestHeader("Authorization") String authorization,
+            @RequestHeader("x-app-key") String appKey,
+            @RequestHeader("x-channelCode") String channelCode,
+            @RequestHeader("x-request-id") String requestId) {
+
+        long start = lastEventId != null ? lastEventId + 1 : fromSequence;
+        log.info("Booking event stream opened - from: {}, hotel: {}, requestId: {}", start, hotelCode, requestId);
+
+        return SsePump.start(new SseEmitter(0L), "booking-events-sse-" + requestId, start,
+                (cursor, limit, timeout) -> bookingEventStream.poll(cursor, limit, hotelCode, timeout),
+                bookingEventStream::toJson,
+                event -> SseEmitter.event()
+                        .id(Long.toString(event.sequence()))
+                        .name(event.type().name())
+                        .data(bookingEventStream.toJson(event), MediaType.APPLICATION_JSON));
+    }
+}
@@ -1,14 +1,29 @@
 package com.example.distributed_api_demo_backend.controller;
 
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.dto.PropertySearchResults;
+import com.example.distributed_api_demo_backend.service.OfferRequestCoalescer;
 import com.example.distributed_api_demo_backend.service.ShopService;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/shop/v1/hotels")
@@ -18,10 +33,12 @@ import org.springframework.web.bind.annotation.*;
 public class ShopController {
 
     private final ShopService shopService;
+    private final OfferRequestCoalescer offerRequestCoalescer;
 
     @GetMapping
-    @Operation(summary = "Multi-property search", description = "Search for availability across multiple properties")
-    public ResponseEntity<JsonNode> searchProperties(
+    @Operation(summary = "Multi-property search", description = "Search for availability across multiple properties, "
+            + "sorted server-side and paginated with an opaque cursor. Only the returned page is priced.")
+    public ResponseEntity<PropertySearchResults> searchProperties(
             @Parameter(description = "Number of adults", required = true)
             @RequestParam Integer adults,
             
@@ -29,10 +46,10 @@ public class ShopController {
             @RequestParam Integer numberOfUnits,
             
             @Parameter(description = "Arrival date (YYYY-MM-DD)", required = true)
-            @RequestParam String arrivalDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate arrivalDate,
             
             @Parameter(description = "Departure date (YYYY-MM-DD)", required = true)
-            @RequestParam String departureDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate departureDate,
             
             @Parameter(description = "Hotel chain code")
             @RequestParam(required = false) String chainCode,
@@ -40,25 +57,56 @@ public class ShopController {
             @Parameter(description = "Comma-separated hotel codes")
             @RequestParam(required = false) String hotelCodes,
             
+            @Parameter(description = "City name or prefix, e.g. Paris")
+            @RequestParam(required = false) String destination,
+            
+            @Parameter(description = "Sort order: LOWEST_RATE, DISTANCE or NAME")
+            @RequestParam(defaultValue = "LOWEST_RATE") String sortBy,
+            
+            @Parameter(description = "Latitude to measure distances from; required with DISTANCE or radiusKm")
+            @RequestParam(required = false) Double latitude,
+            
+            @Parameter(description = "Longitude to measure distances from; required with DISTANCE or radiusKm")
+            @RequestParam(required = false) Double longitude,
+            
+            @Parameter(description = "Only properties within this many kilometres of latitude/longitude")
+            @RequestParam(required = false) Double radiusKm,
+            
+            @Parameter(description = "Currency for all rates (USD, EUR, GBP, JPY); defaults to each property's currency")
+            @RequestParam(required = false) String currencyCode,
+            
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20") int limit,
+            
+            @Parameter(description = "nextCursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            
             @RequestHeader("Authorization") String authorization,
             @RequestHeader("x-app-key") String appKey,
             @RequestHeader("x-channelCode") String channelCode,
             @RequestHeader("x-request-id") String requestId) {
 
-        log.info("Property search request - adults: {}, units: {}, arrival: {}, departure: {}, requestId: {}", 
-                 adults, numberOfUnits, arrivalDate, departureDate, requestId);
+        log.info("Property search request - adults: {}, units: {}, arrival: {}, departure: {}, destination: {}, sortBy: {}, requestId: {}", 
+                 adults, numberOfUnits, arrivalDate, departureDate, destination, sortBy, requestId);
 
-        JsonNode response = shopService.searchProperties();
+        Set<String> codes = hotelCodes == null || hotelCodes.isBlank()
+                ? null
+                : Set.copyOf(List.of(hotelCodes.trim().split("\\s*,\\s*")));
+        PropertySearchResults response = shopService.searchProperties(new ShopService.PropertySearch(arrivalDate,
+                departureDate, codes, chainCode, destination, latitude, longitude, radiusKm,
+                ShopService.SearchSort.of(sortBy), currencyCode, limit, cursor));
         
-        log.info("Returning {} properties, requestId: {}", 
-                 response.get("roomStays").size(), requestId);
+        log.info("Returning {} of {} properties, requestId: {}", 
+                 response.roomStays().size(), response.totalResults(), requestId);
         
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/{hotelCode}/offers")
-    @Operation(summary = "Get property offers", description = "Get detailed offers with room types and rate plans for a specific property")
-    public ResponseEntity<JsonNode> getPropertyOffers(
+    @Operation(summary = "Get property offers", description = "Get detailed offers with room types and rate plans for a specific property. Identical concurrent requests share one pricing run.")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = PropertyOffers.class)))
+    public DeferredResult<ResponseEntity<byte[]>> getPropertyOffers(
             @Parameter(description = "Hotel code", required = true)
             @PathVariable String hotelCode,
             
@@ -69,10 +117,10 @@ public class ShopController {
             @RequestParam Integer numberOfUnits,
             
             @Parameter(description = "Arrival date (YYYY-MM-DD)", required = true)
-            @RequestParam String arrivalDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate arrivalDate,
             
             @Parameter(description = "Departure date (YYYY-MM-DD)", required = true)
-            @RequestParam String departureDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate departureDate,
             
             @Parameter(description = "Comma-separated rate plan codes")
             @RequestParam(required = false) String ratePlanCodes,
@@ -80,6 +128,9 @@ public class ShopController {
             @Parameter(description = "Match rate plan codes only")
             @RequestParam(required = false) Boolean ratePlanCodeMatchOnly,
             
+            @Parameter(description = "Currency for all amounts (USD, EUR, GBP, JPY); defaults to the property's currency")
+            @RequestParam(required = false) String currencyCode,
+            
             @RequestHeader("Authorization") String authorization,
             @RequestHeader("x-app-key") String appKey,
             @RequestHeader("x-channelCode") String channelCode,
@@ -88,11 +139,27 @@ public class ShopController {
         log.info("Property offers request - hotel: {}, adults: {}, units: {}, arrival: {}, departure: {}, requestId: {}", 
                  hotelCode, adults, numberOfUnits, arrivalDate, departureDate, requestId);
 
-        JsonNode response = shopService.getPropertyOffers(hotelCode);
-        
-        log.info("Returning offers for hotel: {}, requestId: {}", hotelCode, requestId);
-        
-        return ResponseEntity.ok(response);
+        Set<String> planCodes = ratePlanCodes == null || ratePlanCodes.isBlank()
+                ? null
+                : Set.copyOf(List.of(ratePlanCodes.trim().split("\\s*,\\s*")));
+        OfferRequestCoalescer.OfferQuery query = OfferRequestCoalescer.OfferQuery.of(hotelCode, arrivalDate,
+                departureDate, planCodes, Boolean.TRUE.equals(ratePlanCodeMatchOnly), currencyCode);
+
+        CompletableFuture<OfferRequestCoalescer.OfferResult> offers = offerRequestCoalescer.offers(query);
+        DeferredResult<ResponseEntity<byte[]>> response = new DeferredResult<>();
+        // Runs on completion, async timeout and client disconnect alike; only the last two still have a caller
+        // waiting, and cancelling lets the coalescer drop it (and the pricing run, once no caller is left)
+        response.onCompletion(() -> offers.cancel(false));
+        offers.whenComplete((result, error) -> {
+            if (error != null) {
+                response.setErrorResult(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                return;
+            }
+            log.info("Returning offers for hotel: {}, requestId: {}", hotelCode, requestId);
+            response.setResult(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(result.json()));
+        });
+        return response;
     }
 
     @GetMapping("/{hotelCode}/calendar")
@@ -0,0 +1,80 @@
+package com.example.distributed_api_demo_backend.controller;
+
+import com.example.distributed_api_demo_backend.service.SequencedRing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Sends a {@link SequencedRing} feed to one server-sent event subscriber from its own virtual thread, so a slow
+ * client only ever blocks its own sender. A lapped subscriber gets a {@code gap} event, an idle one a keepalive
+ * comment, and the emitter is completed whichever way the pump stops.
+ */
+@Slf4j
+final class SsePump {
+
+    static final int MAX_BATCH = 1000;
+    static final Duration KEEPALIVE = Duration.ofSeconds(15);
+
+    @FunctionalInterface
+    interface Feed<E> {
+        CompletableFuture<SequencedRing.Batch<E>> poll(long fromSequence, int limit, Duration timeout);
+    }
+
+    private SsePump() {
+    }
+
+    /**
+     * @param gap   body of the {@code gap} event sent when the subscriber fell behind the retained entries
+     * @param event the SSE event for one entry, carrying its sequence number as id
+     */
+    static <E> SseEmitter start(SseEmitter emitter, String name, long fromSequence, Feed<E> feed,
+                                Function<SequencedRing.Batch<E>, Object> gap,
+                                Function<E, SseEmitter.SseEventBuilder> event) {
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        Thread.ofVirtual().name(name).start(() -> {
+            long cursor = fromSequence;
+            try {
+                while (open.get()) {
+                    SequencedRing.Batch<E> batch = feed.poll(cursor, MAX_BATCH, KEEPALIVE).get();
+                    if (batch.truncated()) {
+                        emitter.send(SseEmitter.event().name("gap")
+                                .data(gap.apply(batch.withoutEvents()), MediaType.APPLICATION_JSON));
+                    }
+                    for (E entry : batch.events()) {
+                        emitter.send(event.apply(entry));
+                    }
+                    if (batch.events().isEmpty() && !batch.truncated()) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    }
+                    cursor = batch.nextSequence();
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Stream {} closed by client: {}", name, e.getMessage());
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } catch (ExecutionException e) {
+                log.warn("Stream {} failed", name, e.getCause());
+                emitter.completeWithError(e.getCause());
+            } catch (RuntimeException e) {
+                log.warn("Stream {} failed", name, e);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+}
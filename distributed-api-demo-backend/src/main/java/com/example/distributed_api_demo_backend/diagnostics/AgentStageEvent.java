@@ -0,0 +1,20 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.distribution.AgentStage")
+@Label("Agent Stage")
+@Category({"Distribution API", "Agent"})
+@Description("One stage of an agent turn: the LLM call (tool calls included), parsing its reply or pricing the draft")
+public class AgentStageEvent extends DistributionEvent {
+
+    public static final String LLM_CALL = "llm-call";
+    public static final String PARSE_RESPONSE = "parse-response";
+    public static final String ENRICH_OFFERS = "enrich-offers";
+
+    @Label("Stage")
+    public String stage;
+}
@@ -0,0 +1,22 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.distribution.BookingOperation")
+@Label("Booking Operation")
+@Category({"Distribution API", "Book"})
+@Description("A reservation create, modify or cancel, including its store write")
+public class BookingOperationEvent extends DistributionEvent {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Confirmation Number")
+    public String confirmationNumber;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,38 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.slf4j.MDC;
+
+/**
+ * Base of the API's flight recorder events. Callers {@code begin()} before the stage, set the subclass's
+ * own fields and finish with {@link #commitFor}; the request ID (and hotel code, when the caller has none)
+ * are only looked up once the event is known to be recorded, so a disabled event or one under its threshold
+ * costs two timestamps and a branch.
+ */
+@Category("Distribution API")
+@StackTrace(false)
+public abstract class DistributionEvent extends Event {
+
+    @Label("Hotel Code")
+    public String hotelCode;
+
+    @Label("Request ID")
+    public String requestId;
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold. Returns nothing on purpose: the
+     * JDK's event instrumentation takes a one-argument {@code boolean} method on an event for a setting.
+     */
+    public void commitFor(String hotelCode) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.hotelCode = hotelCode != null ? hotelCode : MDC.get(RequestMdcFilter.HOTEL_CODE);
+        this.requestId = MDC.get(RequestMdcFilter.REQUEST_ID);
+        commit();
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@code /actuator/flightrecorder}: lists recordings, starts on-demand ones and streams any recording as a
+ * {@code .jfr} file for JDK Mission Control or {@code jfr print}. A continuous recording starts with the
+ * application unless {@code diagnostics.jfr.continuous.enabled} is false. It uses the trimmed
+ * {@code jfr/continuous.jfc} settings: the API events, GC pauses, long safepoints and lock stalls, and execution
+ * samples every 200ms instead of the JDK default 20ms. On one CPU it cost about 10% throughput, the same as a
+ * recording with no events at all, so what remains is the recorder's fixed cost rather than the event set. It keeps
+ * the last {@code max-age} of data in memory and on disk, so it can be dumped after a latency spike has already
+ * happened. No recording captures the process environment or system properties, which hold secrets.
+ * The endpoint is not exposed over HTTP unless {@code management.endpoints.web.exposure} includes it.
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+@Slf4j
+public class FlightRecorderEndpoint {
+
+    private static final List<Class<? extends DistributionEvent>> EVENTS = List.of(ShopQueryEvent.class,
+            BookingOperationEvent.class, ReservationStoreWriteEvent.class, JsonSerializationEvent.class,
+            AgentStageEvent.class);
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+    private static final String CONTINUOUS_SETTINGS = "/jfr/continuous.jfc";
+    private static final List<String> SECRET_EVENTS = List.of("jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty");
+
+    /**
+     * Times are ISO-8601 strings; the application's ObjectMapper has no java.time support.
+     */
+    public record RecordingInfo(long id, String name, String state, String startTime, String duration,
+                                String maxAge, long size) {
+
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(recording.getId(), recording.getName(), recording.getState().name(),
+                    Objects.toString(recording.getStartTime(), null), Objects.toString(recording.getDuration(), null),
+                    Objects.toString(recording.getMaxAge(), null), recording.getSize());
+        }
+    }
+
+    @Value("${diagnostics.jfr.continuous.enabled:true}")
+    private boolean continuousEnabled;
+
+    @Value("${diagnostics.jfr.continuous.max-age:15m}")
+    private Duration continuousMaxAge;
+
+    @Value("${diagnostics.jfr.continuous.event-threshold:1ms}")
+    private Duration continuousThreshold;
+
+    @Value("${diagnostics.jfr.on-demand.max-duration:5m}")
+    private Duration maxDuration;
+
+    private Recording continuous;
+
+    @PostConstruct
+    public void startContinuous() {
+        if (!continuousEnabled || !FlightRecorder.isAvailable()) {
+            return;
+        }
+        continuous = newRecording("continuous", continuousSettings(), continuousThreshold);
+        continuous.setMaxAge(continuousMaxAge);
+        continuous.setToDisk(true);
+        continuous.start();
+        log.info("Continuous flight recording {} started (max age {}, API events over {})",
+                 continuous.getId(), continuousMaxAge, continuousThreshold);
+    }
+
+    @PreDestroy
+    public void stopContinuous() {
+        if (continuous != null) {
+            continuous.close();
+        }
+    }
+
+    @ReadOperation
+    public Map<String, Object> recordings() {
+        return Map.of("available", FlightRecorder.isAvailable(),
+                "recordings", FlightRecorder.isAvailable()
+                        ? FlightRecorder.getFlightRecorder().getRecordings().stream().map(RecordingInfo::of).toList()
+                        : List.of());
+    }
+
+    /**
+     * Starts an on-demand recording with the JDK's {@code default} or {@code profile} (the default) settings and
+     * every API event enabled; it stops by itself after {@code durationSeconds} (default 60), at most
+     * {@code diagnostics.jfr.on-demand.max-duration}.
+     */
+    @WriteOperation
+    public RecordingInfo start(@Nullable String settings, @Nullable Integer durationSeconds) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight recorder is not available in this JVM");
+        }
+        String configuration = settings != null ? settings : "profile";
+        if (!SETTINGS.contains(configuration)) {
+            throw new InvalidEndpointRequestException("settings must be default or profile",
+                    "Unsupported flight recorder settings");
+        }
+        Duration duration = Duration.ofSeconds(Math.max(1, durationSeconds != null ? durationSeconds : 60));
+        if (duration.compareTo(maxDuration) > 0) {
+            log.info("Limiting on-demand flight recording from {} to {}", duration, maxDuration);
+            duration = maxDuration;
+        }
+        Recording recording = newRecording("on-demand", jdkSettings(configuration), Duration.ZERO);
+        recording.setDuration(duration);
+        recording.setToDisk(true);
+        recording.start();
+        log.info("On-demand flight recording {} started with {} settings for {}",
+                 recording.getId(), configuration, recording.getDuration());
+        return RecordingInfo.of(recording);
+    }
+
+    /**
+     * The recording's data so far as a {@code .jfr} file; running recordings keep recording.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+            recording.dump(file);
+            log.info("Dumped flight recording {} ({} bytes)", id, Files.size(file));
+            return new WebEndpointResponse<>(new DeletingFileResource(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> stop(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.close();
+        if (recording == continuous) {
+            continuous = null;
+        }
+        log.info("Flight recording {} closed", id);
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    private static Configuration continuousSettings() {
+        try (InputStream in = FlightRecorderEndpoint.class.getResourceAsStream(CONTINUOUS_SETTINGS)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing flight recorder settings " + CONTINUOUS_SETTINGS);
+            }
+            return Configuration.create(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Unreadable flight recorder settings " + CONTINUOUS_SETTINGS, e);
+        }
+    }
+
+    private static Configuration jdkSettings(String settings) {
+        try {
+            return Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown flight recorder settings: " + settings);
+        }
+    }
+
+    private static Recording newRecording(String name, Configuration configuration, Duration threshold) {
+        Recording recording = new Recording(configuration);
+        recording.setName(name);
+        for (Class<? extends DistributionEvent> event : EVENTS) {
+            recording.enable(event).withThreshold(threshold);
+        }
+        for (String event : SECRET_EVENTS) {
+            recording.disable(event);
+        }
+        return recording;
+    }
+
+    private static Recording find(long id) {
+        if (!FlightRecorder.isAvailable()) {
+            return null;
+        }
+        for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if (recording.getId() == id) {
+                return recording;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A dumped recording streamed once and deleted when the stream is closed.
+     */
+    private static final class DeletingFileResource extends InputStreamResource {
+
+        private final Path file;
+
+        DeletingFileResource(Path file) throws IOException {
+            super(Files.newInputStream(file));
+            this.file = file;
+        }
+
+        @Override
+        public String getFilename() {
+            return file.getFileName().toString();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return Files.size(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    Files.deleteIfExists(file);
+                }
+            };
+        }
+    }
+}
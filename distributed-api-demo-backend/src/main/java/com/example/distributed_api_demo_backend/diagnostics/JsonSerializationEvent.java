@@ -0,0 +1,21 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.distribution.JsonSerialization")
+@Label("JSON Serialization")
+@Category({"Distribution API", "JSON"})
+@Description("Serializing a response body to JSON")
+public class JsonSerializationEvent extends DistributionEvent {
+
+    @Label("Type")
+    public String type;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
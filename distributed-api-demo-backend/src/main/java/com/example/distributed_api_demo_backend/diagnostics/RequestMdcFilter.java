@@ -0,0 +1,63 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Puts the caller's {@code x-request-id} and the hotel code from {@code /hotels/{hotelCode}} paths into the
+ * MDC for the request thread, where flight recorder events pick them up. Async dispatches are filtered too,
+ * so the values are back in place when a deferred response is written.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestMdcFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID = "requestId";
+    public static final String HOTEL_CODE = "hotelCode";
+
+    private static final String HOTELS_SEGMENT = "/hotels/";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader("x-request-id");
+        String hotelCode = hotelCode(request.getRequestURI());
+        if (requestId != null) {
+            MDC.put(REQUEST_ID, requestId);
+        }
+        if (hotelCode != null) {
+            MDC.put(HOTEL_CODE, hotelCode);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(REQUEST_ID);
+            MDC.remove(HOTEL_CODE);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static String hotelCode(String uri) {
+        int start = uri.indexOf(HOTELS_SEGMENT);
+        if (start < 0) {
+            return null;
+        }
+        start += HOTELS_SEGMENT.length();
+        int end = uri.indexOf('/', start);
+        String hotelCode = end < 0 ? uri.substring(start) : uri.substring(start, end);
+        return hotelCode.isEmpty() ? null : hotelCode;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.distribution.ReservationStoreWrite")
+@Label("Reservation Store Write")
+@Category({"Distribution API", "Book"})
+@Description("Writing a reservation to the store, its search index and replicas")
+public class ReservationStoreWriteEvent extends DistributionEvent {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Confirmation Number")
+    public String confirmationNumber;
+
+    @Label("Version")
+    public long version;
+}
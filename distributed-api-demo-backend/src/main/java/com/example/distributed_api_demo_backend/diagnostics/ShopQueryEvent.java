@@ -0,0 +1,22 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.distribution.ShopQuery")
+@Label("Shop Query")
+@Category({"Distribution API", "Shop"})
+@Description("Evaluation of a shop query: pricing a property's offers or ranking a multi-property search")
+public class ShopQueryEvent extends DistributionEvent {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Nights")
+    public int nights;
+
+    @Label("Results")
+    public int results;
+}
@@ -0,0 +1,16 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/**
+ * A money amount as used for nightly base rates, stay totals and penalties; {@code amountAfterTax} is only set on totals.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Amount(BigDecimal amountBeforeTax, BigDecimal amountAfterTax, String currencyCode) {
+
+    public static Amount beforeTax(BigDecimal amountBeforeTax, String currencyCode) {
+        return new Amount(amountBeforeTax, null, currencyCode);
+    }
+}
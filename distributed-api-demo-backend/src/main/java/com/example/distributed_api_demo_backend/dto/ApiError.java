@@ -0,0 +1,16 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * Error body shared by every endpoint, in the OPERA {@code o:errorPath} format.
+ */
+public record ApiError(int status, String title, String detail,
+                       @JsonProperty("o:errorPath") String errorPath, String timestamp) {
+
+    public static ApiError of(int status, String title, String detail, String errorPath) {
+        return new ApiError(status, title, detail, errorPath, Instant.now().toString());
+    }
+}
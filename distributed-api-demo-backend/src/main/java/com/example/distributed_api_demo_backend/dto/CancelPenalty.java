@@ -0,0 +1,15 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CancelPenalty(String deadline, String penaltyDescription, Amount amount) {
+
+    public CancelPenalty withAmount(Amount amount) {
+        return new CancelPenalty(deadline, penaltyDescription, amount);
+    }
+
+    public CancelPenalty withDeadline(String deadline) {
+        return new CancelPenalty(deadline, penaltyDescription, amount);
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.distributed_api_demo_backend.dto;
+
+public record Occupancy(int maxOccupancy, int maxAdultOccupancy, int maxChildOccupancy,
+                        int maxRollaways, int maxCribs) {
+}
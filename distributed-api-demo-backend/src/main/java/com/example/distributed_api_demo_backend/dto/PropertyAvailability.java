@@ -0,0 +1,18 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/**
+ * One property in a multi-property search; {@code distance} is only set when searching around a point.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PropertyAvailability(PropertyInfo propertyInfo, String availability, RateSummary minRate,
+                                   RateSummary maxRate, BigDecimal distance, String distanceUnit) {
+
+    public PropertyAvailability priced(RateSummary minRate, RateSummary maxRate, BigDecimal distance) {
+        return new PropertyAvailability(propertyInfo, availability, minRate, maxRate, distance,
+                distance == null ? null : "KM");
+    }
+}
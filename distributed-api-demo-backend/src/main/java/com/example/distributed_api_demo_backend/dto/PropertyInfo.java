@@ -0,0 +1,31 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PropertyInfo(String hotelCode, String hotelName, String chainCode,
+                           @JsonProperty("isAlternate") Boolean isAlternate,
+                           Address address, Communications communications, String marketingMessage,
+                           Double latitude, Double longitude) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Address(List<String> addressLine, String countryCode, String cityName, String stateProv,
+                          String postalCode) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Communications(List<Phone> phones, List<Email> emails, List<Url> urls) {
+    }
+
+    public record Phone(String phoneTechType, String phoneLocationType, String phoneNumber) {
+    }
+
+    public record Email(String emailType, String email) {
+    }
+
+    public record Url(String url) {
+    }
+}
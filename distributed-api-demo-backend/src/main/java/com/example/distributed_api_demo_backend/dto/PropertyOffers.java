@@ -0,0 +1,9 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import java.util.List;
+
+/**
+ * Response of the property offers endpoint.
+ */
+public record PropertyOffers(List<RoomStay> roomStays) {
+}
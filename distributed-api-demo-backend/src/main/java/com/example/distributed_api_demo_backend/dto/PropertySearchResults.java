@@ -0,0 +1,12 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One page of the multi-property search; pass {@code nextCursor} back to get the following page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PropertySearchResults(List<PropertyAvailability> roomStays, int totalResults, String nextCursor) {
+}
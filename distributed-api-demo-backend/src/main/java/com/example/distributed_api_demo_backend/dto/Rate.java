@@ -0,0 +1,4 @@
+package com.example.distributed_api_demo_backend.dto;
+
+public record Rate(Amount base, String start, String end) {
+}
@@ -0,0 +1,18 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One priced rate plan of a room type. Unpriced templates (no {@code rates}/{@code total}) are kept
+ * in the shop index and completed per query with {@link #priced}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RatePlan(String ratePlanCode, String ratePlanName, String ratePlanType, String availabilityStatus,
+                       Boolean identificationRequired, Boolean taxInclusive, Rates rates, Amount total,
+                       Guarantee guarantee, CancelPenalty cancelPenalty, MealPlan mealPlan) {
+
+    public RatePlan priced(Rates rates, Amount total, CancelPenalty cancelPenalty) {
+        return new RatePlan(ratePlanCode, ratePlanName, ratePlanType, availabilityStatus, identificationRequired,
+                taxInclusive, rates, total, guarantee, cancelPenalty, mealPlan);
+    }
+}
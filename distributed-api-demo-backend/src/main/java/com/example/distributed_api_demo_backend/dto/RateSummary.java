@@ -0,0 +1,13 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/**
+ * Lowest or highest average nightly rate of a property in a multi-property search.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RateSummary(BigDecimal amountBeforeTax, BigDecimal amountAfterTax, String currencyCode,
+                          String rateMode, Boolean isCommissionable, Boolean hasRateChange) {
+}
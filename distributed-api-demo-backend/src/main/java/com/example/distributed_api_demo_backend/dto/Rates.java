@@ -0,0 +1,6 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import java.util.List;
+
+public record Rates(List<Rate> rate) {
+}
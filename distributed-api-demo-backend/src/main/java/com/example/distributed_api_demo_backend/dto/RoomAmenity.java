@@ -0,0 +1,5 @@
+package com.example.distributed_api_demo_backend.dto;
+
+public record RoomAmenity(String roomAmenity, String description, String availabilityStatus,
+                          Integer quantity, Boolean includeInRate, Boolean confirmable) {
+}
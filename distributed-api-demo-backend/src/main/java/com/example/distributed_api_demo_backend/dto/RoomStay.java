@@ -0,0 +1,13 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RoomStay(PropertyInfo propertyInfo, String availability, List<RoomType> roomTypes) {
+
+    public RoomStay withRoomTypes(List<RoomType> roomTypes) {
+        return new RoomStay(propertyInfo, availability, roomTypes);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.distributed_api_demo_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * A room type with its rate plans. The descriptive part is read once from the fixture and shared by
+ * every response; {@link #withRatePlans} attaches the plans priced for one query.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RoomType(String availabilityStatus, String roomType, List<String> description, String roomName,
+                       String roomCategory, List<RoomAmenity> roomAmenities, Occupancy occupancy,
+                       List<RatePlan> ratePlans) {
+
+    public RoomType withRatePlans(List<RatePlan> ratePlans) {
+        return new RoomType(availabilityStatus, roomType, description, roomName, roomCategory, roomAmenities,
+                occupancy, ratePlans);
+    }
+}
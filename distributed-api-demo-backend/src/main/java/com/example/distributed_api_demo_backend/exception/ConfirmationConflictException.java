@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class ConfirmationConflictException extends RuntimeException {
+    public ConfirmationConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,47 +1,98 @@
 package com.example.distributed_api_demo_backend.exception;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.example.distributed_api_demo_backend.dto.ApiError;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
-import java.time.Instant;
+import java.util.concurrent.TimeoutException;
 
 @RestControllerAdvice
 @Slf4j
-@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
-    private final ObjectMapper objectMapper;
-
     @ExceptionHandler(NotFoundException.class)
-    public ResponseEntity<JsonNode> handleNotFoundException(NotFoundException ex, HttpServletRequest request) {
+    public ResponseEntity<ApiError> handleNotFoundException(NotFoundException ex, HttpServletRequest request) {
         log.error("Resource not found: {}", ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(buildError(404, "Resource not found", ex.getMessage(), request.getRequestURI()));
+                .body(ApiError.of(404, "Resource not found", ex.getMessage(), request.getRequestURI()));
     }
 
     @ExceptionHandler(NoAvailabilityException.class)
-    public ResponseEntity<JsonNode> handleNoAvailabilityException(NoAvailabilityException ex, HttpServletRequest request) {
+    public ResponseEntity<ApiError> handleNoAvailabilityException(NoAvailabilityException ex, HttpServletRequest request) {
         log.error("No availability: {}", ex.getMessage());
         return ResponseEntity.status(HttpStatus.CONFLICT)
-                .body(buildError(409, "No availability", ex.getMessage(), request.getRequestURI()));
+                .body(ApiError.of(409, "No availability", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(ConfirmationConflictException.class)
+    public ResponseEntity<ApiError> handleConfirmationConflictException(ConfirmationConflictException ex,
+                                                                         HttpServletRequest request) {
+        log.error("Confirmation number conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiError.of(409, "Conflict", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ApiError> handleVersionConflictException(VersionConflictException ex, HttpServletRequest request) {
+        log.error("Version conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ApiError.of(412, "Precondition failed", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(TooManyHoldsException.class)
+    public ResponseEntity<ApiError> handleTooManyHoldsException(TooManyHoldsException ex, HttpServletRequest request) {
+        log.error("Too many holds: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(ApiError.of(429, "Too many requests", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(StaleOwnerException.class)
+    public ResponseEntity<ApiError> handleStaleOwnerException(StaleOwnerException ex, HttpServletRequest request) {
+        log.error("Stale owner on {}: {}", request.getRequestURI(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiError.of(503, "Service unavailable", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(ReplicationQuorumException.class)
+    public ResponseEntity<ApiError> handleReplicationQuorumException(ReplicationQuorumException ex,
+                                                                      HttpServletRequest request) {
+        log.error("Replication quorum not reached on {}: {}", request.getRequestURI(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiError.of(503, "Service unavailable", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<ApiError> handlePayloadTooLargeException(PayloadTooLargeException ex, HttpServletRequest request) {
+        log.error("Payload too large on {}: {}", request.getRequestURI(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(ApiError.of(413, "Payload too large", ex.getMessage(), request.getRequestURI()));
     }
 
-    @ExceptionHandler({MissingServletRequestParameterException.class, MissingRequestHeaderException.class})
-    public ResponseEntity<JsonNode> handleBadRequest(Exception ex, HttpServletRequest request) {
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<ApiError> handleTimeoutException(TimeoutException ex, HttpServletRequest request) {
+        log.error("Timed out serving {}", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiError.of(503, "Service unavailable", "Timed out waiting for the response", request.getRequestURI()));
+    }
+
+    @ExceptionHandler({MissingServletRequestParameterException.class, MissingRequestHeaderException.class,
+            MethodArgumentTypeMismatchException.class, InvalidRequestException.class})
+    public ResponseEntity<ApiError> handleBadRequest(Exception ex, HttpServletRequest request) {
         log.error("Bad request on {}: {}", request.getRequestURI(), ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(buildError(400, "Invalid request parameters", ex.getMessage(), request.getRequestURI()));
+                .body(ApiError.of(400, "Invalid request parameters", ex.getMessage(), request.getRequestURI()));
     }
 
     @ExceptionHandler(NoResourceFoundException.class)
@@ -51,19 +102,9 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<JsonNode> handleGenericException(Exception ex, HttpServletRequest request) {
+    public ResponseEntity<ApiError> handleGenericException(Exception ex, HttpServletRequest request) {
         log.error("Unexpected error on {}: {}", request.getRequestURI(), ex.getMessage(), ex);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(buildError(500, "Internal server error", ex.getMessage(), request.getRequestURI()));
-    }
-
-    private JsonNode buildError(int status, String title, String detail, String path) {
-        ObjectNode error = objectMapper.createObjectNode();
-        error.put("status", status);
-        error.put("title", title);
-        error.put("detail", detail);
-        error.put("o:errorPath", path);
-        error.put("timestamp", Instant.now().toString());
-        return error;
+                .body(ApiError.of(500, "Internal server error", ex.getMessage(), request.getRequestURI()));
     }
 }
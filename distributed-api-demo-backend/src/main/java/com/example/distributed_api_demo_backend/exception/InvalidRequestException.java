@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
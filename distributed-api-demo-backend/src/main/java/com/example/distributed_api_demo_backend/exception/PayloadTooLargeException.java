@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class ReplicationQuorumException extends RuntimeException {
+    public ReplicationQuorumException(String message) {
+        super(message);
+    }
+}
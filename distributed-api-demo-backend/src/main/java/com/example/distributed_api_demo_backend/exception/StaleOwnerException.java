@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class StaleOwnerException extends RuntimeException {
+    public StaleOwnerException(String message) {
+        super(message);
+    }
+}
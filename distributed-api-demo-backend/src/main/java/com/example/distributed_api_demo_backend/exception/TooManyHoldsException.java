@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class TooManyHoldsException extends RuntimeException {
+    public TooManyHoldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.distributed_api_demo_backend.exception;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.distributed_api_demo_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Currency;
+import java.util.HexFormat;
+
+/**
+ * Builds the reservation agent's system prompt from the catalogue {@link ShopService} actually serves.
+ * The fixed instructions come first and the catalogue is rendered in a stable order, so the prompt is
+ * byte-identical until the underlying data changes and the provider's prompt-prefix cache keeps hitting.
+ * The version is a content hash; a rebuild that produces the same text keeps the existing instance.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AgentPromptBuilder {
+
+    public record AgentPrompt(String text, String version, int estimatedTokens) {
+    }
+
+    private static final String INSTRUCTIONS = """
+            You are a friendly hotel reservation assistant for a luxury hotel chain.
+            Flow: ask destination and resolve it with findHotels, then check-in/check-out dates, then adults/children; suggest 1-2 rooms with prices; confirm room and rate plan.
+            Prices: never guess. Call searchOffers for live totals and availability before quoting; call it for several hotels or date ranges in one turn when comparing.
+            When hotelCode, arrivalDate, departureDate, adults, roomType and ratePlanCode are ALL confirmed by the guest, reply with only this JSON:
+            {"type":"reservation_draft","message":"Great! I've pre-filled your booking details. Please review and confirm.","reservation_draft":{"hotelCode":"","hotelName":"","arrivalDate":"YYYY-MM-DD","departureDate":"YYYY-MM-DD","adults":0,"children":0,"roomType":"","roomName":"","ratePlanCode":"","ratePlanName":"","estimatedTotal":0,"currencyCode":"","cancellationPolicy":""}}
+            Rules: tools are read-only lookups; you never book - the frontend books after the guest confirms. If any draft field is missing keep asking, no JSON. Otherwise plain conversational text, no code blocks. Be warm and concise. Redirect non-hotel topics politely.
+            """;
+
+    private final ShopService shopService;
+    private final RatePricingEngine ratePricingEngine;
+
+    private volatile AgentPrompt current;
+
+    public AgentPrompt current() {
+        AgentPrompt prompt = current;
+        if (prompt == null) {
+            prompt = rebuild();
+        }
+        return prompt;
+    }
+
+    public synchronized AgentPrompt rebuild() {
+        String text = INSTRUCTIONS + catalogue();
+        AgentPrompt previous = current;
+        if (previous != null && previous.text().equals(text)) {
+            return previous;
+        }
+        AgentPrompt prompt = new AgentPrompt(text, version(text), (text.length() + 3) / 4);
+        current = prompt;
+        log.info("Agent system prompt version {} built ({} chars, ~{} tokens)",
+                 prompt.version(), text.length(), prompt.estimatedTokens());
+        return prompt;
+    }
+
+    private String catalogue() {
+        StringBuilder out = new StringBuilder("Properties (hotelCode|name|city|currency|status|base/night):\n");
+        for (ShopService.PropertySummary property : shopService.propertyCatalogue()) {
+            out.append(property.hotelCode()).append('|').append(property.hotelName()).append('|')
+                    .append(orDash(property.cityName())).append('|').append(orDash(property.currencyCode())).append('|')
+                    .append(property.availability()).append('|')
+                    .append(range(property.minNightly(), property.maxNightly())).append('\n');
+            for (ShopService.RoomSummary room : property.rooms()) {
+                out.append(" ").append(room.roomType()).append('|').append(room.roomName())
+                        .append("|max ").append(room.maxAdults()).append("A/").append(room.maxChildren()).append("C|")
+                        .append(range(room.minNightly(), room.maxNightly())).append('\n');
+            }
+        }
+
+        out.append("Rate plans:\n ").append(ratePricingEngine.baseRatePlanCode())
+                .append("|Flexible Rate|best available, free cancel until 6PM on arrival\n");
+        for (RatePlanRule rule : ratePricingEngine.rules()) {
+            out.append(' ').append(rule.ratePlanCode()).append('|').append(rule.ratePlanName()).append('|');
+            if (rule.percentOffBasisPoints() > 0) {
+                out.append(BigDecimal.valueOf(rule.percentOffBasisPoints(), 2).stripTrailingZeros().toPlainString())
+                        .append("% off, ");
+            }
+            if (rule.amountOffMinor() > 0) {
+                Currency currency = Currency.getInstance(rule.amountOffCurrency());
+                out.append(BigDecimal.valueOf(rule.amountOffMinor(), currency.getDefaultFractionDigits())
+                                .stripTrailingZeros().toPlainString())
+                        .append(' ').append(currency.getCurrencyCode()).append(" off/night, ");
+            }
+            if (rule.minLengthOfStay() > 0) {
+                out.append("min ").append(rule.minLengthOfStay()).append(" nights, ");
+            }
+            if (rule.minAdvanceDays() > 0) {
+                out.append("book ").append(rule.minAdvanceDays()).append("+ days ahead, ");
+            }
+            if (rule.identificationRequired()) {
+                out.append("member ID required, ");
+            }
+            out.append(rule.penaltyDescription() != null ? rule.penaltyDescription() : "see offer").append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String range(BigDecimal min, BigDecimal max) {
+        if (min == null || max == null) {
+            return "-";
+        }
+        String low = min.stripTrailingZeros().toPlainString();
+        String high = max.stripTrailingZeros().toPlainString();
+        return low.equals(high) ? low : low + "-" + high;
+    }
+
+    private static String orDash(String value) {
+        return value == null || value.isBlank() ? "-" : value;
+    }
+
+    private static String version(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
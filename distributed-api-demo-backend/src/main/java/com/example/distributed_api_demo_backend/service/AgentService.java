@@ -1,5 +1,12 @@
 package com.example.distributed_api_demo_backend.service;
 
+import com.example.distributed_api_demo_backend.diagnostics.AgentStageEvent;
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.dto.RatePlan;
+import com.example.distributed_api_demo_backend.dto.RoomStay;
+import com.example.distributed_api_demo_backend.dto.RoomType;
+import com.example.distributed_api_demo_backend.exception.NoAvailabilityException;
+import com.example.distributed_api_demo_backend.exception.TooManyHoldsException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -10,11 +17,20 @@ import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @Slf4j
@@ -23,105 +39,54 @@ public class AgentService {
 
     private final ObjectMapper objectMapper;
     private final ShopService shopService;
-    private final ChatClient.Builder chatClientBuilder;
-
-    private static final String SYSTEM_PROMPT = """
-            You are a friendly hotel reservation assistant for a luxury hotel chain. You help guests find and book the perfect room.
-
-            ## YOUR PROPERTIES
-
-            ### 1. Sandbox New York Hotel (XSBOXD1)
-            - City: New York City, USA
-            - Room Types:
-              * A1K - Deluxe Room One King Bed ($162-$352/night) — max 2 adults, 1 child, city view
-              * B1K - Standard Room One King Bed ($140-$200/night) — max 2 adults, no children
-              * C2Q - Superior Room Two Queen Beds ($245-$352/night) — max 4 adults, 2 children, great for families
-            - Rate Plans: FLEX (Flexible, free cancel by 6PM arrival), EARLY (Early Bird, 15% off, cancel 3 days prior)
-
-            ### 2. Sandbox Paris Hotel (XSBOXD2)
-            - City: Paris, France
-            - Room Types:
-              * A1K - Deluxe Room One King Bed (€101-€302/night) — max 2 adults, Eiffel Tower view
-              * C2Q - Superior Room Two Queen Beds (€180-€280/night) — max 4 adults, 2 children
-            - Rate Plans: FLEX (Flexible), EARLY (Early Bird)
-
-            ### 3. Sandbox London Hotel (XSBOXD3)
-            - City: London, UK
-            - Room Types:
-              * A1K - Deluxe Room One King Bed (£125-£285/night) — max 2 adults, city view
-              * B1K - Standard Room One King Bed (£100-£180/night) — max 2 adults
-              * C2Q - Superior Room Two Queen Beds (£200-£320/night) — max 4 adults, 2 children
-            - Rate Plans: FLEX (Flexible), EARLY (Early Bird)
-
-            ### 4. Sandbox Tokyo Hotel (XSBOXD4)
-            - City: Tokyo, Japan
-            - Room Types:
-              * A1K - Deluxe Room One King Bed (¥18000-¥35000/night) — max 2 adults, skyline view
-              * C2Q - Superior Room Two Queen Beds (¥28000-¥45000/night) — max 4 adults, 2 children
-            - Rate Plans: FLEX (Flexible), EARLY (Early Bird)
-
-            ## YOUR CONVERSATION FLOW
-
-            1. **Greet** the guest warmly and ask where they'd like to stay (city/destination)
-            2. **Ask for dates** — check-in and check-out
-            3. **Ask for guests** — number of adults and children
-            4. **Suggest rooms** — based on their needs, recommend 1-2 options with prices
-            5. **Confirm selection** — once they pick a room and rate plan, trigger the reservation draft
-
-            ## TRIGGERING A RESERVATION DRAFT
-
-            When the guest has confirmed ALL of the following, you MUST respond with a JSON object (not plain text):
-            - Property (hotelCode)
-            - Arrival date (YYYY-MM-DD)
-            - Departure date (YYYY-MM-DD)
-            - Number of adults
-            - Room type (roomType)
-            - Rate plan (ratePlanCode)
-
-            The JSON must be exactly this structure:
-            {
-              "type": "reservation_draft",
-              "message": "Great! I've pre-filled your booking details. Please review and confirm.",
-              "reservation_draft": {
-                "hotelCode": "XSBOXD1",
-                "hotelName": "Sandbox New York Hotel",
-                "arrivalDate": "2024-12-15",
-                "departureDate": "2024-12-17",
-                "adults": 2,
-                "children": 0,
-                "roomType": "A1K",
-                "roomName": "Deluxe Room One King Bed",
-                "ratePlanCode": "FLEX",
-                "ratePlanName": "Flexible Rate",
-                "estimatedTotal": 420.22,
-                "currencyCode": "USD",
-                "cancellationPolicy": "Free cancellation until 6PM on arrival date"
-              }
-            }
-
-            ## STRICT RULES — READ CAREFULLY
-            - You are a CONVERSATIONAL assistant only. You do NOT call any APIs, HTTP endpoints, or external services.
-            - NEVER call /book/v1/hotels or any booking endpoint. NEVER. The frontend handles the actual booking after the user confirms.
-            - NEVER output a reservation_draft unless ALL six fields are confirmed in the conversation: hotelCode, arrivalDate, departureDate, adults, roomType, ratePlanCode.
-            - If ANY of those fields are missing, keep asking questions — do NOT output JSON.
-            - Only output the reservation_draft JSON when the guest has explicitly confirmed every single detail.
-            - All other responses must be plain conversational text — no JSON, no code blocks.
-            - Be warm, concise, and helpful.
-            - If a guest asks about something outside hotels, politely redirect.
-            """;
+    private final AgentPromptBuilder agentPromptBuilder;
+    private final AgentShopTools agentShopTools;
+    private final InventoryService inventoryService;
+    private final ObjectProvider<ChatClient.Builder> chatClientBuilder;
+
+    private volatile ChatClient chatClient;
+
+    /**
+     * One agent turn. Rooms of a returned draft are held for the request's {@code conversationId}, replacing that
+     * conversation's earlier hold; a request without one starts a conversation, and every response carries its ID.
+     *
+     * @param client who is asking, for the hold rate limit
+     */
+    public JsonNode chat(JsonNode request, String client) {
+        String conversationId = request.path("conversationId").asText("");
+        if (conversationId.isBlank()) {
+            conversationId = UUID.randomUUID().toString();
+        }
+        ObjectNode response = turn(request, conversationId, client);
+        response.put("conversationId", conversationId);
+        return response;
+    }
 
-    public JsonNode chat(JsonNode request) {
+    private ObjectNode turn(JsonNode request, String conversationId, String client) {
         try {
-            List<Message> messages = buildMessages(request);
-
-            ChatClient chatClient = chatClientBuilder.build();
+            AgentPromptBuilder.AgentPrompt systemPrompt = agentPromptBuilder.current();
+            List<Message> messages = buildMessages(systemPrompt, request);
 
-            String content = chatClient.prompt(new Prompt(messages))
-                    .call()
-                    .content();
+            long start = System.nanoTime();
+            AgentStageEvent llmCall = stage(AgentStageEvent.LLM_CALL);
+            ChatResponse chatResponse;
+            try {
+                chatResponse = chatClient().prompt(new Prompt(messages))
+                        .options(OpenAiChatOptions.builder().parallelToolCalls(true).build())
+                        .tools(agentShopTools)
+                        .call()
+                        .chatResponse();
+            } finally {
+                llmCall.commitFor(null);
+            }
+            logTurn(systemPrompt, messages.size(), chatResponse, System.nanoTime() - start);
 
+            String content = chatResponse.getResult().getOutput().getText();
             log.debug("Spring AI raw response: {}", content);
-            return parseAgentResponse(content);
+            AgentStageEvent parse = stage(AgentStageEvent.PARSE_RESPONSE);
+            ObjectNode response = parseAgentResponse(content, conversationId, client);
+            parse.commitFor(response.path("reservation_draft").path("hotelCode").asText(null));
+            return response;
 
         } catch (Exception e) {
             log.error("Error calling OpenAI via Spring AI", e);
@@ -132,9 +97,43 @@ public class AgentService {
         }
     }
 
-    private List<Message> buildMessages(JsonNode request) {
+    private static AgentStageEvent stage(String stage) {
+        AgentStageEvent event = new AgentStageEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    private ChatClient chatClient() {
+        ChatClient client = chatClient;
+        if (client == null) {
+            synchronized (this) {
+                client = chatClient;
+                if (client == null) {
+                    log.info("Initialising ChatClient on first agent call");
+                    client = chatClientBuilder.getObject().build();
+                    chatClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private void logTurn(AgentPromptBuilder.AgentPrompt systemPrompt, int messageCount,
+                         ChatResponse chatResponse, long elapsedNanos) {
+        Usage usage = chatResponse.getMetadata().getUsage();
+        Integer cachedTokens = null;
+        if (usage.getNativeUsage() instanceof OpenAiApi.Usage openAiUsage && openAiUsage.promptTokensDetails() != null) {
+            cachedTokens = openAiUsage.promptTokensDetails().cachedTokens();
+        }
+        log.info("Agent turn - prompt v{}, messages: {}, promptTokens: {} (cached: {}), completionTokens: {}, latency: {} ms",
+                 systemPrompt.version(), messageCount, usage.getPromptTokens(), cachedTokens,
+                 usage.getCompletionTokens(), elapsedNanos / 1_000_000);
+    }
+
+    private List<Message> buildMessages(AgentPromptBuilder.AgentPrompt systemPrompt, JsonNode request) {
         List<Message> messages = new ArrayList<>();
-        messages.add(new SystemMessage(SYSTEM_PROMPT));
+        messages.add(new SystemMessage(systemPrompt.text()));
 
         if (request.has("messages") && request.get("messages").isArray()) {
             for (JsonNode msg : request.get("messages")) {
@@ -152,7 +151,7 @@ public class AgentService {
         return messages;
     }
 
-    private JsonNode parseAgentResponse(String content) {
+    private ObjectNode parseAgentResponse(String content, String conversationId, String client) {
         String trimmed = content.trim();
 
         if (trimmed.startsWith("{") || trimmed.contains("reservation_draft")) {
@@ -168,7 +167,7 @@ public class AgentService {
 
                 JsonNode parsed = objectMapper.readTree(jsonStr);
 
-                if (parsed.has("type") && "reservation_draft".equals(parsed.get("type").asText())) {
+                if (parsed.isObject() && parsed.has("type") && "reservation_draft".equals(parsed.get("type").asText())) {
                     JsonNode draft = parsed.path("reservation_draft");
                     if (!isCompleteDraft(draft)) {
                         log.warn("Agent returned incomplete reservation_draft — missing required fields. Treating as plain message.");
@@ -183,7 +182,14 @@ public class AgentService {
                             draft.path("roomType").asText(),
                             draft.path("ratePlanCode").asText());
                     enrichWithLiveOffers(parsed);
-                    return parsed;
+                    String refusal = holdInventory((ObjectNode) draft, conversationId, client);
+                    if (refusal != null) {
+                        ObjectNode refused = objectMapper.createObjectNode();
+                        refused.put("type", "message");
+                        refused.put("message", refusal);
+                        return refused;
+                    }
+                    return (ObjectNode) parsed;
                 }
             } catch (Exception e) {
                 log.debug("Response is not valid JSON, treating as plain message");
@@ -214,6 +220,33 @@ public class AgentService {
         return complete;
     }
 
+    /**
+     * Holds the drafted rooms so they are still there when the guest confirms, adding {@code holdId} and
+     * {@code holdExpiresAt} to the draft; returns what to tell the guest instead when the rooms cannot be held.
+     */
+    private String holdInventory(ObjectNode draft, String conversationId, String client) {
+        try {
+            InventoryService.Hold hold = inventoryService.hold(conversationId, client, draft.path("hotelCode").asText(),
+                    draft.path("roomType").asText(),
+                    LocalDate.parse(draft.path("arrivalDate").asText()),
+                    LocalDate.parse(draft.path("departureDate").asText()),
+                    draft.path("numberOfUnits").asInt(1));
+            draft.put("holdId", hold.holdId());
+            draft.put("holdExpiresAt", hold.expiresAt().toString());
+            return null;
+        } catch (NoAvailabilityException e) {
+            log.warn("Could not hold drafted room: {}", e.getMessage());
+            return "I'm sorry, that room has just sold out for those dates. "
+                    + "Would you like me to look for another room or rate?";
+        } catch (TooManyHoldsException e) {
+            log.warn("Not holding drafted room for {}: {}", client, e.getMessage());
+            return "I've prepared a lot of bookings in a short time. Please wait a minute and ask me again.";
+        } catch (RuntimeException e) {
+            log.warn("Could not hold drafted room, returning draft without a hold", e);
+            return null;
+        }
+    }
+
     private void enrichWithLiveOffers(JsonNode draftResponse) {
         try {
             JsonNode draft = draftResponse.get("reservation_draft");
@@ -222,31 +255,32 @@ public class AgentService {
             String hotelCode = draft.path("hotelCode").asText();
             if (hotelCode.isBlank()) return;
 
-            JsonNode offersData = shopService.getPropertyOffers(hotelCode);
             String roomType = draft.path("roomType").asText();
             String ratePlanCode = draft.path("ratePlanCode").asText();
-
-            if (offersData.has("roomStays") && offersData.get("roomStays").isArray()) {
-                for (JsonNode stay : offersData.get("roomStays")) {
-                    if (!stay.has("roomTypes")) continue;
-                    for (JsonNode room : stay.get("roomTypes")) {
-                        if (!roomType.equals(room.path("roomType").asText())) continue;
-                        if (!room.has("ratePlans")) continue;
-                        for (JsonNode plan : room.get("ratePlans")) {
-                            if (!ratePlanCode.equals(plan.path("ratePlanCode").asText())) continue;
-
-                            double total = plan.path("total").path("amountAfterTax").asDouble(0);
-                            String currency = plan.path("total").path("currencyCode").asText("USD");
-                            String cancelDesc = plan.path("cancelPenalty").path("penaltyDescription").asText();
-
-                            ObjectNode mutableDraft = (ObjectNode) draft;
-                            if (total > 0) mutableDraft.put("estimatedTotal", total);
-                            if (!currency.isBlank()) mutableDraft.put("currencyCode", currency);
-                            if (!cancelDesc.isBlank()) mutableDraft.put("cancellationPolicy", cancelDesc);
-
-                            log.info("Enriched draft with live offer: total={} {}", total, currency);
-                            return;
-                        }
+            AgentStageEvent enrich = stage(AgentStageEvent.ENRICH_OFFERS);
+            PropertyOffers offers = shopService.getPropertyOffers(hotelCode,
+                    LocalDate.parse(draft.path("arrivalDate").asText()),
+                    LocalDate.parse(draft.path("departureDate").asText()),
+                    Set.of(ratePlanCode), true, null);
+            enrich.commitFor(hotelCode);
+
+            for (RoomStay stay : offers.roomStays()) {
+                for (RoomType room : stay.roomTypes()) {
+                    if (!roomType.equals(room.roomType())) continue;
+                    for (RatePlan plan : room.ratePlans()) {
+                        if (!ratePlanCode.equals(plan.ratePlanCode())) continue;
+
+                        BigDecimal total = plan.total().amountAfterTax();
+                        String currency = plan.total().currencyCode();
+                        String cancelDesc = plan.cancelPenalty() != null ? plan.cancelPenalty().penaltyDescription() : null;
+
+                        ObjectNode mutableDraft = (ObjectNode) draft;
+                        if (total.signum() > 0) mutableDraft.put("estimatedTotal", total);
+                        if (currency != null && !currency.isBlank()) mutableDraft.put("currencyCode", currency);
+                        if (cancelDesc != null && !cancelDesc.isBlank()) mutableDraft.put("cancellationPolicy", cancelDesc);
+
+                        log.info("Enriched draft with live offer: total={} {}", total, currency);
+                        return;
                     }
                 }
             }
@@ -0,0 +1,145 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.Occupancy;
+import com.example.distributed_api_demo_backend.dto.PropertyInfo;
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.dto.RatePlan;
+import com.example.distributed_api_demo_backend.dto.RoomStay;
+import com.example.distributed_api_demo_backend.dto.RoomType;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read-only shop lookups exposed to the reservation agent as tools. Results are rendered as compact
+ * pipe-separated lines rather than the full offer JSON to keep tool output tokens low.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AgentShopTools {
+
+    private static final double DEFAULT_RADIUS_KM = 25;
+
+    private final ShopService shopService;
+    private final InventoryService inventoryService;
+
+    @Tool(description = "Resolve where the guest wants to stay to hotel codes: by city name or its start (e.g. Paris), "
+            + "and/or within radiusKm of a latitude/longitude for 'near X' requests. One line per hotel, nearest first.")
+    public String findHotels(
+            @ToolParam(description = "City name or prefix", required = false) String city,
+            @ToolParam(description = "Latitude of the place to stay near", required = false) Double latitude,
+            @ToolParam(description = "Longitude of the place to stay near", required = false) Double longitude,
+            @ToolParam(description = "Radius in km around latitude/longitude, default 25", required = false) Double radiusKm) {
+
+        log.info("Agent tool findHotels - city: {}, latitude: {}, longitude: {}, radiusKm: {}",
+                 city, latitude, longitude, radiusKm);
+
+        boolean hasOrigin = latitude != null && longitude != null;
+        if ((city == null || city.isBlank()) && !hasOrigin) {
+            return "error: give a city or a latitude and longitude";
+        }
+        List<PropertyInfo> hotels;
+        try {
+            hotels = new ArrayList<>(shopService.findProperties(city, latitude, longitude,
+                    hasOrigin && radiusKm == null ? DEFAULT_RADIUS_KM : radiusKm));
+        } catch (InvalidRequestException e) {
+            return "error: " + e.getMessage();
+        }
+        if (hotels.isEmpty()) {
+            return "no hotels found";
+        }
+        if (hasOrigin) {
+            hotels.sort(Comparator.comparingLong(hotel -> DestinationIndex.distanceMetres(
+                    latitude, longitude, hotel.latitude(), hotel.longitude())));
+        }
+
+        StringBuilder out = new StringBuilder("hotelCode|hotelName|city|country").append(hasOrigin ? "|km\n" : "\n");
+        for (PropertyInfo hotel : hotels) {
+            PropertyInfo.Address address = hotel.address();
+            out.append(hotel.hotelCode()).append('|').append(hotel.hotelName()).append('|')
+                    .append(address != null ? address.cityName() : "-").append('|')
+                    .append(address != null ? address.countryCode() : "-");
+            if (hasOrigin) {
+                out.append('|').append(BigDecimal.valueOf(DestinationIndex.distanceMetres(latitude, longitude,
+                        hotel.latitude(), hotel.longitude())).movePointLeft(3).setScale(1, RoundingMode.HALF_UP));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    @Tool(description = "Live offers for one hotel and stay: one line per room type and rate plan with total after tax, "
+            + "currency, rooms still available and cancellation policy. Call once per hotel/date range; several calls may run in one turn.")
+    public String searchOffers(
+            @ToolParam(description = "Hotel code, e.g. XSBOXD1") String hotelCode,
+            @ToolParam(description = "Check-in date YYYY-MM-DD") String arrivalDate,
+            @ToolParam(description = "Check-out date YYYY-MM-DD") String departureDate,
+            @ToolParam(description = "Number of adults") int adults,
+            @ToolParam(description = "Number of children", required = false) Integer children) {
+
+        log.info("Agent tool searchOffers - hotel: {}, {} to {}, adults: {}, children: {}",
+                 hotelCode, arrivalDate, departureDate, adults, children);
+
+        LocalDate arrival;
+        LocalDate departure;
+        try {
+            arrival = LocalDate.parse(arrivalDate);
+            departure = LocalDate.parse(departureDate);
+        } catch (DateTimeParseException e) {
+            return "error: dates must be YYYY-MM-DD";
+        }
+        if (!departure.isAfter(arrival)) {
+            return "error: departureDate must be after arrivalDate";
+        }
+
+        PropertyOffers offers;
+        try {
+            offers = shopService.getPropertyOffers(hotelCode, arrival, departure, null, false, null);
+        } catch (NotFoundException e) {
+            return "error: unknown hotel code " + hotelCode;
+        }
+        List<LocalDate> nights = arrival.datesUntil(departure).toList();
+        int childCount = children == null ? 0 : children;
+
+        StringBuilder out = new StringBuilder("roomType|roomName|ratePlanCode|ratePlanName|totalAfterTax|currency|available|cancellation\n");
+        int lines = 0;
+        for (RoomStay stay : offers.roomStays()) {
+            for (RoomType room : stay.roomTypes()) {
+                Occupancy occupancy = room.occupancy();
+                if (occupancy != null && (adults > occupancy.maxAdultOccupancy()
+                        || childCount > occupancy.maxChildOccupancy())) {
+                    continue;
+                }
+                String roomType = room.roomType();
+                int available = Integer.MAX_VALUE;
+                for (LocalDate night : nights) {
+                    available = Math.min(available, inventoryService.available(hotelCode, roomType, night));
+                }
+                for (RatePlan plan : room.ratePlans()) {
+                    out.append(roomType).append('|').append(room.roomName()).append('|')
+                            .append(plan.ratePlanCode()).append('|')
+                            .append(plan.ratePlanName()).append('|')
+                            .append(plan.total().amountAfterTax().toPlainString()).append('|')
+                            .append(plan.total().currencyCode()).append('|')
+                            .append(Math.max(0, available)).append('|')
+                            .append(plan.cancelPenalty() != null ? plan.cancelPenalty().penaltyDescription() : "-").append('\n');
+                    lines++;
+                }
+            }
+        }
+        return lines == 0 ? "no rooms fit " + adults + " adults and " + childCount + " children" : out.toString();
+    }
+}
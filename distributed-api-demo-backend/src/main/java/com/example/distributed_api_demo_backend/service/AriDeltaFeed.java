@@ -0,0 +1,203 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Availability/rates/inventory (ARI) delta feed. Inventory changes are collected for one coalescing
+ * window, compared against what was last published, and emitted as one delta per hotel holding only
+ * the nights that actually changed, with consecutive equal nights merged into a single range.
+ * <p>
+ * Each delta carries the feed-wide {@code sequence} (resume position) and a per-hotel
+ * {@code hotelSequence} that has no holes, so a channel following a subset of hotels can detect gaps.
+ */
+@Component
+@Slf4j
+public class AriDeltaFeed {
+
+    public record AriChange(String roomType, LocalDate start, LocalDate end, int available,
+                            BigDecimal amountBeforeTax, String currencyCode) {
+    }
+
+    public record AriDelta(long sequence, long hotelSequence, String hotelCode, String timestamp,
+                           List<AriChange> changes) {
+    }
+
+    private record NightState(int available, BigDecimal amountBeforeTax, String currencyCode) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final InventoryService inventoryService;
+    private final ShopService shopService;
+    private final SequencedRing<AriDelta> ring;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ari-delta-flush").daemon().factory());
+
+    // Only touched by the flusher thread
+    private final Map<InventoryService.InventoryKey, NightState> published = new HashMap<>();
+    private final Map<String, Long> hotelSequences = new HashMap<>();
+    private LocalDate prunedOn = LocalDate.now();
+
+    public AriDeltaFeed(ObjectMapper objectMapper, InventoryService inventoryService, ShopService shopService,
+                        @Value("${ari.delta.window-ms:500}") long windowMillis,
+                        @Value("${ari.delta.capacity:4096}") int capacity) {
+        this.objectMapper = objectMapper;
+        this.inventoryService = inventoryService;
+        this.shopService = shopService;
+        this.ring = new SequencedRing<>("ari-deltas", capacity);
+        this.flusher.scheduleWithFixedDelay(this::flushSafely, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SequencedRing.Batch<AriDelta> read(long fromSequence, int limit, Set<String> hotelCodes) {
+        return ring.read(fromSequence, limit, forHotels(hotelCodes));
+    }
+
+    public CompletableFuture<SequencedRing.Batch<AriDelta>> poll(long fromSequence, int limit, Set<String> hotelCodes,
+                                                                 Duration timeout) {
+        return ring.poll(fromSequence, limit, forHotels(hotelCodes), timeout);
+    }
+
+    void flush() {
+        List<InventoryService.InventoryKey> changed = inventoryService.drainChanges();
+        pruneElapsedNights();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Map<String, NavigableMap<LocalDate, NightState>>> byHotel = new TreeMap<>();
+        for (InventoryService.InventoryKey key : changed) {
+            NightState state = currentState(key);
+            if (state.equals(published.get(key))) {
+                continue;
+            }
+            published.put(key, state);
+            byHotel.computeIfAbsent(key.hotelCode(), hotel -> new TreeMap<>())
+                    .computeIfAbsent(key.roomType(), roomType -> new TreeMap<>())
+                    .put(key.night(), state);
+        }
+
+        byHotel.forEach((hotelCode, roomTypes) -> {
+            List<AriChange> changes = new ArrayList<>();
+            roomTypes.forEach((roomType, nights) -> compact(roomType, nights, changes));
+            long hotelSequence = hotelSequences.merge(hotelCode, 1L, Long::sum);
+            AriDelta delta = ring.publish(sequence ->
+                    new AriDelta(sequence, hotelSequence, hotelCode, Instant.now().toString(), List.copyOf(changes)));
+            log.debug("Published ARI delta #{} for {} ({} range(s))", delta.sequence(), hotelCode, changes.size());
+        });
+        log.debug("Coalesced {} inventory change(s) into {} ARI delta(s)", changed.size(), byHotel.size());
+    }
+
+    private NightState currentState(InventoryService.InventoryKey key) {
+        int available = Math.max(0, inventoryService.available(key.hotelCode(), key.roomType(), key.night()));
+        ShopService.BaseRate rate = shopService.baseNightlyRate(key.hotelCode(), key.roomType(), key.night());
+        return rate == null
+                ? new NightState(available, null, null)
+                : new NightState(available, rate.amountBeforeTax(), rate.currencyCode());
+    }
+
+    private void compact(String roomType, NavigableMap<LocalDate, NightState> nights, List<AriChange> changes) {
+        LocalDate start = null;
+        LocalDate end = null;
+        NightState current = null;
+        for (Map.Entry<LocalDate, NightState> night : nights.entrySet()) {
+            if (current != null && night.getKey().equals(end.plusDays(1)) && night.getValue().equals(current)) {
+                end = night.getKey();
+                continue;
+            }
+            if (current != null) {
+                changes.add(change(roomType, start, end, current));
+            }
+            start = night.getKey();
+            end = night.getKey();
+            current = night.getValue();
+        }
+        if (current != null) {
+            changes.add(change(roomType, start, end, current));
+        }
+    }
+
+    private AriChange change(String roomType, LocalDate start, LocalDate end, NightState state) {
+        return new AriChange(roomType, start, end, state.available(), state.amountBeforeTax(), state.currencyCode());
+    }
+
+    private void pruneElapsedNights() {
+        LocalDate today = LocalDate.now();
+        if (today.isAfter(prunedOn)) {
+            published.keySet().removeIf(key -> key.night().isBefore(today));
+            prunedOn = today;
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("ARI delta flush failed", e);
+        }
+    }
+
+    public ObjectNode toJson(AriDelta delta) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("sequence", delta.sequence());
+        node.put("hotelSequence", delta.hotelSequence());
+        node.put("hotelCode", delta.hotelCode());
+        node.put("timestamp", delta.timestamp());
+        ArrayNode changes = node.putArray("changes");
+        for (AriChange change : delta.changes()) {
+            ObjectNode item = changes.addObject();
+            item.put("roomType", change.roomType());
+            item.put("start", change.start().toString());
+            item.put("end", change.end().toString());
+            item.put("available", change.available());
+            item.put("availabilityStatus", change.available() > 0 ? "AvailableForSale" : "ClosedOut");
+            if (change.amountBeforeTax() != null) {
+                ObjectNode base = item.putObject("base");
+                base.put("amountBeforeTax", change.amountBeforeTax());
+                base.put("currencyCode", change.currencyCode());
+            }
+        }
+        return node;
+    }
+
+    public ObjectNode toJson(SequencedRing.Batch<AriDelta> batch) {
+        ObjectNode node = objectMapper.createObjectNode();
+        ArrayNode deltas = node.putArray("deltas");
+        batch.events().forEach(delta -> deltas.add(toJson(delta)));
+        node.put("nextSequence", batch.nextSequence());
+        node.put("oldestSequence", batch.oldestSequence());
+        node.put("truncated", batch.truncated());
+        return node;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        ring.shutdown();
+    }
+
+    private static Predicate<AriDelta> forHotels(Set<String> hotelCodes) {
+        return delta -> hotelCodes == null || hotelCodes.isEmpty() || hotelCodes.contains(delta.hotelCode());
+    }
+}
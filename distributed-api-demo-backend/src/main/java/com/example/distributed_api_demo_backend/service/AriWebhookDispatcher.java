@@ -0,0 +1,249 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.cluster.ClusterTopology;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.NotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes ARI deltas to channel webhooks. Each subscription has its own virtual thread that long-polls
+ * the feed and POSTs every batch to the callback, retrying with backoff until it is acknowledged, so a
+ * slow or failing channel only delays itself. Delivery is at-least-once in sequence order.
+ * <p>
+ * Callbacks may not point at this service's internal endpoints, a cluster node, or (unless
+ * {@code ari.webhooks.allow-private-networks}) a loopback, private or link-local address; the address is
+ * checked again before every delivery, so a host re-resolved to a private address is not called either.
+ * With {@code ari.webhooks.allowed-hosts} set, only those hosts are accepted.
+ */
+@Component
+@Slf4j
+public class AriWebhookDispatcher {
+
+    private static final int MAX_BATCH = 500;
+    private static final Duration POLL_WAIT = Duration.ofSeconds(15);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final AriDeltaFeed ariDeltaFeed;
+    private final ObjectMapper objectMapper;
+    private final ClusterTopology clusterTopology;
+    private final Set<String> allowedHosts;
+    private final boolean allowPrivateNetworks;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private static final class Subscription {
+        final String subscriptionId;
+        final String channelCode;
+        final URI callbackUrl;
+        final Set<String> hotelCodes;
+        final String createdAt = Instant.now().toString();
+        volatile long cursor;
+        volatile long deliveredBatches;
+        volatile String lastError;
+        volatile boolean active = true;
+        volatile Thread sender;
+
+        Subscription(String subscriptionId, String channelCode, URI callbackUrl, Set<String> hotelCodes, long cursor) {
+            this.subscriptionId = subscriptionId;
+            this.channelCode = channelCode;
+            this.callbackUrl = callbackUrl;
+            this.hotelCodes = hotelCodes;
+            this.cursor = cursor;
+        }
+    }
+
+    public AriWebhookDispatcher(AriDeltaFeed ariDeltaFeed, ObjectMapper objectMapper, ClusterTopology clusterTopology,
+                                @Value("${ari.webhooks.allowed-hosts:}") String allowedHosts,
+                                @Value("${ari.webhooks.allow-private-networks:false}") boolean allowPrivateNetworks) {
+        this.ariDeltaFeed = ariDeltaFeed;
+        this.objectMapper = objectMapper;
+        this.clusterTopology = clusterTopology;
+        this.allowedHosts = Arrays.stream(allowedHosts.split(","))
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.allowPrivateNetworks = allowPrivateNetworks;
+    }
+
+    public ObjectNode subscribe(String channelCode, URI callbackUrl, Set<String> hotelCodes, long fromSequence) {
+        checkCallback(callbackUrl);
+        Subscription subscription = new Subscription(UUID.randomUUID().toString(), channelCode, callbackUrl,
+                Set.copyOf(hotelCodes), fromSequence);
+        // Assigned before the subscription is visible, so unsubscribe always finds a sender to interrupt
+        subscription.sender = Thread.ofVirtual()
+                .name("ari-webhook-" + subscription.subscriptionId)
+                .unstarted(() -> deliver(subscription));
+        subscriptions.put(subscription.subscriptionId, subscription);
+        subscription.sender.start();
+
+        log.info("ARI webhook subscription {} for channel {} -> {} (hotels: {})",
+                 subscription.subscriptionId, channelCode, callbackUrl, hotelCodes.isEmpty() ? "all" : hotelCodes);
+        return toJson(subscription);
+    }
+
+    public void unsubscribe(String subscriptionId) {
+        Subscription subscription = subscriptions.remove(subscriptionId);
+        if (subscription == null) {
+            throw new NotFoundException("Subscription not found: " + subscriptionId);
+        }
+        subscription.sender.interrupt();
+        log.info("ARI webhook subscription {} removed", subscriptionId);
+    }
+
+    public ObjectNode listSubscriptions() {
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode items = response.putArray("subscriptions");
+        subscriptions.values().forEach(subscription -> items.add(toJson(subscription)));
+        return response;
+    }
+
+    /**
+     * @throws InvalidRequestException when the callback is not an http(s) URL this service may call
+     */
+    void checkCallback(URI callbackUrl) {
+        if (callbackUrl.getScheme() == null || !callbackUrl.getScheme().matches("https?") || callbackUrl.getHost() == null) {
+            throw new InvalidRequestException("callbackUrl must be an absolute http(s) URL");
+        }
+        String host = callbackUrl.getHost().toLowerCase(Locale.ROOT);
+        if (!allowedHosts.isEmpty() && !allowedHosts.contains(host)) {
+            throw new InvalidRequestException("callbackUrl host " + host + " is not an allowed webhook host");
+        }
+        if (callbackUrl.getRawPath() != null && callbackUrl.getRawPath().startsWith("/internal/")) {
+            throw new InvalidRequestException("callbackUrl must not address internal endpoints");
+        }
+        int port = callbackUrl.getPort() != -1 ? callbackUrl.getPort() : "https".equals(callbackUrl.getScheme()) ? 443 : 80;
+        for (String node : clusterTopology.nodes()) {
+            URI peer = clusterTopology.uriOf(node);
+            if (host.equalsIgnoreCase(peer.getHost()) && port == (peer.getPort() != -1 ? peer.getPort() : 80)) {
+                throw new InvalidRequestException("callbackUrl must not address a cluster node");
+            }
+        }
+        if (allowPrivateNetworks) {
+            return;
+        }
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new InvalidRequestException("callbackUrl host " + host + " does not resolve");
+        }
+        for (InetAddress address : addresses) {
+            if (isPrivate(address)) {
+                throw new InvalidRequestException("callbackUrl host " + host + " resolves to a non-public address");
+            }
+        }
+    }
+
+    private static boolean isPrivate(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            return (bytes[0] & 0xfe) == 0xfc;
+        }
+        // 100.64.0.0/10, carrier-grade NAT
+        return (bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64;
+    }
+
+    private void deliver(Subscription subscription) {
+        try {
+            while (subscriptions.containsKey(subscription.subscriptionId)) {
+                SequencedRing.Batch<AriDeltaFeed.AriDelta> batch = ariDeltaFeed
+                        .poll(subscription.cursor, MAX_BATCH, subscription.hotelCodes, POLL_WAIT).get();
+                if (!batch.events().isEmpty() || batch.truncated()) {
+                    ObjectNode payload = ariDeltaFeed.toJson(batch);
+                    payload.put("subscriptionId", subscription.subscriptionId);
+                    post(subscription, objectMapper.writeValueAsBytes(payload));
+                    subscription.deliveredBatches++;
+                }
+                subscription.cursor = batch.nextSequence();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | IOException | RuntimeException e) {
+            subscription.lastError = e.getMessage();
+            log.error("ARI webhook sender for {} stopped", subscription.subscriptionId, e);
+        } finally {
+            subscription.active = false;
+        }
+    }
+
+    private void post(Subscription subscription, byte[] payload) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(subscription.callbackUrl)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("x-subscription-id", subscription.subscriptionId)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+        Duration backoff = Duration.ofMillis(250);
+        while (true) {
+            checkCallback(subscription.callbackUrl);
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 == 2) {
+                    subscription.lastError = null;
+                    return;
+                }
+                subscription.lastError = "HTTP " + response.statusCode();
+            } catch (IOException e) {
+                subscription.lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+            log.warn("ARI webhook delivery to {} failed ({}), retrying in {} ms",
+                     subscription.callbackUrl, subscription.lastError, backoff.toMillis());
+            Thread.sleep(backoff);
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+    }
+
+    private ObjectNode toJson(Subscription subscription) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("subscriptionId", subscription.subscriptionId);
+        node.put("channelCode", subscription.channelCode);
+        node.put("callbackUrl", subscription.callbackUrl.toString());
+        ArrayNode hotels = node.putArray("hotelCodes");
+        subscription.hotelCodes.forEach(hotels::add);
+        node.put("nextSequence", subscription.cursor);
+        node.put("deliveredBatches", subscription.deliveredBatches);
+        node.put("active", subscription.active);
+        if (subscription.lastError != null) {
+            node.put("lastError", subscription.lastError);
+        }
+        node.put("createdAt", subscription.createdAt);
+        return node;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(subscription -> subscription.sender.interrupt());
+        subscriptions.clear();
+    }
+}
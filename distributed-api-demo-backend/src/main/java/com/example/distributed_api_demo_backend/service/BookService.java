@@ -1,7 +1,13 @@
 package com.example.distributed_api_demo_backend.service;
 
+import com.example.distributed_api_demo_backend.cluster.ReservationReplicator;
+import com.example.distributed_api_demo_backend.diagnostics.BookingOperationEvent;
+import com.example.distributed_api_demo_backend.diagnostics.ReservationStoreWriteEvent;
+import com.example.distributed_api_demo_backend.exception.ConfirmationConflictException;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
 import com.example.distributed_api_demo_backend.exception.NoAvailabilityException;
 import com.example.distributed_api_demo_backend.exception.NotFoundException;
+import com.example.distributed_api_demo_backend.exception.VersionConflictException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -13,9 +19,21 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
@@ -23,9 +41,23 @@ import java.util.concurrent.ConcurrentHashMap;
 public class BookService {
 
     private final ObjectMapper objectMapper;
+    private final ReservationIndex reservationIndex;
+    private final InventoryService inventoryService;
+    private final BookingEventStream bookingEventStream;
+    private final ReservationReplicator reservationReplicator;
     private final Random random = new Random();
     
-    private final Map<String, JsonNode> reservations = new ConcurrentHashMap<>();
+    // Only changed under the reservation's write lock, together with its index entry and feed event, so those
+    // follow the store's order per reservation
+    private final Map<String, StoredReservation> reservations = new ConcurrentHashMap<>();
+    // Last version of each cancelled reservation, only changed under its write lock, so a late or re-sent
+    // replicated write cannot bring a cancelled reservation back
+    private final Map<String, StoredReservation> tombstones = new ConcurrentHashMap<>();
+    // Confirmation numbers handed to creates still in progress, so two of them never draw the same one
+    private final Set<String> claimedNumbers = ConcurrentHashMap.newKeySet();
+    // Striped by confirmation number; a local write holds its stripe while the other owners acknowledge it,
+    // and stores, indexes and publishes nothing until they have
+    private final Lock[] writeLocks = IntStream.range(0, 64).mapToObj(i -> new ReentrantLock()).toArray(Lock[]::new);
     
     private JsonNode successTemplate;
     private JsonNode ccGuaranteedTemplate;
@@ -59,36 +91,83 @@ public class BookService {
         }
     }
 
-    public JsonNode createReservation(JsonNode request) {
-        log.debug("Creating reservation with request: {}", request);
+    /**
+     * Books the request; with the {@code holdId} of a live inventory hold for the same stay, the held rooms are
+     * used instead of reserving again, so the booking cannot run out of availability.
+     */
+    public JsonNode createReservation(String hotelCode, BookingRequest request, String holdId) {
+        String confirmationNumber = claimConfirmationNumber();
+        log.info("Generated confirmation number: {}", confirmationNumber);
+        try {
+            return record("create", hotelCode, confirmationNumber,
+                    () -> create(hotelCode, request, holdId, confirmationNumber));
+        } finally {
+            claimedNumbers.remove(confirmationNumber);
+        }
+    }
+
+    private JsonNode create(String hotelCode, BookingRequest request, String holdId, String confirmationNumber) {
+        log.debug("Creating reservation for hotel {}: stay {}, credit card: {}, hold: {}",
+                  hotelCode, request.stay(), request.creditCardGuarantee(), holdId);
 
-        if (random.nextDouble() < 0.1) {
+        InventoryService.Hold hold = inventoryService.getHold(holdId);
+        if (hold == null && random.nextDouble() < 0.1) {
             log.warn("Simulating no availability (10% chance)");
             throw new NoAvailabilityException("No availability for requested dates");
         }
 
-        boolean hasCreditCard = checkForCreditCard(request);
-        JsonNode template = hasCreditCard ? ccGuaranteedTemplate : successTemplate;
-        
-        String confirmationNumber = generateConfirmationNumber();
-        log.info("Generated confirmation number: {}", confirmationNumber);
-
+        JsonNode template = request.creditCardGuarantee() ? ccGuaranteedTemplate : successTemplate;
         JsonNode response = template.deepCopy();
         updateConfirmationNumber(response, confirmationNumber);
-        updateTimestamp(response);
+        applyRequestDetails(response, hotelCode, request);
+        response = applyChange(response, request.stay());
 
-        reservations.put(confirmationNumber, response);
+        Stay stay = Stay.of(response);
+        boolean converted = stay != null && hold != null && inventoryService.convertHold(
+                holdId, hotelCode, stay.roomType(), stay.nights(), stay.units());
+        if (stay != null && !converted) {
+            inventoryService.reserve(hotelCode, stay.roomType(), stay.nights(), stay.units());
+        }
+
+        ReservationStoreWriteEvent write = new ReservationStoreWriteEvent();
+        write.begin();
+        JsonNode created = response;
+        try {
+            locked(confirmationNumber, () -> {
+                if (reservations.containsKey(confirmationNumber) || tombstones.containsKey(confirmationNumber)) {
+                    // Only a write replicated from another node since the number was claimed gets here
+                    throw new ConfirmationConflictException("Confirmation number " + confirmationNumber
+                            + " was taken by another booking; retry");
+                }
+                long epoch = reservationReplicator.writeEpoch(hotelCode);
+                reservationReplicator.replicate(hotelCode, confirmationNumber, epoch, 1, created, null);
+                reservations.put(confirmationNumber, new StoredReservation(hotelCode, created, 1, epoch));
+                reservationIndex.index(confirmationNumber, hotelCode, created);
+                bookingEventStream.publish(BookingEventStream.EventType.RESERVATION_CREATED,
+                        hotelCode, confirmationNumber, 1, created.path(0));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // The guest keeps a converted hold for its remaining time, so a retry still finds the rooms
+            if (converted) {
+                inventoryService.reinstateHold(hold);
+            } else {
+                freeInventory(hotelCode, stay, null);
+            }
+            throw e;
+        }
+        commitWrite(write, hotelCode, "create", confirmationNumber, 1);
         log.info("Reservation created successfully with confirmation: {}", confirmationNumber);
 
         return response;
     }
 
-    public JsonNode getReservation(String confirmationNumber) {
-        log.debug("Retrieving reservation: {}", confirmationNumber);
+    public StoredReservation getReservation(String hotelCode, String confirmationNumber) {
+        log.debug("Retrieving reservation: {} for hotel: {}", confirmationNumber, hotelCode);
         
-        JsonNode reservation = reservations.get(confirmationNumber);
-        if (reservation == null) {
-            log.warn("Reservation not found: {}", confirmationNumber);
+        StoredReservation reservation = reservations.get(confirmationNumber);
+        if (reservation == null || !hotelCode.equals(reservation.hotelCode())) {
+            log.warn("Reservation not found: {} for hotel: {}", confirmationNumber, hotelCode);
             throw new NotFoundException("Reservation not found: " + confirmationNumber);
         }
         
@@ -96,62 +175,484 @@ public class BookService {
         return reservation;
     }
 
-    public JsonNode modifyReservation(String confirmationNumber, JsonNode request) {
-        log.debug("Modifying reservation: {}", confirmationNumber);
-        
-        if (!reservations.containsKey(confirmationNumber)) {
-            log.warn("Reservation not found for modification: {}", confirmationNumber);
-            throw new NotFoundException("Reservation not found: " + confirmationNumber);
-        }
+    public StoredReservation modifyReservation(String hotelCode, String confirmationNumber,
+                                               JsonNode request, Long expectedVersion) {
+        return record("modify", hotelCode, confirmationNumber,
+                () -> modify(hotelCode, confirmationNumber, request, expectedVersion));
+    }
 
-        JsonNode existingReservation = reservations.get(confirmationNumber);
-        JsonNode modifiedReservation = existingReservation.deepCopy();
-        updateTimestamp(modifiedReservation);
+    private StoredReservation modify(String hotelCode, String confirmationNumber, JsonNode request,
+                                     Long expectedVersion) {
+        log.debug("Modifying reservation: {} for hotel: {}, expected version: {}",
+                  confirmationNumber, hotelCode, expectedVersion);
 
-        reservations.put(confirmationNumber, modifiedReservation);
-        log.info("Reservation modified successfully: {}", confirmationNumber);
+        ReservationChange change = ReservationChange.from(request);
 
-        return modifiedReservation;
+        ReservationStoreWriteEvent write = new ReservationStoreWriteEvent();
+        write.begin();
+        StoredReservation modified = locked(confirmationNumber, () -> {
+            StoredReservation current = reservations.get(confirmationNumber);
+            if (current == null || !hotelCode.equals(current.hotelCode())) {
+                log.warn("Reservation not found for modification: {}", confirmationNumber);
+                throw new NotFoundException("Reservation not found: " + confirmationNumber);
+            }
+            if (expectedVersion != null && expectedVersion != current.version()) {
+                log.warn("Version conflict on {}: expected {}, current {}",
+                         confirmationNumber, expectedVersion, current.version());
+                throw new VersionConflictException("Reservation " + confirmationNumber
+                        + " was modified concurrently (current version " + current.version() + ")");
+            }
+
+            JsonNode body = applyChange(current.body(), change);
+            Stay before = Stay.of(current.body());
+            Stay after = Stay.of(body);
+            if (before != null && after == null) {
+                throw new InvalidRequestException("departureDate must be after arrivalDate");
+            }
+            takeInventory(hotelCode, before, after);
+            long epoch = reservationReplicator.writeEpoch(hotelCode);
+            StoredReservation next = new StoredReservation(hotelCode, body, current.version() + 1, epoch);
+            try {
+                reservationReplicator.replicate(hotelCode, confirmationNumber, epoch, next.version(), body, current);
+            } catch (RuntimeException e) {
+                freeInventory(hotelCode, after, before);
+                throw e;
+            }
+            freeInventory(hotelCode, before, after);
+            reservations.put(confirmationNumber, next);
+            reservationIndex.index(confirmationNumber, hotelCode, body);
+            bookingEventStream.publish(BookingEventStream.EventType.RESERVATION_MODIFIED,
+                    hotelCode, confirmationNumber, next.version(), body.path(0));
+            return next;
+        });
+
+        commitWrite(write, hotelCode, "modify", confirmationNumber, modified.version());
+        log.info("Reservation modified successfully: {} (version {})", confirmationNumber, modified.version());
+
+        return modified;
     }
 
-    public JsonNode cancelReservation(String confirmationNumber) {
-        log.debug("Cancelling reservation: {}", confirmationNumber);
-        
-        if (!reservations.containsKey(confirmationNumber)) {
-            log.warn("Reservation not found for cancellation: {}", confirmationNumber);
-            throw new NotFoundException("Reservation not found: " + confirmationNumber);
-        }
+    public JsonNode cancelReservation(String hotelCode, String confirmationNumber) {
+        return record("cancel", hotelCode, confirmationNumber, () -> cancel(hotelCode, confirmationNumber));
+    }
 
-        reservations.remove(confirmationNumber);
-        
+    private JsonNode cancel(String hotelCode, String confirmationNumber) {
+        log.debug("Cancelling reservation: {} for hotel: {}", confirmationNumber, hotelCode);
+
+        ReservationStoreWriteEvent write = new ReservationStoreWriteEvent();
+        write.begin();
         JsonNode response = cancellationTemplate.deepCopy();
         updateConfirmationNumber(response, confirmationNumber);
         updateTimestamp(response);
         updateCancellationDate(response);
 
+        long version = locked(confirmationNumber, () -> {
+            StoredReservation current = reservations.get(confirmationNumber);
+            if (current == null || !hotelCode.equals(current.hotelCode())) {
+                log.warn("Reservation not found for cancellation: {}", confirmationNumber);
+                throw new NotFoundException("Reservation not found: " + confirmationNumber);
+            }
+            long epoch = reservationReplicator.writeEpoch(hotelCode);
+            long next = current.version() + 1;
+            reservationReplicator.replicate(hotelCode, confirmationNumber, epoch, next, null, current);
+            freeInventory(hotelCode, Stay.of(current.body()), null);
+            reservations.remove(confirmationNumber);
+            tombstones.put(confirmationNumber, new StoredReservation(hotelCode, null, next, epoch));
+            reservationIndex.remove(confirmationNumber);
+            bookingEventStream.publish(BookingEventStream.EventType.RESERVATION_CANCELLED,
+                    hotelCode, confirmationNumber, next, response.path(0));
+            return next;
+        });
+        commitWrite(write, hotelCode, "cancel", confirmationNumber, version);
+
         log.info("Reservation cancelled successfully: {}", confirmationNumber);
         return response;
     }
 
-    private boolean checkForCreditCard(JsonNode request) {
-        if (request.has("reservations") && request.get("reservations").isArray()) {
-            ArrayNode reservations = (ArrayNode) request.get("reservations");
-            if (reservations.size() > 0) {
-                JsonNode reservation = reservations.get(0);
-                if (reservation.has("roomStay")) {
-                    JsonNode roomStay = reservation.get("roomStay");
-                    if (roomStay.has("guarantee")) {
-                        JsonNode guarantee = roomStay.get("guarantee");
-                        return guarantee.has("creditCard");
-                    }
+    /**
+     * Runs one booking operation inside a {@link BookingOperationEvent}, marked succeeded when it returns.
+     */
+    private static <T> T record(String operation, String hotelCode, String confirmationNumber, Supplier<T> action) {
+        BookingOperationEvent event = new BookingOperationEvent();
+        event.begin();
+        event.operation = operation;
+        event.confirmationNumber = confirmationNumber;
+        try {
+            T result = action.get();
+            event.succeeded = true;
+            return result;
+        } finally {
+            event.commitFor(hotelCode);
+        }
+    }
+
+    private <T> T locked(String confirmationNumber, Supplier<T> write) {
+        Lock lock = writeLocks[Math.floorMod(confirmationNumber.hashCode(), writeLocks.length)];
+        lock.lock();
+        try {
+            return write.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void commitWrite(ReservationStoreWriteEvent write, String hotelCode, String operation,
+                                    String confirmationNumber, long version) {
+        write.operation = operation;
+        write.confirmationNumber = confirmationNumber;
+        write.version = version;
+        write.commitFor(hotelCode);
+    }
+
+    /**
+     * Applies a write shipped from another owner of the hotel. Entries not newer, by epoch and then version,
+     * than the stored reservation or its cancellation are ignored, so redelivery and snapshot catch-up are
+     * idempotent and a cancelled reservation stays cancelled.
+     *
+     * @param body the replicated reservation, or {@code null} for a cancellation
+     */
+    public void applyReplicated(String hotelCode, String confirmationNumber, long epoch, long version, JsonNode body) {
+        boolean applied = locked(confirmationNumber, () -> {
+            StoredReservation current = reservations.get(confirmationNumber);
+            StoredReservation latest = current != null ? current : tombstones.get(confirmationNumber);
+            if (latest != null && !latest.isOlderThan(epoch, version)) {
+                return false;
+            }
+            install(hotelCode, confirmationNumber, current, new StoredReservation(hotelCode, body, version, epoch));
+            return true;
+        });
+
+        if (!applied) {
+            log.debug("Ignoring stale replicated write {} v{} in epoch {}", confirmationNumber, version, epoch);
+        } else if (body != null) {
+            log.info("Applied replicated reservation {} v{} for hotel {}", confirmationNumber, version, hotelCode);
+        } else {
+            log.info("Applied replicated cancellation of {} for hotel {}", confirmationNumber, hotelCode);
+        }
+    }
+
+    /**
+     * Takes back a replicated write whose primary did not get it acknowledged by enough owners. Only while the
+     * write at {@code epoch} and {@code version} is still the latest does the reservation return to
+     * {@code previous}, which is {@code null} when that write created it; anything written since is kept.
+     */
+    public void revertReplicated(String hotelCode, String confirmationNumber, long epoch, long version,
+                                 StoredReservation previous) {
+        boolean reverted = locked(confirmationNumber, () -> {
+            StoredReservation current = reservations.get(confirmationNumber);
+            StoredReservation latest = current != null ? current : tombstones.get(confirmationNumber);
+            if (latest == null || latest.epoch() != epoch || latest.version() != version) {
+                return false;
+            }
+            install(hotelCode, confirmationNumber, current, previous);
+            return true;
+        });
+
+        if (reverted) {
+            log.info("Reverted replicated write {} v{} for hotel {}", confirmationNumber, version, hotelCode);
+        } else {
+            log.debug("Not reverting {} v{} in epoch {}: no longer the latest write", confirmationNumber, version, epoch);
+        }
+    }
+
+    /**
+     * Replaces the live reservation {@code current} (or none) with {@code next}, which is live, a cancellation
+     * or, when {@code null}, nothing at all, moving its inventory and index entry along.
+     */
+    private void install(String hotelCode, String confirmationNumber, StoredReservation current,
+                         StoredReservation next) {
+        Stay before = current != null ? Stay.of(current.body()) : null;
+        Stay after = next != null && next.body() != null ? Stay.of(next.body()) : null;
+        try {
+            takeInventory(hotelCode, before, after);
+        } catch (NoAvailabilityException e) {
+            // The primary already committed this write; the replica's counters converge as holds are released.
+            log.warn("Replica inventory for {} out of step while installing {}", hotelCode, confirmationNumber);
+        }
+        freeInventory(hotelCode, before, after);
+        if (next != null && next.body() != null) {
+            tombstones.remove(confirmationNumber);
+            reservations.put(confirmationNumber, next);
+            reservationIndex.index(confirmationNumber, hotelCode, next.body());
+            return;
+        }
+        reservations.remove(confirmationNumber);
+        reservationIndex.remove(confirmationNumber);
+        if (next != null) {
+            tombstones.put(confirmationNumber, next);
+        } else {
+            tombstones.remove(confirmationNumber);
+        }
+    }
+
+    /**
+     * Live reservations and cancellations (with a {@code null} body) of the hotels matching the filter.
+     */
+    public Map<String, StoredReservation> snapshot(Predicate<String> hotelFilter) {
+        Map<String, StoredReservation> snapshot = new HashMap<>();
+        tombstones.forEach((confirmationNumber, tombstone) -> {
+            if (hotelFilter.test(tombstone.hotelCode())) {
+                snapshot.put(confirmationNumber, tombstone);
+            }
+        });
+        reservations.forEach((confirmationNumber, reservation) -> {
+            if (hotelFilter.test(reservation.hotelCode())) {
+                snapshot.put(confirmationNumber, reservation);
+            }
+        });
+        return snapshot;
+    }
+
+    public JsonNode searchReservations(String hotelCode, LocalDate arrivalFrom, LocalDate arrivalTo,
+                                       String surname, String email, int limit) {
+        log.debug("Searching reservations for hotel: {}, arrival: {}..{}, surname: {}, email: {}",
+                  hotelCode, arrivalFrom, arrivalTo, surname, email);
+
+        Collection<String> candidates;
+        if (email != null && !email.isBlank()) {
+            candidates = reservationIndex.findByEmail(hotelCode, email);
+        } else if (surname != null && !surname.isBlank()) {
+            candidates = reservationIndex.findBySurname(hotelCode, surname);
+        } else {
+            candidates = reservationIndex.findByArrival(hotelCode, arrivalFrom, arrivalTo, limit);
+        }
+
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode results = response.putArray("reservations");
+        for (String confirmationNumber : candidates) {
+            if (results.size() >= limit) {
+                break;
+            }
+            StoredReservation reservation = reservations.get(confirmationNumber);
+            if (reservation == null || !reservation.body().isArray() || reservation.body().isEmpty()) {
+                continue;
+            }
+            JsonNode first = reservation.body().get(0);
+            if (matchesArrival(first, arrivalFrom, arrivalTo) && matchesGuest(first, surname)) {
+                results.add(first);
+            }
+        }
+        response.put("totalResults", results.size());
+
+        log.info("Found {} reservations for hotel: {}", results.size(), hotelCode);
+        return response;
+    }
+
+    private boolean matchesArrival(JsonNode reservation, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        String arrival = reservation.path("roomStay").path("arrivalDate").asText("");
+        try {
+            LocalDate arrivalDate = LocalDate.parse(arrival);
+            return (from == null || !arrivalDate.isBefore(from)) && (to == null || !arrivalDate.isAfter(to));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private boolean matchesGuest(JsonNode reservation, String surname) {
+        if (surname == null || surname.isBlank()) {
+            return true;
+        }
+        for (JsonNode guest : reservation.path("reservationGuests")) {
+            for (JsonNode name : guest.path("profileInfo").path("profile").path("customer").path("personName")) {
+                if (surname.trim().equalsIgnoreCase(name.path("surname").asText(""))) {
+                    return true;
                 }
             }
         }
         return false;
     }
 
-    private String generateConfirmationNumber() {
-        return String.format("%07d", random.nextInt(10000000));
+    private void applyRequestDetails(JsonNode response, String hotelCode, BookingRequest request) {
+        if (!response.isArray() || response.isEmpty()) {
+            return;
+        }
+        ObjectNode reservation = (ObjectNode) response.get(0);
+        reservation.put("hotelId", hotelCode);
+
+        JsonNode customer = reservation.path("reservationGuests").path(0)
+                .path("profileInfo").path("profile").path("customer");
+        if (customer.isObject()) {
+            JsonNode personName = customer.path("personName").path(0);
+            if (personName.isObject()) {
+                if (request.surname() != null) {
+                    ((ObjectNode) personName).put("surname", request.surname());
+                }
+                if (request.givenName() != null) {
+                    ((ObjectNode) personName).put("givenName", request.givenName());
+                }
+            }
+            JsonNode email = customer.path("email").path(0);
+            if (email.isObject() && request.email() != null) {
+                ((ObjectNode) email).put("email", request.email());
+            }
+        }
+    }
+
+    /**
+     * Applies a partial change by copying only the nodes on the changed path
+     * (reservation, roomStay, roomRates[0]); every untouched subtree is shared with {@code current}.
+     */
+    private JsonNode applyChange(JsonNode current, ReservationChange change) {
+        if (!current.isArray() || current.isEmpty()) {
+            return current;
+        }
+        ArrayNode result = objectMapper.createArrayNode().addAll((ArrayNode) current);
+        ObjectNode reservation = objectMapper.createObjectNode().setAll((ObjectNode) current.get(0));
+        result.set(0, reservation);
+        reservation.put("lastModifyDateTime", Instant.now().toString());
+        if (change.isEmpty() || !reservation.path("roomStay").isObject()) {
+            return result;
+        }
+
+        ObjectNode roomStay = objectMapper.createObjectNode().setAll((ObjectNode) reservation.get("roomStay"));
+        reservation.set("roomStay", roomStay);
+        if (change.arrivalDate() != null) {
+            roomStay.put("arrivalDate", change.arrivalDate().toString());
+        }
+        if (change.departureDate() != null) {
+            roomStay.put("departureDate", change.departureDate().toString());
+        }
+        if (change.adults() != null || change.children() != null) {
+            roomStay.set("guestCounts", mergeGuestCounts(roomStay.path("guestCounts"), change));
+        }
+
+        JsonNode roomRates = roomStay.path("roomRates");
+        boolean datesChanged = change.arrivalDate() != null || change.departureDate() != null;
+        if (roomRates.isArray() && !roomRates.isEmpty() && (change.touchesRoomRate() || datesChanged)) {
+            ArrayNode rates = objectMapper.createArrayNode().addAll((ArrayNode) roomRates);
+            ObjectNode roomRate = objectMapper.createObjectNode().setAll((ObjectNode) rates.get(0));
+            rates.set(0, roomRate);
+            roomStay.set("roomRates", rates);
+
+            if (change.roomType() != null) {
+                roomRate.put("roomType", change.roomType());
+            }
+            if (change.ratePlanCode() != null) {
+                roomRate.put("ratePlanCode", change.ratePlanCode());
+            }
+            if (change.numberOfUnits() != null) {
+                roomRate.put("numberOfUnits", change.numberOfUnits());
+            }
+            if (change.adults() != null || change.children() != null) {
+                roomRate.set("guestCounts", mergeGuestCounts(roomRate.path("guestCounts"), change));
+            }
+            if (datesChanged) {
+                roomRate.put("start", roomStay.path("arrivalDate").asText());
+                roomRate.put("end", LocalDate.parse(roomStay.path("departureDate").asText()).minusDays(1).toString());
+            }
+        }
+        return result;
+    }
+
+    private ObjectNode mergeGuestCounts(JsonNode current, ReservationChange change) {
+        ObjectNode guestCounts = current.isObject()
+                ? objectMapper.createObjectNode().setAll((ObjectNode) current)
+                : objectMapper.createObjectNode();
+        if (change.adults() != null) {
+            guestCounts.put("adults", change.adults());
+        }
+        if (change.children() != null) {
+            guestCounts.put("children", change.children());
+        }
+        return guestCounts;
+    }
+
+    /**
+     * Reserves the rooms {@code to} needs beyond those {@code from} already holds. For the same room type, nights
+     * kept by both stays only take the change in units, so a change that adds no rooms cannot fail for lack of
+     * availability. {@code freeInventory(hotelCode, to, from)} undoes it.
+     */
+    private void takeInventory(String hotelCode, Stay from, Stay to) {
+        if (to == null) {
+            return;
+        }
+        if (from == null || !from.roomType().equals(to.roomType())) {
+            inventoryService.reserve(hotelCode, to.roomType(), to.nights(), to.units());
+            return;
+        }
+        Set<LocalDate> added = nightsOnlyIn(to, from);
+        inventoryService.reserve(hotelCode, to.roomType(), added, to.units());
+        int extraUnits = to.units() - from.units();
+        if (extraUnits > 0) {
+            try {
+                inventoryService.reserve(hotelCode, to.roomType(), sharedNights(from, to), extraUnits);
+            } catch (NoAvailabilityException e) {
+                inventoryService.release(hotelCode, to.roomType(), added, to.units());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Releases the rooms {@code from} holds beyond those {@code to} still needs; all of them when {@code to} is
+     * {@code null}.
+     */
+    private void freeInventory(String hotelCode, Stay from, Stay to) {
+        if (from == null) {
+            return;
+        }
+        if (to == null || !from.roomType().equals(to.roomType())) {
+            inventoryService.release(hotelCode, from.roomType(), from.nights(), from.units());
+            return;
+        }
+        inventoryService.release(hotelCode, from.roomType(), nightsOnlyIn(from, to), from.units());
+        int fewerUnits = from.units() - to.units();
+        if (fewerUnits > 0) {
+            inventoryService.release(hotelCode, from.roomType(), sharedNights(from, to), fewerUnits);
+        }
+    }
+
+    private static Set<LocalDate> nightsOnlyIn(Stay stay, Stay other) {
+        Set<LocalDate> nights = new LinkedHashSet<>(stay.nights());
+        nights.removeAll(other.nights());
+        return nights;
+    }
+
+    private static Set<LocalDate> sharedNights(Stay stay, Stay other) {
+        Set<LocalDate> nights = new LinkedHashSet<>(stay.nights());
+        nights.retainAll(other.nights());
+        return nights;
+    }
+
+    private record Stay(String roomType, LocalDate arrivalDate, LocalDate departureDate, int units) {
+
+        static Stay of(JsonNode reservation) {
+            JsonNode roomStay = reservation.path(0).path("roomStay");
+            JsonNode roomRate = roomStay.path("roomRates").path(0);
+            String roomType = roomRate.path("roomType").asText("");
+            try {
+                LocalDate arrival = LocalDate.parse(roomStay.path("arrivalDate").asText(""));
+                LocalDate departure = LocalDate.parse(roomStay.path("departureDate").asText(""));
+                if (roomType.isBlank() || !departure.isAfter(arrival)) {
+                    return null;
+                }
+                return new Stay(roomType, arrival, departure, roomRate.path("numberOfUnits").asInt(1));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        List<LocalDate> nights() {
+            return arrivalDate.datesUntil(departureDate).toList();
+        }
+    }
+
+    /**
+     * A confirmation number no stored, cancelled or in-flight reservation uses; the caller must drop it from
+     * {@link #claimedNumbers} once its write has finished.
+     */
+    private String claimConfirmationNumber() {
+        while (true) {
+            String confirmationNumber = String.format("%07d", random.nextInt(10000000));
+            if (!reservations.containsKey(confirmationNumber) && !tombstones.containsKey(confirmationNumber)
+                    && claimedNumbers.add(confirmationNumber)) {
+                return confirmationNumber;
+            }
+            log.debug("Confirmation number {} in use, drawing another", confirmationNumber);
+        }
     }
 
     private void updateConfirmationNumber(JsonNode response, String confirmationNumber) {
@@ -0,0 +1,86 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Change feed of reservation created/modified/cancelled events, kept in a {@link SequencedRing} so
+ * publishing never waits on consumers.
+ */
+@Component
+@Slf4j
+public class BookingEventStream {
+
+    public enum EventType { RESERVATION_CREATED, RESERVATION_MODIFIED, RESERVATION_CANCELLED }
+
+    public record BookingEvent(long sequence, EventType type, String hotelCode, String confirmationNumber,
+                               long version, String timestamp, JsonNode reservation) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final SequencedRing<BookingEvent> ring;
+
+    public BookingEventStream(ObjectMapper objectMapper,
+                              @Value("${booking.events.capacity:8192}") int capacity) {
+        this.objectMapper = objectMapper;
+        this.ring = new SequencedRing<>("booking-events", capacity);
+    }
+
+    public long publish(EventType type, String hotelCode, String confirmationNumber, long version, JsonNode reservation) {
+        BookingEvent event = ring.publish(sequence -> new BookingEvent(sequence, type, hotelCode, confirmationNumber,
+                version, Instant.now().toString(), reservation));
+        log.debug("Published {} #{} for {} at {}", type, event.sequence(), confirmationNumber, hotelCode);
+        return event.sequence();
+    }
+
+    public SequencedRing.Batch<BookingEvent> read(long fromSequence, int limit, String hotelCode) {
+        return ring.read(fromSequence, limit, forHotel(hotelCode));
+    }
+
+    public CompletableFuture<SequencedRing.Batch<BookingEvent>> poll(long fromSequence, int limit, String hotelCode,
+                                                                     Duration timeout) {
+        return ring.poll(fromSequence, limit, forHotel(hotelCode), timeout);
+    }
+
+    public ObjectNode toJson(BookingEvent event) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("sequence", event.sequence());
+        node.put("eventType", event.type().name());
+        node.put("hotelCode", event.hotelCode());
+        node.put("confirmationNumber", event.confirmationNumber());
+        node.put("version", event.version());
+        node.put("timestamp", event.timestamp());
+        node.set("reservation", event.reservation());
+        return node;
+    }
+
+    public ObjectNode toJson(SequencedRing.Batch<BookingEvent> batch) {
+        ObjectNode node = objectMapper.createObjectNode();
+        ArrayNode events = node.putArray("events");
+        batch.events().forEach(event -> events.add(toJson(event)));
+        node.put("nextSequence", batch.nextSequence());
+        node.put("oldestSequence", batch.oldestSequence());
+        node.put("truncated", batch.truncated());
+        return node;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ring.shutdown();
+    }
+
+    private static Predicate<BookingEvent> forHotel(String hotelCode) {
+        return event -> hotelCode == null || hotelCode.equals(event.hotelCode());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.distributed_api_demo_backend.service;
+
+/**
+ * The parts of a create-reservation request that booking acts on, extracted by {@link BookingRequestReader}.
+ * Guest name fields are {@code null} when the request does not supply them.
+ */
+public record BookingRequest(boolean creditCardGuarantee, String surname, String givenName, String email,
+                             ReservationChange stay) {
+}
@@ -0,0 +1,296 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.PayloadTooLargeException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Single-pass, token-level reader for create-reservation bodies. Only {@code reservations[0]}'s stay,
+ * first rate, guarantee and first guest name are read; every other subtree (further reservations in a
+ * group booking, card details, comments, ...) is skipped without being built into objects, so memory
+ * stays bounded by the parser buffer regardless of body size. Bodies over {@code book.request.max-bytes}
+ * are rejected as soon as that many bytes have been read; bodies nested too deeply, not well-formed JSON or
+ * with a field of the wrong type as soon as the parser reaches the offending token.
+ */
+@Component
+@Slf4j
+public class BookingRequestReader {
+
+    private final long maxBytes;
+    private final JsonFactory jsonFactory;
+
+    public BookingRequestReader(@Value("${book.request.max-bytes:262144}") long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.jsonFactory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxNestingDepth(32)
+                        .maxStringLength(16_384)
+                        .maxNumberLength(32)
+                        .build())
+                .build();
+    }
+
+    public BookingRequest read(InputStream body, long contentLength) {
+        if (contentLength > maxBytes) {
+            throw new PayloadTooLargeException("Request body of " + contentLength + " bytes exceeds " + maxBytes);
+        }
+        try (JsonParser parser = jsonFactory.createParser(new LimitedInputStream(body, maxBytes))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidRequestException("Reservation request must be a JSON object");
+            }
+            Fields fields = new Fields();
+            readObject(parser, (name, token) -> {
+                if ("reservations".equals(name)) {
+                    readFirstObject(parser, (field, value) -> readReservation(parser, fields, field));
+                } else {
+                    parser.skipChildren();
+                }
+            });
+            if (parser.nextToken() != null) {
+                throw new InvalidRequestException("Unexpected content after reservation request");
+            }
+            return fields.toRequest();
+        } catch (StreamConstraintsException e) {
+            throw new InvalidRequestException("Reservation request rejected: " + e.getOriginalMessage());
+        } catch (JsonProcessingException e) {
+            throw new InvalidRequestException("Malformed reservation request: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readReservation(JsonParser parser, Fields fields, String name) throws IOException {
+        switch (name) {
+            case "roomStay" -> readObject(parser, (field, value) -> readRoomStay(parser, fields, field));
+            case "reservationGuests" -> readFirstObject(parser, (guestField, guestValue) -> {
+                if (!"profileInfo".equals(guestField)) {
+                    parser.skipChildren();
+                    return;
+                }
+                readPath(parser, new String[]{"profile", "customer"}, 0, () ->
+                        readObject(parser, (customerField, customerValue) -> {
+                            if ("personName".equals(customerField)) {
+                                readFirstObject(parser, (nameField, nameValue) -> {
+                                    switch (nameField) {
+                                        case "surname" -> fields.surname = text(parser);
+                                        case "givenName" -> fields.givenName = text(parser);
+                                        case "email" -> fields.email = text(parser);
+                                        default -> parser.skipChildren();
+                                    }
+                                });
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }));
+            });
+            default -> parser.skipChildren();
+        }
+    }
+
+    private void readRoomStay(JsonParser parser, Fields fields, String name) throws IOException {
+        switch (name) {
+            case "arrivalDate" -> fields.arrivalDate = text(parser);
+            case "departureDate" -> fields.departureDate = text(parser);
+            case "guestCounts" -> {
+                fields.stayHasGuestCounts = true;
+                readObject(parser, (field, value) -> {
+                    switch (field) {
+                        case "adults" -> fields.stayAdults = integer(parser);
+                        case "children" -> fields.stayChildren = integer(parser);
+                        default -> parser.skipChildren();
+                    }
+                });
+            }
+            case "roomRates" -> readFirstObject(parser, (field, value) -> {
+                switch (field) {
+                    case "roomType" -> fields.roomType = text(parser);
+                    case "ratePlanCode" -> fields.ratePlanCode = text(parser);
+                    case "numberOfUnits" -> fields.numberOfUnits = integer(parser);
+                    case "guestCounts" -> readObject(parser, (countField, countValue) -> {
+                        switch (countField) {
+                            case "adults" -> fields.rateAdults = integer(parser);
+                            case "children" -> fields.rateChildren = integer(parser);
+                            default -> parser.skipChildren();
+                        }
+                    });
+                    default -> parser.skipChildren();
+                }
+            });
+            case "guarantee" -> readObject(parser, (field, value) -> {
+                // Only the presence of card details matters; their content is never read
+                if ("creditCard".equals(field)) {
+                    fields.creditCard = true;
+                }
+                parser.skipChildren();
+            });
+            default -> parser.skipChildren();
+        }
+    }
+
+    @FunctionalInterface
+    private interface FieldHandler {
+        void field(String name, JsonToken value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ValueHandler {
+        void value() throws IOException;
+    }
+
+    /**
+     * With the parser on a field's value: walks each field of the object, leaving the parser on its
+     * {@code END_OBJECT}. Handlers must consume the value they are given. Non-object values are skipped.
+     */
+    private void readObject(JsonParser parser, FieldHandler handler) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            handler.field(name, parser.nextToken());
+        }
+    }
+
+    /**
+     * With the parser on an array value: reads the first element as an object and skips the rest.
+     */
+    private void readFirstObject(JsonParser parser, FieldHandler handler) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        boolean first = true;
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input in array");
+            }
+            if (first && token == JsonToken.START_OBJECT) {
+                readObject(parser, handler);
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+    }
+
+    private void readPath(JsonParser parser, String[] path, int depth, ValueHandler leaf) throws IOException {
+        if (depth == path.length) {
+            leaf.value();
+            return;
+        }
+        readObject(parser, (name, value) -> {
+            if (path[depth].equals(name)) {
+                readPath(parser, path, depth + 1, leaf);
+            } else {
+                parser.skipChildren();
+            }
+        });
+    }
+
+    private static String text(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            parser.skipChildren();
+            return null;
+        }
+        String value = parser.getValueAsString("");
+        return value.isBlank() ? null : value;
+    }
+
+    private static Integer integer(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        String field = parser.currentName();
+        if (token == JsonToken.VALUE_STRING) {
+            return ReservationChange.parseInteger(field, parser.getText());
+        }
+        throw new InvalidRequestException("Invalid " + field + ": expected an integer");
+    }
+
+    /**
+     * Fails the read with {@link PayloadTooLargeException} once more than {@code limit} bytes have come
+     * through, whatever the declared content length.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                counted(read);
+            }
+            return read;
+        }
+
+        private void counted(int bytes) {
+            count += bytes;
+            if (count > limit) {
+                throw new PayloadTooLargeException("Request body exceeds " + limit + " bytes");
+            }
+        }
+    }
+
+    private static final class Fields {
+        boolean creditCard;
+        String surname;
+        String givenName;
+        String email;
+        String arrivalDate;
+        String departureDate;
+        String roomType;
+        String ratePlanCode;
+        Integer numberOfUnits;
+        boolean stayHasGuestCounts;
+        Integer stayAdults;
+        Integer stayChildren;
+        Integer rateAdults;
+        Integer rateChildren;
+
+        BookingRequest toRequest() {
+            ReservationChange stay = new ReservationChange(
+                    ReservationChange.parseDate("arrivalDate", arrivalDate),
+                    ReservationChange.parseDate("departureDate", departureDate),
+                    roomType, ratePlanCode,
+                    stayHasGuestCounts ? stayAdults : rateAdults,
+                    stayHasGuestCounts ? stayChildren : rateChildren,
+                    numberOfUnits);
+            return new BookingRequest(creditCard, surname, givenName, email, stay);
+        }
+    }
+}
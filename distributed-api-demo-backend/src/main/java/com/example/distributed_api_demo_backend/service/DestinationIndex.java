@@ -0,0 +1,196 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.PropertyInfo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable destination lookups over a fixed list of properties, answered as ordinals into that list in
+ * ascending order. City names are normalized (case and accents folded, punctuation dropped) and indexed
+ * from every word, so "paris", "Pari" and "york" all match; keys live in one sorted array and a prefix is a
+ * binary-searched range. Coordinates are bucketed into a grid of {@code cellDegrees} cells, so a radius
+ * query only measures the properties in the cells its bounding box touches. Columns are narrowed to divide
+ * 360° evenly, so the grid wraps at the antimeridian without a seam.
+ */
+final class DestinationIndex {
+
+    private static final double EARTH_RADIUS_METRES = 6_371_008.8;
+    private static final double METRES_PER_DEGREE = Math.PI * EARTH_RADIUS_METRES / 180;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final int size;
+    private final String[] cityKeys;
+    private final int[] cityOrdinals;
+    private final double cellDegrees;
+    private final int columns;
+    private final double columnDegrees;
+    private final Map<Integer, int[]> cells;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    private DestinationIndex(int size, String[] cityKeys, int[] cityOrdinals, double cellDegrees,
+                             Map<Integer, int[]> cells, double[] latitudes, double[] longitudes) {
+        this.size = size;
+        this.cityKeys = cityKeys;
+        this.cityOrdinals = cityOrdinals;
+        this.cellDegrees = cellDegrees;
+        this.columns = columns(cellDegrees);
+        this.columnDegrees = 360.0 / columns;
+        this.cells = cells;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+    }
+
+    static DestinationIndex build(List<PropertyInfo> properties, double cellDegrees) {
+        int size = properties.size();
+        record CityKey(String key, int ordinal) {
+        }
+        List<CityKey> keys = new ArrayList<>();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        Map<Integer, List<Integer>> grid = new HashMap<>();
+        int columns = columns(cellDegrees);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            PropertyInfo info = properties.get(ordinal);
+            String city = normalize(info.address() == null ? null : info.address().cityName());
+            // Every word start, so multi-word names are found by any of their words
+            int start = city.isEmpty() ? -1 : 0;
+            while (start >= 0) {
+                keys.add(new CityKey(city.substring(start), ordinal));
+                int space = city.indexOf(' ', start);
+                start = space < 0 ? -1 : space + 1;
+            }
+            if (info.latitude() == null || info.longitude() == null) {
+                latitudes[ordinal] = Double.NaN;
+                longitudes[ordinal] = Double.NaN;
+                continue;
+            }
+            latitudes[ordinal] = info.latitude();
+            longitudes[ordinal] = info.longitude();
+            grid.computeIfAbsent(cell(row(info.latitude(), cellDegrees), column(info.longitude(), columns),
+                    columns), cell -> new ArrayList<>()).add(ordinal);
+        }
+
+        keys.sort((a, b) -> a.key().equals(b.key())
+                ? Integer.compare(a.ordinal(), b.ordinal()) : a.key().compareTo(b.key()));
+        String[] cityKeys = new String[keys.size()];
+        int[] cityOrdinals = new int[keys.size()];
+        for (int i = 0; i < cityKeys.length; i++) {
+            cityKeys[i] = keys.get(i).key();
+            cityOrdinals[i] = keys.get(i).ordinal();
+        }
+        Map<Integer, int[]> cells = new HashMap<>(grid.size() * 2);
+        grid.forEach((cell, ordinals) -> cells.put(cell, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+        return new DestinationIndex(size, cityKeys, cityOrdinals, cellDegrees, cells, latitudes, longitudes);
+    }
+
+    /**
+     * Properties whose city name, or any word of it from that word on, starts with {@code query}.
+     */
+    int[] byCity(String query) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return new int[0];
+        }
+        BitSet matches = new BitSet(size);
+        for (int i = lowerBound(prefix); i < cityKeys.length && cityKeys[i].startsWith(prefix); i++) {
+            matches.set(cityOrdinals[i]);
+        }
+        return matches.stream().toArray();
+    }
+
+    /**
+     * Properties within {@code radiusMetres} of the point, by great-circle distance.
+     */
+    int[] within(double latitude, double longitude, double radiusMetres) {
+        double latitudeSpan = radiusMetres / METRES_PER_DEGREE;
+        double minLatitude = Math.max(-90, latitude - latitudeSpan);
+        double maxLatitude = Math.min(90, latitude + latitudeSpan);
+        double widest = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        double longitudeSpan = widest >= 90 ? 180 : latitudeSpan / Math.cos(Math.toRadians(widest));
+
+        int firstRow = row(minLatitude, cellDegrees);
+        int lastRow = row(maxLatitude, cellDegrees);
+        int columnCount = longitudeSpan >= 180 ? columns
+                : Math.min(columns, (int) Math.ceil(2 * longitudeSpan / columnDegrees) + 2);
+        int firstColumn = columnCount == columns ? 0 : column(longitude - longitudeSpan, columns);
+
+        BitSet matches = new BitSet(size);
+        if ((long) (lastRow - firstRow + 1) * columnCount > cells.size()) {
+            // Bounding box spans more cells than are occupied; visiting the occupied ones is cheaper
+            for (int[] ordinals : cells.values()) {
+                collect(ordinals, latitude, longitude, radiusMetres, matches);
+            }
+        } else {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int offset = 0; offset < columnCount; offset++) {
+                    int[] ordinals = cells.get(cell(row, (firstColumn + offset) % columns, columns));
+                    if (ordinals != null) {
+                        collect(ordinals, latitude, longitude, radiusMetres, matches);
+                    }
+                }
+            }
+        }
+        return matches.stream().toArray();
+    }
+
+    private void collect(int[] ordinals, double latitude, double longitude, double radiusMetres, BitSet matches) {
+        for (int ordinal : ordinals) {
+            if (distanceMetres(latitude, longitude, latitudes[ordinal], longitudes[ordinal]) <= radiusMetres) {
+                matches.set(ordinal);
+            }
+        }
+    }
+
+    static long distanceMetres(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLatitude * sinLatitude + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * sinLongitude * sinLongitude;
+        return Math.round(2 * EARTH_RADIUS_METRES * Math.asin(Math.min(1, Math.sqrt(a))));
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private int lowerBound(String prefix) {
+        int index = Arrays.binarySearch(cityKeys, prefix);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && cityKeys[index - 1].equals(prefix)) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int row(double latitude, double cellDegrees) {
+        return (int) Math.floor((Math.min(latitude, 89.999999) + 90) / cellDegrees);
+    }
+
+    private static int columns(double cellDegrees) {
+        return (int) Math.ceil(360 / cellDegrees);
+    }
+
+    private static int column(double longitude, int columns) {
+        return Math.floorMod((int) Math.floor((longitude + 180) * columns / 360), columns);
+    }
+
+    private static int cell(int row, int column, int columns) {
+        return row * columns + column;
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.NoAvailabilityException;
+import com.example.distributed_api_demo_backend.exception.TooManyHoldsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-night room inventory, keyed by hotel, room type and stay date.
+ * Multi-night reservations either take every night or none of them.
+ * Nights whose count changed are remembered until {@link #drainChanges()} picks them up.
+ * Holds take inventory like a reservation for {@code inventory.hold.ttl}; a booking converts its hold, and
+ * unconverted holds are released by one {@link TimingWheel} rather than a scheduled task each. A conversation
+ * keeps one hold, so a new draft releases the one it replaces, and a client may place at most
+ * {@code inventory.hold.rate.max-per-client} holds per {@code inventory.hold.rate.window}; further holds are
+ * refused, never taken from anyone else.
+ */
+@Service
+@Slf4j
+public class InventoryService {
+
+    public record Hold(String holdId, String conversationId, String hotelCode, String roomType, LocalDate arrivalDate,
+                       LocalDate departureDate, int units, Instant expiresAt) {
+
+        List<LocalDate> nights() {
+            return arrivalDate.datesUntil(departureDate).toList();
+        }
+    }
+
+    private final int roomsPerType;
+    private final Duration holdTtl;
+    private final int maxHoldsPerClient;
+    private final long rateWindowNanos;
+    private final LongSupplier nanoClock;
+    private final Map<InventoryKey, AtomicInteger> sold = new ConcurrentHashMap<>();
+    private final Set<InventoryKey> changed = ConcurrentHashMap.newKeySet();
+    private final Map<String, TimingWheel.Timeout<Hold>> holds = new ConcurrentHashMap<>();
+    // Live hold ID per conversation
+    private final Map<String, String> conversationHolds = new ConcurrentHashMap<>();
+    // Times of each client's holds within the rate window, oldest first; only changed inside that client's compute
+    private final Map<String, Deque<Long>> recentHolds = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep;
+    private final TimingWheel<Hold> holdExpiry;
+
+    private final Counter holdsPlaced;
+    private final Counter holdsConverted;
+    private final Counter holdsExpired;
+    private final Counter holdsReplaced;
+    private final Counter holdsRateLimited;
+
+    @Autowired
+    public InventoryService(@Value("${inventory.rooms-per-type:20}") int roomsPerType,
+                            @Value("${inventory.hold.ttl:15m}") Duration holdTtl,
+                            @Value("${inventory.hold.tick:1s}") Duration holdTick,
+                            @Value("${inventory.hold.rate.max-per-client:60}") int maxHoldsPerClient,
+                            @Value("${inventory.hold.rate.window:1m}") Duration rateWindow,
+                            MeterRegistry meterRegistry) {
+        this(roomsPerType, holdTtl, maxHoldsPerClient, rateWindow, System::nanoTime,
+                onExpiry -> new TimingWheel<>("inventory-holds", holdTick, onExpiry), meterRegistry);
+    }
+
+    /**
+     * Takes the clock for the rate window, and the hold expiry wheel from {@code holdExpiry} given the handler it
+     * must call, so tests can drive both.
+     */
+    InventoryService(int roomsPerType, Duration holdTtl, int maxHoldsPerClient, Duration rateWindow,
+                     LongSupplier nanoClock, Function<Consumer<Hold>, TimingWheel<Hold>> holdExpiry,
+                     MeterRegistry meterRegistry) {
+        if (maxHoldsPerClient < 1) {
+            throw new IllegalArgumentException("inventory.hold.rate.max-per-client must be at least 1");
+        }
+        this.roomsPerType = roomsPerType;
+        this.holdTtl = holdTtl;
+        this.maxHoldsPerClient = maxHoldsPerClient;
+        this.rateWindowNanos = rateWindow.toNanos();
+        this.nanoClock = nanoClock;
+        this.lastSweep = new AtomicLong(nanoClock.getAsLong());
+        this.holdExpiry = holdExpiry.apply(this::expire);
+        this.holdsPlaced = Counter.builder("inventory.holds").tag("result", "placed")
+                .description("Inventory holds placed for reservation drafts").register(meterRegistry);
+        this.holdsConverted = Counter.builder("inventory.holds").tag("result", "converted")
+                .description("Inventory holds converted into reservations").register(meterRegistry);
+        this.holdsExpired = Counter.builder("inventory.holds").tag("result", "expired")
+                .description("Inventory holds released unconverted at expiry").register(meterRegistry);
+        this.holdsReplaced = Counter.builder("inventory.holds").tag("result", "replaced")
+                .description("Inventory holds released for a newer draft in the same conversation").register(meterRegistry);
+        this.holdsRateLimited = Counter.builder("inventory.holds").tag("result", "rate_limited")
+                .description("Inventory holds refused because the client placed too many").register(meterRegistry);
+        meterRegistry.gauge("inventory.holds.active", holds, Map::size);
+    }
+
+    public void reserve(String hotelCode, String roomType, Collection<LocalDate> nights, int units) {
+        List<InventoryKey> taken = new ArrayList<>(nights.size());
+        for (LocalDate night : nights) {
+            InventoryKey key = new InventoryKey(hotelCode, roomType, night);
+            AtomicInteger counter = sold.computeIfAbsent(key, k -> new AtomicInteger());
+            if (counter.addAndGet(units) > roomsPerType) {
+                counter.addAndGet(-units);
+                taken.forEach(k -> sold.get(k).addAndGet(-units));
+                log.warn("No inventory for hotel: {}, roomType: {}, night: {}", hotelCode, roomType, night);
+                throw new NoAvailabilityException("No availability for " + roomType + " on " + night);
+            }
+            taken.add(key);
+        }
+        changed.addAll(taken);
+        log.debug("Reserved {} unit(s) of {} at {} for {} night(s)", units, roomType, hotelCode, nights.size());
+    }
+
+    public void release(String hotelCode, String roomType, Collection<LocalDate> nights, int units) {
+        for (LocalDate night : nights) {
+            InventoryKey key = new InventoryKey(hotelCode, roomType, night);
+            AtomicInteger counter = sold.get(key);
+            if (counter != null) {
+                counter.updateAndGet(current -> Math.max(0, current - units));
+                changed.add(key);
+            }
+        }
+        log.debug("Released {} unit(s) of {} at {} for {} night(s)", units, roomType, hotelCode, nights.size());
+    }
+
+    /**
+     * Takes {@code units} of the room type for every night of the stay until the hold is converted or expires.
+     * The conversation's previous hold, if any, is released once this one is placed.
+     *
+     * @param client who asked, for the rate limit
+     * @throws TooManyHoldsException when {@code client} already placed its share of holds in the rate window
+     */
+    public Hold hold(String conversationId, String client, String hotelCode, String roomType, LocalDate arrivalDate,
+                     LocalDate departureDate, int units) {
+        if (!departureDate.isAfter(arrivalDate) || units < 1) {
+            throw new InvalidRequestException("A hold needs at least one night and one unit");
+        }
+        admit(client);
+        Hold hold = new Hold(UUID.randomUUID().toString(), conversationId, hotelCode, roomType, arrivalDate,
+                departureDate, units, Instant.now().plus(holdTtl));
+        reserve(hotelCode, roomType, hold.nights(), units);
+
+        // Registered before it is scheduled, so an expiry that fires at once still finds and removes it
+        TimingWheel.Timeout<Hold> timeout = new TimingWheel.Timeout<>(hold);
+        holds.put(hold.holdId(), timeout);
+        String replaced = conversationHolds.put(conversationId, hold.holdId());
+        holdExpiry.schedule(timeout, holdTtl);
+        holdsPlaced.increment();
+        log.info("Held {} unit(s) of {} at {} from {} to {} until {} for conversation {} (hold {})",
+                 units, roomType, hotelCode, arrivalDate, departureDate, hold.expiresAt(), conversationId,
+                 hold.holdId());
+
+        Hold previous = take(replaced);
+        if (previous != null) {
+            release(previous.hotelCode(), previous.roomType(), previous.nights(), previous.units());
+            holdsReplaced.increment();
+            log.info("Released hold {} of conversation {}: replaced by hold {}",
+                     replaced, conversationId, hold.holdId());
+        }
+        return hold;
+    }
+
+    /**
+     * Counts a hold against the client's rate window, or refuses it when the window is full.
+     */
+    private void admit(String client) {
+        long now = nanoClock.getAsLong();
+        boolean[] admitted = new boolean[1];
+        recentHolds.compute(client, (key, times) -> {
+            Deque<Long> recent = times != null ? times : new ArrayDeque<>();
+            while (!recent.isEmpty() && now - recent.peekFirst() >= rateWindowNanos) {
+                recent.removeFirst();
+            }
+            admitted[0] = recent.size() < maxHoldsPerClient;
+            if (admitted[0]) {
+                recent.addLast(now);
+            }
+            return recent.isEmpty() ? null : recent;
+        });
+
+        // Once per window, forget clients whose holds have all left it
+        long swept = lastSweep.get();
+        if (now - swept >= rateWindowNanos && lastSweep.compareAndSet(swept, now)) {
+            for (String key : recentHolds.keySet()) {
+                recentHolds.computeIfPresent(key, (k, times) -> now - times.peekLast() >= rateWindowNanos ? null : times);
+            }
+        }
+
+        if (!admitted[0]) {
+            holdsRateLimited.increment();
+            log.warn("Refusing hold for {}: {} holds placed within {} s", client, maxHoldsPerClient,
+                     rateWindowNanos / 1_000_000_000);
+            throw new TooManyHoldsException("Too many holds placed; try again later");
+        }
+    }
+
+    /**
+     * Hands a live hold's inventory over to the booking for this stay and returns true; the caller then must
+     * not reserve it again. A hold for a different stay is released instead, and an unknown or expired one is
+     * ignored; both return false, leaving the caller to reserve as usual.
+     */
+    public boolean convertHold(String holdId, String hotelCode, String roomType, Collection<LocalDate> nights,
+                               int units) {
+        Hold hold = take(holdId);
+        if (hold == null) {
+            log.info("Hold {} is unknown or has expired", holdId);
+            return false;
+        }
+        if (!hold.hotelCode().equals(hotelCode) || !hold.roomType().equals(roomType) || hold.units() != units
+                || !hold.nights().equals(List.copyOf(nights))) {
+            release(hold.hotelCode(), hold.roomType(), hold.nights(), hold.units());
+            log.info("Released hold {}: booked stay differs from the held one", holdId);
+            return false;
+        }
+        holdsConverted.increment();
+        log.info("Converted hold {} for {} unit(s) of {} at {}", holdId, units, roomType, hotelCode);
+        return true;
+    }
+
+    /**
+     * Gives a converted hold back to its conversation for the rest of its time when the booking it went into
+     * failed. Past its expiry, or once the conversation has drafted again, its inventory is released instead.
+     */
+    public void reinstateHold(Hold hold) {
+        Duration left = Duration.between(Instant.now(), hold.expiresAt());
+        TimingWheel.Timeout<Hold> timeout = new TimingWheel.Timeout<>(hold);
+        holds.put(hold.holdId(), timeout);
+        if (!left.isPositive() || conversationHolds.putIfAbsent(hold.conversationId(), hold.holdId()) != null) {
+            holds.remove(hold.holdId());
+            release(hold.hotelCode(), hold.roomType(), hold.nights(), hold.units());
+            log.info("Released hold {}: its booking failed and the hold is expired or replaced", hold.holdId());
+            return;
+        }
+        holdExpiry.schedule(timeout, left);
+        log.info("Reinstated hold {} until {}: its booking failed", hold.holdId(), hold.expiresAt());
+    }
+
+    public Hold getHold(String holdId) {
+        TimingWheel.Timeout<Hold> timeout = holdId == null ? null : holds.get(holdId);
+        return timeout == null ? null : timeout.value();
+    }
+
+    private Hold take(String holdId) {
+        TimingWheel.Timeout<Hold> timeout = holdId == null ? null : holds.get(holdId);
+        if (timeout == null) {
+            return null;
+        }
+        // Cancelling is what decides a race with expiry: only one side gets the hold's inventory
+        boolean live = holdExpiry.cancel(timeout);
+        if (live) {
+            forget(timeout.value());
+        }
+        return live ? timeout.value() : null;
+    }
+
+    private void forget(Hold hold) {
+        holds.remove(hold.holdId());
+        conversationHolds.remove(hold.conversationId(), hold.holdId());
+    }
+
+    private void expire(Hold hold) {
+        forget(hold);
+        release(hold.hotelCode(), hold.roomType(), hold.nights(), hold.units());
+        holdsExpired.increment();
+        log.info("Hold {} expired; released {} unit(s) of {} at {}",
+                 hold.holdId(), hold.units(), hold.roomType(), hold.hotelCode());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        holdExpiry.shutdown();
+    }
+
+    public int available(String hotelCode, String roomType, LocalDate night) {
+        AtomicInteger counter = sold.get(new InventoryKey(hotelCode, roomType, night));
+        return roomsPerType - (counter == null ? 0 : counter.get());
+    }
+
+    /**
+     * Returns and forgets the nights whose inventory changed since the previous call.
+     */
+    public List<InventoryKey> drainChanges() {
+        List<InventoryKey> drained = new ArrayList<>();
+        for (Iterator<InventoryKey> it = changed.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    public record InventoryKey(String hotelCode, String roomType, LocalDate night) {
+    }
+}
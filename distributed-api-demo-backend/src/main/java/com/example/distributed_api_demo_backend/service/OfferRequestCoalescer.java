@@ -0,0 +1,192 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.diagnostics.JsonSerializationEvent;
+import com.example.distributed_api_demo_backend.diagnostics.RequestMdcFilter;
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-flight in front of {@link ShopService#getPropertyOffers}: concurrent requests with the same
+ * normalized query share one pricing run and its serialized JSON. Nothing is cached; a flight leaves the
+ * map as soon as it completes, so the next request prices again. Every caller waits on its own copy of the
+ * shared result, so one caller timing out or cancelling never fails the others, and a flight whose callers
+ * have all gone before it finishes is cancelled.
+ */
+@Component
+@Slf4j
+public class OfferRequestCoalescer {
+
+    /**
+     * The parts of an offers request that change the response; occupancy and units do not.
+     */
+    public record OfferQuery(String hotelCode, LocalDate arrivalDate, LocalDate departureDate,
+                             Set<String> ratePlanCodes, boolean ratePlanCodeMatchOnly, String currencyCode) {
+
+        public static OfferQuery of(String hotelCode, LocalDate arrivalDate, LocalDate departureDate,
+                                    Set<String> ratePlanCodes, boolean ratePlanCodeMatchOnly, String currencyCode) {
+            Set<String> codes = ratePlanCodes == null ? Set.of() : Set.copyOf(ratePlanCodes);
+            String currency = currencyCode == null || currencyCode.isBlank()
+                    ? null : currencyCode.trim().toUpperCase(Locale.ROOT);
+            return new OfferQuery(hotelCode, arrivalDate, departureDate, codes,
+                    !codes.isEmpty() && ratePlanCodeMatchOnly, currency);
+        }
+    }
+
+    public record OfferResult(PropertyOffers offers, byte[] json) {
+    }
+
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private static final class Flight {
+        final CompletableFuture<OfferResult> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+        volatile Future<?> task;
+    }
+
+    private final ShopService shopService;
+    private final ObjectMapper objectMapper;
+    private final Duration waitTimeout;
+    private final Map<OfferQuery, Flight> flights = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            Thread.ofPlatform().name("offer-pricing-", 0).daemon().factory());
+
+    private final Counter computed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+    private final Counter abandoned;
+
+    public OfferRequestCoalescer(ShopService shopService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${shop.offers.wait-timeout-ms:5000}") long waitTimeoutMs) {
+        this.shopService = shopService;
+        this.objectMapper = objectMapper;
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMs);
+        this.computed = Counter.builder("shop.offers.requests").tag("result", "computed")
+                .description("Offer requests that started a pricing run").register(meterRegistry);
+        this.coalesced = Counter.builder("shop.offers.requests").tag("result", "coalesced")
+                .description("Offer requests served by an identical in-flight run").register(meterRegistry);
+        this.timedOut = Counter.builder("shop.offers.timeouts")
+                .description("Callers that stopped waiting for a pricing run").register(meterRegistry);
+        this.abandoned = Counter.builder("shop.offers.abandoned")
+                .description("Pricing runs cancelled because every caller had gone").register(meterRegistry);
+        meterRegistry.gauge("shop.offers.inflight", flights, Map::size);
+    }
+
+    /**
+     * This caller's view of the shared run. Cancel it when the caller goes away, so a run nobody waits for stops.
+     */
+    public CompletableFuture<OfferResult> offers(OfferQuery query) {
+        while (true) {
+            Flight flight = flights.get(query);
+            if (flight == null) {
+                Flight started = new Flight();
+                started.waiters.set(1);
+                if (flights.putIfAbsent(query, started) == null) {
+                    computed.increment();
+                    String requestId = MDC.get(RequestMdcFilter.REQUEST_ID);
+                    started.task = executor.submit(() -> run(query, started, requestId));
+                    return waitFor(query, started);
+                }
+                continue;
+            }
+            if (join(flight)) {
+                coalesced.increment();
+                log.debug("Coalesced offers request for {} onto in-flight run", query);
+                return waitFor(query, flight);
+            }
+            // Joining lost against the last caller leaving; the flight is being cancelled
+            flights.remove(query, flight);
+        }
+    }
+
+    private static boolean join(Flight flight) {
+        for (int waiters = flight.waiters.get(); waiters != CLOSED; waiters = flight.waiters.get()) {
+            if (flight.waiters.compareAndSet(waiters, waiters + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<OfferResult> waitFor(OfferQuery query, Flight flight) {
+        CompletableFuture<OfferResult> mine = flight.result.copy()
+                .orTimeout(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        mine.whenComplete((result, error) -> {
+            if (error instanceof TimeoutException || error instanceof CancellationException) {
+                if (error instanceof TimeoutException) {
+                    timedOut.increment();
+                    log.debug("Gave up waiting {} ms for offers {}", waitTimeout.toMillis(), query);
+                }
+                leave(query, flight);
+            }
+        });
+        return mine;
+    }
+
+    private void leave(OfferQuery query, Flight flight) {
+        if (flight.waiters.decrementAndGet() == 0 && flight.waiters.compareAndSet(0, CLOSED)
+                && !flight.result.isDone()) {
+            flights.remove(query, flight);
+            flight.result.cancel(false);
+            Future<?> task = flight.task;
+            if (task != null) {
+                task.cancel(true);
+            }
+            abandoned.increment();
+            log.info("Cancelled offers run for {}: no callers left", query);
+        }
+    }
+
+    /**
+     * Prices and serializes on a pool thread, under the leading caller's request ID for flight recorder events.
+     */
+    private void run(OfferQuery query, Flight flight, String requestId) {
+        if (requestId != null) {
+            MDC.put(RequestMdcFilter.REQUEST_ID, requestId);
+        }
+        try {
+            PropertyOffers offers = shopService.getPropertyOffers(query.hotelCode(), query.arrivalDate(),
+                    query.departureDate(), query.ratePlanCodes(), query.ratePlanCodeMatchOnly(), query.currencyCode());
+            JsonSerializationEvent serialization = new JsonSerializationEvent();
+            serialization.begin();
+            byte[] json = objectMapper.writeValueAsBytes(offers);
+            serialization.type = PropertyOffers.class.getSimpleName();
+            serialization.bytes = json.length;
+            serialization.commitFor(query.hotelCode());
+            flights.remove(query, flight);
+            flight.result.complete(new OfferResult(offers, json));
+        } catch (Throwable e) {
+            flights.remove(query, flight);
+            flight.result.completeExceptionally(e);
+        } finally {
+            MDC.remove(RequestMdcFilter.REQUEST_ID);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
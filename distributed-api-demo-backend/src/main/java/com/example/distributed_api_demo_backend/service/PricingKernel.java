@@ -0,0 +1,17 @@
+package com.example.distributed_api_demo_backend.service;
+
+/**
+ * Bulk fixed-point arithmetic behind {@link RatePricingEngine}. Amounts are {@code long} minor currency
+ * units and every operation is exact: results must not depend on which implementation runs.
+ */
+interface PricingKernel {
+
+    /**
+     * {@code target[i] = max(0, round(source[i] * multiplier / divisor) - subtract)} over {@code length}
+     * elements, rounding half up. Source and target ranges may be the same range but must not partially overlap.
+     */
+    void scaleRound(long[] source, int sourceOffset, long[] target, int targetOffset, int length,
+                    long multiplier, long divisor, long subtract);
+
+    String description();
+}
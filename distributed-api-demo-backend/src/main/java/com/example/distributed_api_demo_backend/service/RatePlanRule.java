@@ -0,0 +1,50 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.Guarantee;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A rate plan derived from the base plan at query time. Offsets are applied per night:
+ * first {@code percentOffBasisPoints} (1500 = 15%), then {@code amountOffMinor} in minor units of
+ * {@code amountOffCurrency}, converted to the property's currency. Stay restrictions left at 0 are not enforced.
+ */
+public record RatePlanRule(String ratePlanCode, String ratePlanName, String ratePlanType,
+                           int percentOffBasisPoints, long amountOffMinor, String amountOffCurrency,
+                           int minLengthOfStay, int maxLengthOfStay,
+                           int minAdvanceDays, int maxAdvanceDays,
+                           int cancelDaysPrior, boolean identificationRequired,
+                           Guarantee guarantee, String penaltyDescription) {
+
+    public static RatePlanRule from(JsonNode node) {
+        return new RatePlanRule(
+                node.path("ratePlanCode").asText(),
+                node.path("ratePlanName").asText(),
+                node.path("ratePlanType").asText(),
+                node.path("percentOffBasisPoints").asInt(0),
+                node.path("amountOffMinor").asLong(0),
+                node.path("amountOffCurrency").asText(null),
+                node.path("minLengthOfStay").asInt(0),
+                node.path("maxLengthOfStay").asInt(0),
+                node.path("minAdvanceDays").asInt(0),
+                node.path("maxAdvanceDays").asInt(0),
+                node.path("cancelDaysPrior").asInt(0),
+                node.path("identificationRequired").asBoolean(false),
+                guarantee(node.path("guarantee")),
+                node.path("penaltyDescription").asText(null));
+    }
+
+    private static Guarantee guarantee(JsonNode node) {
+        if (!node.isObject()) {
+            return null;
+        }
+        return new Guarantee(node.path("guaranteeType").asText(null), node.path("guaranteeCode").asText(null),
+                node.path("description").asText(null));
+    }
+
+    public boolean appliesTo(int lengthOfStay, long advanceDays) {
+        return (minLengthOfStay == 0 || lengthOfStay >= minLengthOfStay)
+                && (maxLengthOfStay == 0 || lengthOfStay <= maxLengthOfStay)
+                && (minAdvanceDays == 0 || advanceDays >= minAdvanceDays)
+                && (maxAdvanceDays == 0 || advanceDays <= maxAdvanceDays);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NativeDetector;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives rate plans from base nightly rates using the rules in {@code /data/rate-plan-rules.json}, then
+ * applies the property's per-night tax and fees and converts to the selling currency. All amounts are
+ * {@code long} minor currency units so pricing is exact; a whole stay is priced in bulk through a
+ * {@link PricingKernel}, vectorized when the JDK Vector API module is present.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RatePricingEngine {
+
+    private static final long BASIS_POINTS = 10_000L;
+    private static final int EXCHANGE_RATE_SCALE = 6;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${pricing.vector.enabled:true}")
+    private boolean vectorEnabled;
+
+    private String baseRatePlanCode;
+    private int taxBasisPoints;
+    private List<RatePlanRule> rules;
+    private Map<String, Long> exchangeRates;
+    private Map<String, PropertyPricing> properties;
+    private PricingKernel kernel;
+
+    /**
+     * Selling currency, tax and per-night fee of one property; the fee is in the property currency's minor units.
+     */
+    public record PropertyPricing(String currencyCode, int taxBasisPoints, long nightlyFeeMinor) {
+    }
+
+    /**
+     * One stay priced for every plan and room type, in minor units of {@code currencyCode}. {@code nightly}
+     * is laid out plan by plan, then room by room, one entry per night.
+     */
+    public record PricedStay(String currencyCode, int fractionDigits, int rooms, int nights,
+                             long[] nightly, long[] beforeTax, long[] afterTax) {
+
+        public long nightly(int plan, int room, int night) {
+            return nightly[(plan * rooms + room) * nights + night];
+        }
+
+        public long beforeTax(int plan, int room) {
+            return beforeTax[plan * rooms + room];
+        }
+
+        public long afterTax(int plan, int room) {
+            return afterTax[plan * rooms + room];
+        }
+
+        public BigDecimal amount(long minor) {
+            return BigDecimal.valueOf(minor, fractionDigits);
+        }
+    }
+
+    private record Conversion(long multiplier, long divisor) {
+
+        boolean isIdentity() {
+            return multiplier == divisor;
+        }
+    }
+
+    @PostConstruct
+    public void loadRules() {
+        log.info("Loading rate plan rules...");
+        try {
+            JsonNode config = objectMapper.readTree(getClass().getResourceAsStream("/data/rate-plan-rules.json"));
+            baseRatePlanCode = config.path("baseRatePlanCode").asText("FLEX");
+            taxBasisPoints = config.path("taxBasisPoints").asInt(0);
+            Map<String, Long> rates = new HashMap<>();
+            config.path("exchangeRates").properties().forEach(rate -> rates.put(rate.getKey(),
+                    rate.getValue().decimalValue().setScale(EXCHANGE_RATE_SCALE, RoundingMode.HALF_UP)
+                            .unscaledValue().longValueExact()));
+            exchangeRates = Map.copyOf(rates);
+
+            List<RatePlanRule> loaded = new ArrayList<>();
+            for (JsonNode node : config.path("derivedRatePlans")) {
+                RatePlanRule rule = RatePlanRule.from(node);
+                if (rule.amountOffMinor() != 0
+                        && (rule.amountOffCurrency() == null || !supportsCurrency(rule.amountOffCurrency()))) {
+                    throw new IllegalStateException("Rate plan " + rule.ratePlanCode()
+                            + " needs a supported amountOffCurrency, got " + rule.amountOffCurrency());
+                }
+                loaded.add(rule);
+            }
+            rules = List.copyOf(loaded);
+
+            Map<String, PropertyPricing> loadedProperties = new HashMap<>();
+            config.path("properties").properties().forEach(property -> loadedProperties.put(property.getKey(),
+                    new PropertyPricing(property.getValue().path("currencyCode").asText(),
+                            property.getValue().path("taxBasisPoints").asInt(taxBasisPoints),
+                            property.getValue().path("nightlyFeeMinor").asLong(0))));
+            properties = Map.copyOf(loadedProperties);
+
+            kernel = createKernel();
+            log.info("Loaded {} derived rate plans on top of {}, {} currencies, {} properties; pricing kernel: {}",
+                     rules.size(), baseRatePlanCode, exchangeRates.size(), properties.size(), kernel.description());
+        } catch (IOException e) {
+            log.error("Failed to load rate plan rules", e);
+            throw new RuntimeException("Failed to load rate plan rules", e);
+        }
+    }
+
+    private PricingKernel createKernel() {
+        // Native images are built without the incubator module (see the native profile in pom.xml)
+        if (vectorEnabled && !NativeDetector.inNativeImage()
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so this class still links when the incubator module is absent
+                return (PricingKernel) Class.forName(getClass().getPackageName() + ".VectorPricingKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Vector pricing kernel unavailable, using scalar pricing", e);
+            }
+        }
+        return new ScalarPricingKernel();
+    }
+
+    public String baseRatePlanCode() {
+        return baseRatePlanCode;
+    }
+
+    public List<RatePlanRule> rules() {
+        return rules;
+    }
+
+    /**
+     * The configured pricing for a hotel, or the default tax without fees in {@code defaultCurrency}.
+     */
+    public PropertyPricing propertyPricing(String hotelCode, String defaultCurrency) {
+        PropertyPricing pricing = properties.get(hotelCode);
+        return pricing != null ? pricing : new PropertyPricing(defaultCurrency, taxBasisPoints, 0);
+    }
+
+    public boolean supportsCurrency(String currencyCode) {
+        return exchangeRates.containsKey(currencyCode);
+    }
+
+    /**
+     * Prices every plan for every room type of one stay. {@code base} holds the base plan's nightly amounts
+     * in {@code sourceCurrency}, room by room ({@code rooms * nights}). Plan 0 is the base plan when
+     * {@code includeBase}, followed by {@code planRules} in order. Discounts apply in the source currency, with
+     * fixed amounts off converted into it first; each night is then converted and taxed on its own, so the
+     * nightly amounts always add up to the totals.
+     */
+    public PricedStay priceStay(long[] base, int rooms, int nights, String sourceCurrency, boolean includeBase,
+                                List<RatePlanRule> planRules, PropertyPricing property, String sellCurrency) {
+        int block = rooms * nights;
+        int plans = planRules.size() + (includeBase ? 1 : 0);
+        long[] nightly = new long[plans * block];
+        int offset = 0;
+        if (includeBase) {
+            System.arraycopy(base, 0, nightly, 0, block);
+            offset = block;
+        }
+        for (RatePlanRule rule : planRules) {
+            long amountOff = rule.amountOffMinor() == 0 ? 0
+                    : convert(rule.amountOffMinor(), rule.amountOffCurrency(), sourceCurrency);
+            kernel.scaleRound(base, 0, nightly, offset, block,
+                    BASIS_POINTS - rule.percentOffBasisPoints(), BASIS_POINTS, amountOff);
+            offset += block;
+        }
+
+        Conversion toSell = conversion(sourceCurrency, sellCurrency);
+        if (!toSell.isIdentity()) {
+            kernel.scaleRound(nightly, 0, nightly, 0, nightly.length, toSell.multiplier(), toSell.divisor(), 0);
+        }
+        long[] tax = new long[nightly.length];
+        kernel.scaleRound(nightly, 0, tax, 0, nightly.length, property.taxBasisPoints(), BASIS_POINTS, 0);
+        long fee = convert(property.nightlyFeeMinor(), property.currencyCode(), sellCurrency);
+
+        long[] beforeTax = new long[plans * rooms];
+        long[] afterTax = new long[plans * rooms];
+        for (int row = 0; row < beforeTax.length; row++) {
+            long amount = 0;
+            long taxes = 0;
+            for (int night = row * nights, end = night + nights; night < end; night++) {
+                amount += nightly[night];
+                taxes += tax[night];
+            }
+            beforeTax[row] = amount;
+            afterTax[row] = amount + taxes + fee * nights;
+        }
+        return new PricedStay(sellCurrency, fractionDigits(sellCurrency), rooms, nights, nightly, beforeTax, afterTax);
+    }
+
+    public long convert(long amountMinor, String fromCurrency, String toCurrency) {
+        Conversion conversion = conversion(fromCurrency, toCurrency);
+        return conversion.isIdentity()
+                ? amountMinor
+                : ScalarPricingKernel.scaleRound(amountMinor, conversion.multiplier(), conversion.divisor());
+    }
+
+    /**
+     * Exchange rates are units of the currency per unit of the common base, scaled by 10^6; converting
+     * minor units from A to B multiplies by rate(B)·10^digits(B) and divides by rate(A)·10^digits(A).
+     */
+    private Conversion conversion(String fromCurrency, String toCurrency) {
+        if (fromCurrency.equals(toCurrency)) {
+            return new Conversion(1, 1);
+        }
+        long multiplier = exchangeRate(toCurrency) * powerOfTen(fractionDigits(toCurrency));
+        long divisor = exchangeRate(fromCurrency) * powerOfTen(fractionDigits(fromCurrency));
+        long gcd = BigInteger.valueOf(multiplier).gcd(BigInteger.valueOf(divisor)).longValueExact();
+        return new Conversion(multiplier / gcd, divisor / gcd);
+    }
+
+    private long exchangeRate(String currencyCode) {
+        Long rate = exchangeRates.get(currencyCode);
+        if (rate == null) {
+            throw new IllegalArgumentException("Unsupported currency: " + currencyCode);
+        }
+        return rate;
+    }
+
+    private static int fractionDigits(String currencyCode) {
+        return Currency.getInstance(currencyCode).getDefaultFractionDigits();
+    }
+
+    private static long powerOfTen(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
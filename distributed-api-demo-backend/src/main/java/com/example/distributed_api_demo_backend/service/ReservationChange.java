@@ -0,0 +1,85 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Partial update to a reservation's stay, read from {@code reservations[0].roomStay}.
+ * A {@code null} component means "leave unchanged".
+ */
+public record ReservationChange(LocalDate arrivalDate, LocalDate departureDate, String roomType,
+                                String ratePlanCode, Integer adults, Integer children,
+                                Integer numberOfUnits) {
+
+    public static ReservationChange from(JsonNode request) {
+        JsonNode roomStay = request.path("reservations").path(0).path("roomStay");
+        JsonNode roomRate = roomStay.path("roomRates").path(0);
+        JsonNode guestCounts = roomStay.has("guestCounts") ? roomStay.path("guestCounts") : roomRate.path("guestCounts");
+        return new ReservationChange(
+                date(roomStay, "arrivalDate"),
+                date(roomStay, "departureDate"),
+                text(roomRate, "roomType"),
+                text(roomRate, "ratePlanCode"),
+                integer(guestCounts, "adults"),
+                integer(guestCounts, "children"),
+                integer(roomRate, "numberOfUnits"));
+    }
+
+    public boolean isEmpty() {
+        return arrivalDate == null && departureDate == null && roomType == null && ratePlanCode == null
+                && adults == null && children == null && numberOfUnits == null;
+    }
+
+    public boolean touchesRoomRate() {
+        return roomType != null || ratePlanCode != null || numberOfUnits != null
+                || adults != null || children != null;
+    }
+
+    private static LocalDate date(JsonNode node, String field) {
+        return parseDate(field, node.path(field).asText(""));
+    }
+
+    static LocalDate parseDate(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        String value = node.path(field).asText("");
+        return value.isBlank() ? null : value;
+    }
+
+    private static Integer integer(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        if (value.isNull() || value.isMissingNode()) {
+            return null;
+        }
+        if (value.isIntegralNumber() && value.canConvertToInt()) {
+            return value.intValue();
+        }
+        if (value.isTextual()) {
+            return parseInteger(field, value.textValue());
+        }
+        throw new InvalidRequestException("Invalid " + field + ": expected an integer");
+    }
+
+    /**
+     * Integer fields may also be sent as numeric strings.
+     */
+    static Integer parseInteger(String field, String value) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid " + field + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over stored reservations: hotel + arrival date, hotel + guest surname
+ * and hotel + guest email. Lookups never scan the full reservation store.
+ */
+@Component
+@Slf4j
+public class ReservationIndex {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<LocalDate, Set<String>>> byHotelArrival = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> bySurname = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byEmail = new ConcurrentHashMap<>();
+
+    public void index(String confirmationNumber, String hotelCode, JsonNode reservation) {
+        Entry entry = Entry.of(hotelCode, reservation);
+        entries.compute(confirmationNumber, (key, previous) -> {
+            if (previous != null) {
+                unlink(key, previous);
+            }
+            link(key, entry);
+            return entry;
+        });
+        log.debug("Indexed reservation {} for hotel {}", confirmationNumber, hotelCode);
+    }
+
+    public void remove(String confirmationNumber) {
+        entries.computeIfPresent(confirmationNumber, (key, previous) -> {
+            unlink(key, previous);
+            return null;
+        });
+        log.debug("Removed reservation {} from indexes", confirmationNumber);
+    }
+
+    public String hotelOf(String confirmationNumber) {
+        Entry entry = entries.get(confirmationNumber);
+        return entry == null ? null : entry.hotelCode();
+    }
+
+    public List<String> findByArrival(String hotelCode, LocalDate from, LocalDate to, int limit) {
+        NavigableMap<LocalDate, Set<String>> arrivals = byHotelArrival.get(hotelCode);
+        if (arrivals == null) {
+            return List.of();
+        }
+        NavigableMap<LocalDate, Set<String>> range;
+        if (from != null && to != null) {
+            range = arrivals.subMap(from, true, to, true);
+        } else if (from != null) {
+            range = arrivals.tailMap(from, true);
+        } else if (to != null) {
+            range = arrivals.headMap(to, true);
+        } else {
+            range = arrivals;
+        }
+        List<String> result = new ArrayList<>();
+        for (Set<String> confirmationNumbers : range.values()) {
+            for (String confirmationNumber : confirmationNumbers) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(confirmationNumber);
+            }
+        }
+        return result;
+    }
+
+    public Set<String> findBySurname(String hotelCode, String surname) {
+        return bySurname.getOrDefault(key(hotelCode, surname), Set.of());
+    }
+
+    public Set<String> findByEmail(String hotelCode, String email) {
+        return byEmail.getOrDefault(key(hotelCode, email), Set.of());
+    }
+
+    private void link(String confirmationNumber, Entry entry) {
+        if (entry.arrivalDate() != null) {
+            byHotelArrival.computeIfAbsent(entry.hotelCode(), h -> new ConcurrentSkipListMap<>())
+                    .computeIfAbsent(entry.arrivalDate(), d -> ConcurrentHashMap.newKeySet())
+                    .add(confirmationNumber);
+        }
+        for (String surname : entry.surnames()) {
+            bySurname.computeIfAbsent(key(entry.hotelCode(), surname), k -> ConcurrentHashMap.newKeySet())
+                    .add(confirmationNumber);
+        }
+        for (String email : entry.emails()) {
+            byEmail.computeIfAbsent(key(entry.hotelCode(), email), k -> ConcurrentHashMap.newKeySet())
+                    .add(confirmationNumber);
+        }
+    }
+
+    private void unlink(String confirmationNumber, Entry entry) {
+        if (entry.arrivalDate() != null) {
+            NavigableMap<LocalDate, Set<String>> arrivals = byHotelArrival.get(entry.hotelCode());
+            if (arrivals != null) {
+                arrivals.computeIfPresent(entry.arrivalDate(), (d, set) -> {
+                    set.remove(confirmationNumber);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+        for (String surname : entry.surnames()) {
+            bySurname.computeIfPresent(key(entry.hotelCode(), surname), (k, set) -> {
+                set.remove(confirmationNumber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        for (String email : entry.emails()) {
+            byEmail.computeIfPresent(key(entry.hotelCode(), email), (k, set) -> {
+                set.remove(confirmationNumber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private static String key(String hotelCode, String value) {
+        return hotelCode + '|' + value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(String hotelCode, LocalDate arrivalDate, Collection<String> surnames, Collection<String> emails) {
+
+        static Entry of(String hotelCode, JsonNode reservation) {
+            JsonNode first = reservation.isArray() ? reservation.path(0) : reservation;
+            LocalDate arrivalDate = null;
+            String arrival = first.path("roomStay").path("arrivalDate").asText("");
+            if (!arrival.isBlank()) {
+                try {
+                    arrivalDate = LocalDate.parse(arrival);
+                } catch (DateTimeParseException e) {
+                    log.warn("Unparseable arrival date '{}' — reservation not indexed by date", arrival);
+                }
+            }
+            Set<String> surnames = new LinkedHashSet<>();
+            Set<String> emails = new LinkedHashSet<>();
+            for (JsonNode guest : first.path("reservationGuests")) {
+                JsonNode customer = guest.path("profileInfo").path("profile").path("customer");
+                for (JsonNode name : customer.path("personName")) {
+                    addIfPresent(surnames, name.path("surname").asText(""));
+                    addIfPresent(emails, name.path("email").asText(""));
+                }
+                for (JsonNode email : customer.path("email")) {
+                    addIfPresent(emails, email.path("email").asText(""));
+                }
+            }
+            return new Entry(hotelCode, arrivalDate, surnames, emails);
+        }
+
+        private static void addIfPresent(Set<String> target, String value) {
+            if (!value.isBlank()) {
+                target.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.distributed_api_demo_backend.service;
+
+/**
+ * Plain {@code long} implementation; also the fallback when the Vector API module is not available.
+ */
+final class ScalarPricingKernel implements PricingKernel {
+
+    @Override
+    public void scaleRound(long[] source, int sourceOffset, long[] target, int targetOffset, int length,
+                           long multiplier, long divisor, long subtract) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = Math.max(0, scaleRound(source[sourceOffset + i], multiplier, divisor) - subtract);
+        }
+    }
+
+    static long scaleRound(long amount, long multiplier, long divisor) {
+        long twice = Math.multiplyExact(Math.multiplyExact(amount, multiplier), 2);
+        return Math.floorDiv(Math.addExact(twice, divisor), 2 * divisor);
+    }
+
+    @Override
+    public String description() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.distributed_api_demo_backend.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Bounded ring buffer of feed entries addressed by sequence number, with long-poll support.
+ * Publishing never waits on consumers: a consumer that falls more than {@code capacity} entries behind
+ * gets a batch flagged {@code truncated} and resumes from the oldest retained entry.
+ */
+public class SequencedRing<E> {
+
+    public record Batch<E>(List<E> events, long nextSequence, long oldestSequence, boolean truncated) {
+
+        public Batch<E> withoutEvents() {
+            return new Batch<>(List.of(), nextSequence, oldestSequence, truncated);
+        }
+    }
+
+    private record Slot<E>(long sequence, E value) {
+    }
+
+    private final int capacity;
+    private final AtomicReferenceArray<Slot<E>> ring;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private final AtomicReference<CompletableFuture<Void>> signal = new AtomicReference<>(new CompletableFuture<>());
+    private final ExecutorService consumerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService ticker;
+
+    public SequencedRing(String name, int capacity) {
+        this.capacity = capacity;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name(name + "-tick").daemon().factory());
+        // Waking idle waiters periodically lets abandoned long-poll futures be released
+        this.ticker.scheduleAtFixedRate(this::wakeWaiters, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stores the entry built for the next sequence number and wakes waiting consumers.
+     */
+    public E publish(LongFunction<E> entry) {
+        long sequence = nextSequence.getAndIncrement();
+        E value = entry.apply(sequence);
+        ring.set(index(sequence), new Slot<>(sequence, value));
+        wakeWaiters();
+        return value;
+    }
+
+    public Batch<E> read(long fromSequence, int limit, Predicate<? super E> filter) {
+        long next = nextSequence.get();
+        long oldest = Math.max(1, next - capacity);
+        boolean truncated = fromSequence > 0 && fromSequence < oldest;
+        long cursor = Math.max(fromSequence, oldest);
+
+        List<E> events = new ArrayList<>(Math.min(limit, 64));
+        while (cursor < next && events.size() < limit) {
+            Slot<E> slot = ring.get(index(cursor));
+            if (slot == null || slot.sequence() < cursor) {
+                // slot reserved by a publisher that has not stored its entry yet
+                break;
+            }
+            if (slot.sequence() > cursor) {
+                // lapped by publishers while reading
+                truncated = true;
+                cursor = Math.max(cursor + 1, nextSequence.get() - capacity);
+                continue;
+            }
+            if (filter.test(slot.value())) {
+                events.add(slot.value());
+            }
+            cursor++;
+        }
+        return new Batch<>(events, cursor, oldest, truncated);
+    }
+
+    /**
+     * Long-poll: completes as soon as at least one matching entry exists at or after {@code fromSequence},
+     * or with an empty batch once {@code timeout} elapses.
+     */
+    public CompletableFuture<Batch<E>> poll(long fromSequence, int limit, Predicate<? super E> filter, Duration timeout) {
+        return await(fromSequence, limit, filter, System.nanoTime() + timeout.toNanos());
+    }
+
+    private CompletableFuture<Batch<E>> await(long fromSequence, int limit, Predicate<? super E> filter, long deadline) {
+        CompletableFuture<Void> waiter = signal.get();
+        Batch<E> batch = read(fromSequence, limit, filter);
+        long remaining = deadline - System.nanoTime();
+        if (!batch.events().isEmpty() || batch.truncated() || remaining <= 0) {
+            return CompletableFuture.completedFuture(batch);
+        }
+        return waiter.copy()
+                .completeOnTimeout(null, remaining, TimeUnit.NANOSECONDS)
+                .thenComposeAsync(ignored -> await(batch.nextSequence(), limit, filter, deadline), consumerExecutor);
+    }
+
+    public void shutdown() {
+        ticker.shutdownNow();
+        consumerExecutor.shutdownNow();
+    }
+
+    private void wakeWaiters() {
+        signal.getAndSet(new CompletableFuture<>()).complete(null);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
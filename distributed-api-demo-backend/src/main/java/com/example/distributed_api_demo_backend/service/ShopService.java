@@ -1,13 +1,47 @@
 package com.example.distributed_api_demo_backend.service;
 
+import com.example.distributed_api_demo_backend.diagnostics.ShopQueryEvent;
+import com.example.distributed_api_demo_backend.dto.Amount;
+import com.example.distributed_api_demo_backend.dto.CancelPenalty;
+import com.example.distributed_api_demo_backend.dto.PropertyAvailability;
+import com.example.distributed_api_demo_backend.dto.PropertyInfo;
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.dto.PropertySearchResults;
+import com.example.distributed_api_demo_backend.dto.Rate;
+import com.example.distributed_api_demo_backend.dto.RatePlan;
+import com.example.distributed_api_demo_backend.dto.RateSummary;
+import com.example.distributed_api_demo_backend.dto.Rates;
+import com.example.distributed_api_demo_backend.dto.RoomStay;
+import com.example.distributed_api_demo_backend.dto.RoomType;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.NotFoundException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -15,9 +49,24 @@ import java.io.IOException;
 public class ShopService {
 
     private final ObjectMapper objectMapper;
+    private final RatePricingEngine ratePricingEngine;
     
-    private JsonNode multiPropertyData;
-    private JsonNode propertyOffersData;
+    private static final double GRID_CELL_DEGREES = 1.0;
+    private static final Comparator<SearchPosition> SEARCH_ORDER = Comparator.comparingLong(SearchPosition::rank)
+            .thenComparing(SearchPosition::name)
+            .thenComparing(SearchPosition::hotelCode);
+
+    private final Map<String, PropertyRates> propertyRates = new LinkedHashMap<>();
+
+    @Value("${shop.search.ranking-currency:USD}")
+    private String rankingCurrency;
+
+    @Value("${shop.search.max-page-size:100}")
+    private int maxPageSize;
+
+    private List<PropertyAvailability> searchEntries;
+    private DestinationIndex destinationIndex;
+    private PropertyOffers propertyOffersData;
     private JsonNode calendarData;
     private JsonNode offerDetailData;
 
@@ -25,13 +74,17 @@ public class ShopService {
     public void loadTestData() {
         log.info("Loading Shop API test data...");
         try {
-            multiPropertyData = objectMapper.readTree(
-                    getClass().getResourceAsStream("/data/shop-multi-property-search.json"));
+            searchEntries = List.copyOf(objectMapper.readValue(
+                    getClass().getResourceAsStream("/data/shop-multi-property-search.json"),
+                    PropertySearchResults.class).roomStays());
+            destinationIndex = DestinationIndex.build(
+                    searchEntries.stream().map(PropertyAvailability::propertyInfo).toList(), GRID_CELL_DEGREES);
             log.info("Loaded shop-multi-property-search.json");
 
-            propertyOffersData = objectMapper.readTree(
-                    getClass().getResourceAsStream("/data/shop-property-offers.json"));
+            propertyOffersData = objectMapper.readValue(
+                    getClass().getResourceAsStream("/data/shop-property-offers.json"), PropertyOffers.class);
             log.info("Loaded shop-property-offers.json");
+            indexBaseRates();
 
             calendarData = objectMapper.readTree(
                     getClass().getResourceAsStream("/data/shop-calendar-availability.json"));
@@ -48,14 +101,478 @@ public class ShopService {
         }
     }
 
-    public JsonNode searchProperties() {
-        log.debug("Returning multi-property search data");
-        return multiPropertyData;
+    public enum SearchSort {
+        LOWEST_RATE, DISTANCE, NAME;
+
+        public static SearchSort of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("sortBy must be one of LOWEST_RATE, DISTANCE, NAME");
+            }
+        }
+    }
+
+    /**
+     * A multi-property search. Empty {@code hotelCodes} and null {@code chainCode}, {@code destination} and
+     * {@code radiusKm} match every property. {@code destination} is a city name or prefix; {@code radiusKm}
+     * keeps properties around {@code latitude}/{@code longitude}, which are also required to sort by distance.
+     */
+    public record PropertySearch(LocalDate arrivalDate, LocalDate departureDate, Set<String> hotelCodes,
+                                 String chainCode, String destination, Double latitude, Double longitude,
+                                 Double radiusKm, SearchSort sortBy, String currencyCode, int limit, String cursor) {
+
+        public PropertySearch {
+            hotelCodes = hotelCodes == null ? Set.of() : Set.copyOf(hotelCodes);
+            chainCode = chainCode == null || chainCode.isBlank() ? null : chainCode.trim();
+            destination = destination == null || destination.isBlank() ? null : destination.trim();
+            currencyCode = currencyCode == null || currencyCode.isBlank()
+                    ? null : currencyCode.trim().toUpperCase(Locale.ROOT);
+            cursor = cursor == null || cursor.isBlank() ? null : cursor.trim();
+        }
+    }
+
+    /**
+     * Destination and radius filters narrow the candidates through the {@link DestinationIndex}; each one left
+     * is ranked by a cheap key and only the best {@code limit + 1} after the cursor are kept in a bounded
+     * heap, so just the returned page is serialized. Lowest rate ranks on the figure the page shows, the
+     * cheapest room's base-plan stay total after tax and fees, converted to the search currency or to
+     * {@code shop.search.ranking-currency} when properties are shown in their own currencies. The cursor is
+     * the last returned position, so pages stay consistent without the server keeping any state.
+     */
+    public PropertySearchResults searchProperties(PropertySearch search) {
+        ShopQueryEvent event = new ShopQueryEvent();
+        event.begin();
+        int nights = nights(search.arrivalDate(), search.departureDate());
+        if (search.limit() < 1) {
+            throw new InvalidRequestException("limit must be at least 1");
+        }
+        int limit = Math.min(search.limit(), maxPageSize);
+        SearchSort sort = search.sortBy();
+        boolean hasOrigin = search.latitude() != null && search.longitude() != null;
+        if (sort == SearchSort.DISTANCE && !hasOrigin) {
+            throw new InvalidRequestException("latitude and longitude are required to sort by distance");
+        }
+        int[] ordinals = destinationMatches(search.destination(), search.latitude(), search.longitude(),
+                search.radiusKm());
+        String sellCurrency = search.currencyCode();
+        String compareCurrency = sellCurrency != null ? sellCurrency : rankingCurrency;
+        if (!ratePricingEngine.supportsCurrency(compareCurrency)) {
+            throw new InvalidRequestException("Unsupported currency: " + compareCurrency);
+        }
+        String context = switch (sort) {
+            case LOWEST_RATE -> compareCurrency;
+            case DISTANCE -> search.latitude() + "," + search.longitude();
+            case NAME -> "";
+        };
+        SearchPosition after = search.cursor() == null ? null : SearchPosition.decode(search.cursor(), sort, context);
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 2,
+                Comparator.comparing(Candidate::position, SEARCH_ORDER).reversed());
+        int totalResults = 0;
+        int candidates = ordinals == null ? searchEntries.size() : ordinals.length;
+        for (int i = 0; i < candidates; i++) {
+            PropertyAvailability entry = searchEntries.get(ordinals == null ? i : ordinals[i]);
+            PropertyInfo info = entry.propertyInfo();
+            if (!search.hotelCodes().isEmpty() && !search.hotelCodes().contains(info.hotelCode())
+                    || search.chainCode() != null && !search.chainCode().equalsIgnoreCase(info.chainCode())) {
+                continue;
+            }
+            totalResults++;
+            long distance = hasOrigin && info.latitude() != null && info.longitude() != null
+                    ? DestinationIndex.distanceMetres(search.latitude(), search.longitude(), info.latitude(), info.longitude())
+                    : -1;
+            PricedRooms rooms = sort == SearchSort.LOWEST_RATE
+                    ? priceRooms(info.hotelCode(), search.arrivalDate(), nights, sellCurrency) : null;
+            SearchPosition position = switch (sort) {
+                case LOWEST_RATE -> new SearchPosition(
+                        displayedStayTotal(entry, rooms, nights, compareCurrency), "", info.hotelCode());
+                case DISTANCE -> new SearchPosition(distance < 0 ? Long.MAX_VALUE : distance, "", info.hotelCode());
+                case NAME -> info.hotelName() == null
+                        ? new SearchPosition(1, "", info.hotelCode())
+                        : new SearchPosition(0, info.hotelName().toLowerCase(Locale.ROOT), info.hotelCode());
+            };
+            if (after != null && SEARCH_ORDER.compare(position, after) <= 0) {
+                continue;
+            }
+            if (best.size() > limit && SEARCH_ORDER.compare(position, best.peek().position()) >= 0) {
+                continue;
+            }
+            best.offer(new Candidate(position, entry, distance, rooms));
+            if (best.size() > limit + 1) {
+                best.poll();
+            }
+        }
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparing(Candidate::position, SEARCH_ORDER));
+        boolean hasMore = ranked.size() > limit;
+        List<Candidate> page = hasMore ? ranked.subList(0, limit) : ranked;
+        List<PropertyAvailability> roomStays = new ArrayList<>(page.size());
+        for (Candidate candidate : page) {
+            roomStays.add(priceSearchEntry(candidate, search.arrivalDate(), nights, sellCurrency));
+        }
+        String nextCursor = hasMore ? page.get(page.size() - 1).position().encode(sort, context) : null;
+        log.debug("Ranked {} of {} candidates by {}, returning {}", totalResults, candidates, sort, roomStays.size());
+        event.operation = "search";
+        event.nights = nights;
+        event.results = roomStays.size();
+        event.commitFor(null);
+        return new PropertySearchResults(roomStays, totalResults, nextCursor);
+    }
+
+    private record SearchPosition(long rank, String name, String hotelCode) {
+
+        String encode(SearchSort sort, String context) {
+            String value = sort + "|" + context + "|" + rank + "|" + hotelCode + "|" + name;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SearchPosition decode(String cursor, SearchSort sort, String context) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 5);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            if (parts.length != 5 || !parts[0].equals(sort.name()) || !parts[1].equals(context)) {
+                throw new InvalidRequestException("cursor does not belong to this search");
+            }
+            try {
+                return new SearchPosition(Long.parseLong(parts[2]), parts[4], parts[3]);
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+        }
+    }
+
+    private record Candidate(SearchPosition position, PropertyAvailability entry, long distanceMetres,
+                             PricedRooms rooms) {
+    }
+
+    /**
+     * One property's base plan priced for every room type, with the cheapest and dearest room before tax.
+     */
+    private record PricedRooms(RatePricingEngine.PricedStay priced, int lowest, int highest) {
+    }
+
+    /**
+     * Prices the base plan of every room type in the selling currency, or the property's own when
+     * {@code sellCurrency} is null; null when the hotel has no indexed rates.
+     */
+    private PricedRooms priceRooms(String hotelCode, LocalDate arrivalDate, int nights, String sellCurrency) {
+        PropertyRates property = propertyRates.get(hotelCode);
+        if (property == null || property.rooms().isEmpty()) {
+            return null;
+        }
+        List<RoomRates> rooms = property.rooms();
+        long[] base = new long[rooms.size() * nights];
+        for (int room = 0; room < rooms.size(); room++) {
+            rooms.get(room).nightly(arrivalDate, base, room * nights, nights);
+        }
+        RatePricingEngine.PropertyPricing pricing = ratePricingEngine.propertyPricing(hotelCode, property.currencyCode());
+        RatePricingEngine.PricedStay priced = ratePricingEngine.priceStay(base, rooms.size(), nights,
+                property.currencyCode(), true, List.of(), pricing,
+                sellCurrency != null ? sellCurrency : pricing.currencyCode());
+        int lowest = 0;
+        int highest = 0;
+        for (int room = 1; room < rooms.size(); room++) {
+            if (priced.beforeTax(0, room) < priced.beforeTax(0, lowest)) {
+                lowest = room;
+            }
+            if (priced.beforeTax(0, room) > priced.beforeTax(0, highest)) {
+                highest = room;
+            }
+        }
+        return new PricedRooms(priced, lowest, highest);
+    }
+
+    /**
+     * The stay total behind the minimum rate the page shows, after tax when the page shows it, in
+     * {@code currencyCode} minor units; {@link Long#MAX_VALUE} when unpriced.
+     */
+    private long displayedStayTotal(PropertyAvailability entry, PricedRooms rooms, int nights, String currencyCode) {
+        if (rooms != null) {
+            RatePricingEngine.PricedStay priced = rooms.priced();
+            return ratePricingEngine.convert(priced.afterTax(0, rooms.lowest()), priced.currencyCode(), currencyCode);
+        }
+        RateSummary minRate = entry.minRate();
+        BigDecimal nightly = minRate == null ? null
+                : minRate.amountAfterTax() != null ? minRate.amountAfterTax() : minRate.amountBeforeTax();
+        if (nightly == null || !ratePricingEngine.supportsCurrency(minRate.currencyCode())) {
+            return Long.MAX_VALUE;
+        }
+        String fromCurrency = minRate.currencyCode();
+        return ratePricingEngine.convert(minorUnits(nightly, fromCurrency), fromCurrency, currencyCode) * nights;
+    }
+
+    /**
+     * Prices one returned property for the stay: base-plan average nightly rates of the cheapest and dearest
+     * room with the property's tax and fees, or the fixture's rate range when the hotel has no indexed rates.
+     * Lowest-rate ranking has already priced the rooms; other orders price them here, for the page only.
+     */
+    private PropertyAvailability priceSearchEntry(Candidate candidate, LocalDate arrivalDate, int nights,
+                                                  String sellCurrency) {
+        PropertyAvailability entry = candidate.entry();
+        BigDecimal distance = candidate.distanceMetres() < 0 ? null
+                : BigDecimal.valueOf(candidate.distanceMetres()).movePointLeft(3).setScale(1, RoundingMode.HALF_UP);
+        PricedRooms rooms = candidate.rooms() != null ? candidate.rooms()
+                : priceRooms(entry.propertyInfo().hotelCode(), arrivalDate, nights, sellCurrency);
+        if (rooms == null) {
+            return entry.priced(convertRate(entry.minRate(), sellCurrency),
+                    convertRate(entry.maxRate(), sellCurrency), distance);
+        }
+        return entry.priced(averageRate(rooms.priced(), rooms.lowest()),
+                averageRate(rooms.priced(), rooms.highest()), distance);
+    }
+
+    private static RateSummary averageRate(RatePricingEngine.PricedStay priced, int room) {
+        int nights = priced.nights();
+        boolean rateChange = false;
+        for (int night = 1; night < nights; night++) {
+            rateChange |= priced.nightly(0, room, night) != priced.nightly(0, room, 0);
+        }
+        BigDecimal divisor = BigDecimal.valueOf(nights);
+        return new RateSummary(
+                priced.amount(priced.beforeTax(0, room)).divide(divisor, priced.fractionDigits(), RoundingMode.HALF_UP),
+                priced.amount(priced.afterTax(0, room)).divide(divisor, priced.fractionDigits(), RoundingMode.HALF_UP),
+                priced.currencyCode(), null, null, rateChange);
+    }
+
+    private RateSummary convertRate(RateSummary rate, String currencyCode) {
+        if (rate == null || currencyCode == null || currencyCode.equals(rate.currencyCode())
+                || !ratePricingEngine.supportsCurrency(rate.currencyCode())) {
+            return rate;
+        }
+        int digits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+        return new RateSummary(convertAmount(rate.amountBeforeTax(), rate.currencyCode(), currencyCode, digits),
+                convertAmount(rate.amountAfterTax(), rate.currencyCode(), currencyCode, digits),
+                currencyCode, rate.rateMode(), rate.isCommissionable(), rate.hasRateChange());
+    }
+
+    private BigDecimal convertAmount(BigDecimal amount, String fromCurrency, String toCurrency, int digits) {
+        return amount == null ? null : BigDecimal.valueOf(
+                ratePricingEngine.convert(minorUnits(amount, fromCurrency), fromCurrency, toCurrency), digits);
+    }
+
+    private static long minorUnits(BigDecimal amount, String currencyCode) {
+        return amount.setScale(Currency.getInstance(currencyCode).getDefaultFractionDigits(), RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+    }
+
+    /**
+     * Properties matching a destination name and/or radius, in search order; empty when none match.
+     */
+    public List<PropertyInfo> findProperties(String destination, Double latitude, Double longitude, Double radiusKm) {
+        int[] ordinals = destinationMatches(destination == null || destination.isBlank() ? null : destination,
+                latitude, longitude, radiusKm);
+        if (ordinals == null) {
+            return searchEntries.stream().map(PropertyAvailability::propertyInfo).toList();
+        }
+        List<PropertyInfo> properties = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            properties.add(searchEntries.get(ordinal).propertyInfo());
+        }
+        return properties;
+    }
+
+    /**
+     * Ordinals into {@code searchEntries} matching both filters in ascending order, or null when neither is set.
+     */
+    private int[] destinationMatches(String destination, Double latitude, Double longitude, Double radiusKm) {
+        boolean hasOrigin = latitude != null && longitude != null;
+        if (hasOrigin && (Math.abs(latitude) > 90 || Math.abs(longitude) > 180)) {
+            throw new InvalidRequestException("latitude must be within [-90, 90] and longitude within [-180, 180]");
+        }
+        int[] nearby = null;
+        if (radiusKm != null) {
+            if (!hasOrigin) {
+                throw new InvalidRequestException("latitude and longitude are required with radiusKm");
+            }
+            if (!(radiusKm > 0)) {
+                throw new InvalidRequestException("radiusKm must be positive");
+            }
+            nearby = destinationIndex.within(latitude, longitude, radiusKm * 1000);
+        }
+        int[] named = destination == null ? null : destinationIndex.byCity(destination);
+        if (named == null || nearby == null) {
+            return named != null ? named : nearby;
+        }
+        int[] both = new int[Math.min(named.length, nearby.length)];
+        int count = 0;
+        for (int a = 0, b = 0; a < named.length && b < nearby.length; ) {
+            if (named[a] == nearby[b]) {
+                both[count++] = named[a];
+                a++;
+                b++;
+            } else if (named[a] < nearby[b]) {
+                a++;
+            } else {
+                b++;
+            }
+        }
+        return Arrays.copyOf(both, count);
+    }
+
+    private static int nights(LocalDate arrivalDate, LocalDate departureDate) {
+        int nights = (int) ChronoUnit.DAYS.between(arrivalDate, departureDate);
+        if (nights <= 0) {
+            throw new InvalidRequestException("departureDate must be after arrivalDate");
+        }
+        return nights;
+    }
+
+    /**
+     * Prices the hotel's offers for a stay in {@code currencyCode}, or in the property's own currency when null.
+     */
+    public PropertyOffers getPropertyOffers(String hotelCode, LocalDate arrivalDate, LocalDate departureDate,
+                                            Set<String> ratePlanCodes, boolean ratePlanCodeMatchOnly,
+                                            String currencyCode) {
+        ShopQueryEvent event = new ShopQueryEvent();
+        event.begin();
+        log.debug("Pricing property offers for hotel: {}, {} to {}, ratePlans: {}, currency: {}",
+                  hotelCode, arrivalDate, departureDate, ratePlanCodes, currencyCode);
+
+        int nights = nights(arrivalDate, departureDate);
+        long advanceDays = ChronoUnit.DAYS.between(LocalDate.now(), arrivalDate);
+
+        PropertyRates property = propertyRates.get(hotelCode);
+        if (property == null) {
+            log.warn("No rates for hotel: {}", hotelCode);
+            throw new NotFoundException("Hotel not found: " + hotelCode);
+        }
+        RatePricingEngine.PropertyPricing pricing = ratePricingEngine.propertyPricing(hotelCode, property.currencyCode());
+        String sellCurrency = currencyCode != null ? currencyCode : pricing.currencyCode();
+        if (!ratePricingEngine.supportsCurrency(sellCurrency)) {
+            throw new InvalidRequestException("Unsupported currency: " + sellCurrency);
+        }
+
+        List<RatePlanRule> rules = new ArrayList<>();
+        for (RatePlanRule rule : ratePricingEngine.rules()) {
+            if (rule.appliesTo(nights, advanceDays)) {
+                rules.add(rule);
+            }
+        }
+        boolean includeBase = true;
+        if (ratePlanCodes != null && !ratePlanCodes.isEmpty()) {
+            boolean baseRequested = ratePlanCodes.contains(ratePricingEngine.baseRatePlanCode());
+            List<RatePlanRule> requested = rules.stream()
+                    .filter(rule -> ratePlanCodes.contains(rule.ratePlanCode()))
+                    .toList();
+            if (baseRequested || !requested.isEmpty() || ratePlanCodeMatchOnly) {
+                includeBase = baseRequested;
+                rules = requested;
+            }
+        }
+
+        List<RoomRates> rooms = property.rooms();
+        long[] base = new long[rooms.size() * nights];
+        for (int room = 0; room < rooms.size(); room++) {
+            rooms.get(room).nightly(arrivalDate, base, room * nights, nights);
+        }
+        RatePricingEngine.PricedStay priced = ratePricingEngine.priceStay(base, rooms.size(), nights,
+                property.currencyCode(), includeBase, rules, pricing, sellCurrency);
+
+        List<RatePlan> rulePlans = new ArrayList<>(rules.size());
+        for (RatePlanRule rule : rules) {
+            rulePlans.add(rulePlan(rule, arrivalDate));
+        }
+        List<RoomType> roomTypes = new ArrayList<>(rooms.size());
+        for (int room = 0; room < rooms.size(); room++) {
+            List<RatePlan> ratePlans = new ArrayList<>(rulePlans.size() + 1);
+            int plan = 0;
+            if (includeBase) {
+                ratePlans.add(pricePlan(rooms.get(room).basePlanFor(arrivalDate), priced, plan++, room, arrivalDate));
+            }
+            for (RatePlan rulePlan : rulePlans) {
+                ratePlans.add(pricePlan(rulePlan, priced, plan++, room, arrivalDate));
+            }
+            roomTypes.add(rooms.get(room).roomType().withRatePlans(ratePlans));
+        }
+        event.operation = "offers";
+        event.nights = nights;
+        event.results = roomTypes.size();
+        event.commitFor(hotelCode);
+        return new PropertyOffers(List.of(property.roomStay().withRoomTypes(roomTypes)));
+    }
+
+    /**
+     * Base rate plan amount for one night of a room type, or {@code null} when the hotel or room type is not priced.
+     */
+    public BaseRate baseNightlyRate(String hotelCode, String roomType, LocalDate night) {
+        PropertyRates property = propertyRates.get(hotelCode);
+        if (property == null) {
+            return null;
+        }
+        for (RoomRates room : property.rooms()) {
+            if (roomType.equals(room.roomType().roomType())) {
+                int digits = Currency.getInstance(room.currencyCode()).getDefaultFractionDigits();
+                return new BaseRate(BigDecimal.valueOf(room.nightly(night), digits), room.currencyCode());
+            }
+        }
+        return null;
     }
 
-    public JsonNode getPropertyOffers(String hotelCode) {
-        log.debug("Returning property offers for hotel: {}", hotelCode);
-        return propertyOffersData;
+    public record BaseRate(BigDecimal amountBeforeTax, String currencyCode) {
+    }
+
+    /**
+     * Every bookable property in search order, with its priced room types where base rates are indexed
+     * and the search fixture's rate range otherwise.
+     */
+    public List<PropertySummary> propertyCatalogue() {
+        List<PropertySummary> catalogue = new ArrayList<>();
+        for (PropertyAvailability stay : searchEntries) {
+            PropertyInfo info = stay.propertyInfo();
+            String availability = stay.availability() != null ? stay.availability() : "";
+            if (info.hotelName() == null || "NotFound".equals(availability)) {
+                continue;
+            }
+            String hotelCode = info.hotelCode();
+            PropertyRates property = propertyRates.get(hotelCode);
+            if (property == null) {
+                catalogue.add(new PropertySummary(hotelCode, info.hotelName(), cityName(info), availability,
+                        stay.minRate() != null ? stay.minRate().currencyCode() : null,
+                        rateAmount(stay.minRate()), rateAmount(stay.maxRate()), List.of()));
+                continue;
+            }
+
+            List<RoomSummary> rooms = new ArrayList<>();
+            for (RoomRates room : property.rooms()) {
+                int digits = Currency.getInstance(room.currencyCode()).getDefaultFractionDigits();
+                rooms.add(new RoomSummary(room.roomType().roomType(), room.roomType().roomName(),
+                        room.roomType().occupancy().maxAdultOccupancy(), room.roomType().occupancy().maxChildOccupancy(),
+                        BigDecimal.valueOf(Arrays.stream(room.pattern()).min().orElse(0), digits),
+                        BigDecimal.valueOf(Arrays.stream(room.pattern()).max().orElse(0), digits)));
+            }
+            catalogue.add(new PropertySummary(hotelCode, info.hotelName(),
+                    cityName(info) != null ? cityName(info) : cityName(property.roomStay().propertyInfo()),
+                    availability, property.rooms().isEmpty() ? null : property.rooms().get(0).currencyCode(),
+                    rooms.stream().map(RoomSummary::minNightly).min(BigDecimal::compareTo).orElse(null),
+                    rooms.stream().map(RoomSummary::maxNightly).max(BigDecimal::compareTo).orElse(null),
+                    List.copyOf(rooms)));
+        }
+        return catalogue;
+    }
+
+    private static String cityName(PropertyInfo info) {
+        return info == null || info.address() == null ? null : info.address().cityName();
+    }
+
+    private static BigDecimal rateAmount(RateSummary rate) {
+        if (rate == null) {
+            return null;
+        }
+        return rate.amountBeforeTax() != null ? rate.amountBeforeTax() : rate.amountAfterTax();
+    }
+
+    public record PropertySummary(String hotelCode, String hotelName, String cityName, String availability,
+                                  String currencyCode, BigDecimal minNightly, BigDecimal maxNightly,
+                                  List<RoomSummary> rooms) {
+    }
+
+    public record RoomSummary(String roomType, String roomName, int maxAdults, int maxChildren,
+                              BigDecimal minNightly, BigDecimal maxNightly) {
     }
 
     public JsonNode getCalendarAvailability(String hotelCode) {
@@ -68,4 +585,105 @@ public class ShopService {
                   hotelCode, roomType, ratePlanCode);
         return offerDetailData;
     }
+
+    private void indexBaseRates() {
+        String baseCode = ratePricingEngine.baseRatePlanCode();
+        for (RoomStay stay : propertyOffersData.roomStays()) {
+            String hotelCode = stay.propertyInfo().hotelCode();
+            List<RoomRates> rooms = new ArrayList<>();
+            for (RoomType roomType : stay.roomTypes()) {
+                for (RatePlan plan : roomType.ratePlans()) {
+                    if (baseCode.equals(plan.ratePlanCode())) {
+                        rooms.add(RoomRates.of(roomType, plan));
+                    }
+                }
+            }
+            String currencyCode = rooms.isEmpty() ? "USD" : rooms.get(0).currencyCode();
+            if (rooms.stream().anyMatch(room -> !room.currencyCode().equals(currencyCode))) {
+                throw new IllegalStateException("Base rates of hotel " + hotelCode + " use more than one currency");
+            }
+            propertyRates.put(hotelCode, new PropertyRates(stay.withRoomTypes(null), currencyCode, List.copyOf(rooms)));
+            log.info("Indexed base rates for hotel: {} ({} room types)", hotelCode, rooms.size());
+        }
+    }
+
+    private RatePlan rulePlan(RatePlanRule rule, LocalDate arrivalDate) {
+        CancelPenalty cancelPenalty = null;
+        if (rule.penaltyDescription() != null) {
+            cancelPenalty = new CancelPenalty(rule.cancelDaysPrior() == 0
+                    ? arrivalDate + "T18:00:00"
+                    : arrivalDate.minusDays(rule.cancelDaysPrior()) + "T23:59:59",
+                    rule.penaltyDescription(), null);
+        }
+        return new RatePlan(rule.ratePlanCode(), rule.ratePlanName(), rule.ratePlanType(), "AvailableForSale",
+                rule.identificationRequired(), false, null, null, rule.guarantee(), cancelPenalty, null);
+    }
+
+    private RatePlan pricePlan(RatePlan template, RatePricingEngine.PricedStay priced, int plan, int room,
+                               LocalDate arrivalDate) {
+        String currencyCode = priced.currencyCode();
+        List<Rate> rates = new ArrayList<>(priced.nights());
+        for (int night = 0; night < priced.nights(); night++) {
+            String date = arrivalDate.plusDays(night).toString();
+            rates.add(new Rate(Amount.beforeTax(priced.amount(priced.nightly(plan, room, night)), currencyCode),
+                    date, date));
+        }
+
+        Amount total = new Amount(priced.amount(priced.beforeTax(plan, room)),
+                priced.amount(priced.afterTax(plan, room)), currencyCode);
+
+        CancelPenalty cancelPenalty = template.cancelPenalty() == null ? null : template.cancelPenalty()
+                .withAmount(Amount.beforeTax(priced.amount(priced.nightly(plan, room, 0)), currencyCode));
+        return template.priced(new Rates(rates), total, cancelPenalty);
+    }
+
+    /**
+     * The property's descriptive data without room types; shared by every offers response for the hotel.
+     */
+    private record PropertyRates(RoomStay roomStay, String currencyCode, List<RoomRates> rooms) {
+    }
+
+    /**
+     * Base-plan nightly rates for one room type. The fixture's nights are treated as a repeating
+     * pattern starting at {@code firstNight}, so any stay date can be priced.
+     */
+    private record RoomRates(RoomType roomType, RatePlan basePlan, String currencyCode,
+                             LocalDate firstNight, long[] pattern) {
+
+        static RoomRates of(RoomType roomType, RatePlan plan) {
+            List<Rate> rate = plan.rates().rate();
+            String currencyCode = plan.total() != null && plan.total().currencyCode() != null
+                    ? plan.total().currencyCode() : "USD";
+            int digits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            long[] pattern = new long[rate.size()];
+            for (int night = 0; night < pattern.length; night++) {
+                pattern[night] = rate.get(night).base().amountBeforeTax()
+                        .setScale(digits, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            }
+            return new RoomRates(roomType.withRatePlans(null), plan.priced(null, null, plan.cancelPenalty()),
+                    currencyCode, LocalDate.parse(rate.get(0).start()), pattern);
+        }
+
+        RatePlan basePlanFor(LocalDate arrivalDate) {
+            CancelPenalty cancelPenalty = basePlan.cancelPenalty();
+            if (cancelPenalty == null || cancelPenalty.deadline() == null) {
+                return basePlan;
+            }
+            long shift = ChronoUnit.DAYS.between(firstNight, arrivalDate);
+            return basePlan.priced(null, null, cancelPenalty.withDeadline(
+                    LocalDateTime.parse(cancelPenalty.deadline()).plusDays(shift)
+                            .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)));
+        }
+
+        long nightly(LocalDate night) {
+            return pattern[(int) Math.floorMod(ChronoUnit.DAYS.between(firstNight, night), pattern.length)];
+        }
+
+        void nightly(LocalDate arrivalDate, long[] target, int targetOffset, int nights) {
+            long offset = ChronoUnit.DAYS.between(firstNight, arrivalDate);
+            for (int night = 0; night < nights; night++) {
+                target[targetOffset + night] = pattern[(int) Math.floorMod(offset + night, pattern.length)];
+            }
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A reservation as held by {@link BookService}. Unlike shop offers and search results, which are typed records,
+ * the body stays the OPERA JSON document, so fields this service does not model survive every modification.
+ * It is never mutated once stored; each modification publishes a new body (sharing unchanged subtrees) with
+ * the next version.
+ * The epoch is the hotel's ownership epoch the write was made in; a {@code null} body marks a cancellation.
+ */
+public record StoredReservation(String hotelCode, JsonNode body, long version, long epoch) {
+
+    public String eTag() {
+        return "\"" + version + "\"";
+    }
+
+    boolean isOlderThan(long otherEpoch, long otherVersion) {
+        return epoch < otherEpoch || epoch == otherEpoch && version < otherVersion;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.distributed_api_demo_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} wheels of {@value #SLOTS} slots, the first one slot per tick and
+ * each further one {@value #SLOTS} times coarser, so {@code tick} of 1s covers about 194 days. Scheduling and
+ * cancelling link or unlink one node in a slot's list, both O(1) under one short lock. A single ticker thread
+ * expires the current slot every tick and, when a wheel wraps, redistributes the next coarser slot into the
+ * finer wheels; deadlines beyond the top wheel wait in its last slot and are re-placed from there. Whichever of
+ * {@link #cancel} and expiry reaches a timeout first wins, so its owner sees exactly one of the two. A timeout
+ * can be created before it is scheduled, so the owner can register it where expiry will look for it first.
+ */
+@Slf4j
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    static final class Timeout<T> {
+
+        private final T value;
+        private long deadlineTick;
+        private int slot = -1;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        Timeout(T value) {
+            this.value = value;
+        }
+
+        T value() {
+            return value;
+        }
+    }
+
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final Consumer<T> onExpiry;
+    @SuppressWarnings("unchecked")
+    private final Timeout<T>[] slots = new Timeout[LEVELS * SLOTS];
+    private final List<Timeout<T>> expired = new ArrayList<>();
+    private final ScheduledExecutorService ticker;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(String name, Duration tick, Consumer<T> onExpiry) {
+        this(tick, System::nanoTime, onExpiry,
+                Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(name + "-tick").daemon().factory()));
+        this.ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A wheel without a ticker thread, driven by calling {@link #advance} after moving {@code nanoClock}.
+     */
+    TimingWheel(Duration tick, LongSupplier nanoClock, Consumer<T> onExpiry) {
+        this(tick, nanoClock, onExpiry, null);
+    }
+
+    private TimingWheel(Duration tick, LongSupplier nanoClock, Consumer<T> onExpiry, ScheduledExecutorService ticker) {
+        this.tickNanos = tick.toNanos();
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.onExpiry = onExpiry;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Expires {@code value} once {@code delay} has passed, rounded up to the next tick.
+     */
+    Timeout<T> schedule(T value, Duration delay) {
+        Timeout<T> timeout = new Timeout<>(value);
+        schedule(timeout, delay);
+        return timeout;
+    }
+
+    /**
+     * Schedules a timeout created unscheduled; each one is scheduled at most once.
+     */
+    synchronized void schedule(Timeout<T> timeout, Duration delay) {
+        if (timeout.slot >= 0 || timeout.deadlineTick != 0) {
+            throw new IllegalStateException("Timeout already scheduled");
+        }
+        long due = nanoClock.getAsLong() - startNanos + Math.max(0, delay.toNanos());
+        timeout.deadlineTick = Math.max(currentTick + 1, (due + tickNanos - 1) / tickNanos);
+        place(timeout);
+        size++;
+    }
+
+    /**
+     * Removes the timeout; false when it has already expired or been cancelled.
+     */
+    synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.slot < 0) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Expires every timeout due by now; the ticker calls it once per tick. Handlers run on the calling thread.
+     */
+    void advance() {
+        synchronized (this) {
+            long target = elapsedTicks();
+            while (currentTick < target) {
+                currentTick++;
+                cascade();
+                for (Timeout<T> timeout = slots[(int) (currentTick & (SLOTS - 1))]; timeout != null; ) {
+                    Timeout<T> next = timeout.next;
+                    unlink(timeout);
+                    expired.add(timeout);
+                    timeout = next;
+                }
+            }
+            size -= expired.size();
+        }
+        // Handlers run outside the lock so they may schedule or cancel; one thread advances a wheel, so the list is its own
+        for (Timeout<T> timeout : expired) {
+            try {
+                onExpiry.accept(timeout.value);
+            } catch (RuntimeException e) {
+                log.error("Timeout handler failed for {}", timeout.value, e);
+            }
+        }
+        expired.clear();
+    }
+
+    /**
+     * Each coarser wheel's slot for the new tick, from the lowest level whose position did not wrap, is moved
+     * down into the finer wheels now that its timeouts are within their range.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS
+                && (currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0; level++) {
+            int index = level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+            Timeout<T> timeout = slots[index];
+            slots[index] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.previous = null;
+                timeout.next = null;
+                timeout.slot = -1;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long deadline = Math.max(timeout.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // Beyond the top wheel: park in its farthest slot and re-place when that slot cascades
+            deadline = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int index = level * SLOTS + (int) ((deadline >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        timeout.slot = index;
+        timeout.next = slots[index];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        slots[index] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.slot = -1;
+    }
+
+    private long elapsedTicks() {
+        return (nanoClock.getAsLong() - startNanos) / tickNanos;
+    }
+}
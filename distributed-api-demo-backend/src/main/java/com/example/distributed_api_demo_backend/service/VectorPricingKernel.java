@@ -0,0 +1,75 @@
+package com.example.distributed_api_demo_backend.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel on the incubating Vector API; only instantiated when {@code jdk.incubator.vector} is in the
+ * boot layer ({@code --add-modules jdk.incubator.vector}). The multiply-and-round runs in double lanes,
+ * which is exact while every intermediate is an integer below 2^53. Ranges that could exceed that (far
+ * beyond any room rate) are handed to the scalar kernel.
+ */
+final class VectorPricingKernel implements PricingKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, DOUBLES.vectorShape());
+    private static final long EXACT_LIMIT = 1L << 53;
+
+    private final ScalarPricingKernel scalar = new ScalarPricingKernel();
+
+    @Override
+    public void scaleRound(long[] source, int sourceOffset, long[] target, int targetOffset, int length,
+                           long multiplier, long divisor, long subtract) {
+        if (!exactInDoubles(source, sourceOffset, length, multiplier, divisor)) {
+            scalar.scaleRound(source, sourceOffset, target, targetOffset, length, multiplier, divisor, subtract);
+            return;
+        }
+        // round(x * m / d) = floor((2xm + d) / 2d); truncating D2L is floor because every value is >= 0
+        double twiceMultiplier = 2.0 * multiplier;
+        double twiceDivisor = 2.0 * divisor;
+        int i = 0;
+        for (int upper = LONGS.loopBound(length); i < upper; i += LONGS.length()) {
+            DoubleVector amounts = (DoubleVector) LongVector.fromArray(LONGS, source, sourceOffset + i)
+                    .convert(VectorOperators.L2D, 0);
+            LongVector rounded = (LongVector) amounts.fma(twiceMultiplier, divisor)
+                    .div(twiceDivisor)
+                    .convert(VectorOperators.D2L, 0);
+            rounded.sub(subtract).max(0).intoArray(target, targetOffset + i);
+        }
+        for (; i < length; i++) {
+            target[targetOffset + i] = Math.max(0,
+                    ScalarPricingKernel.scaleRound(source[sourceOffset + i], multiplier, divisor) - subtract);
+        }
+    }
+
+    /**
+     * The double path is exact when the numerator 2xm + d and the quotient's rounding slack 2d stay below 2^53.
+     */
+    private static boolean exactInDoubles(long[] source, int offset, int length, long multiplier, long divisor) {
+        if (multiplier < 0 || divisor <= 0 || divisor >= EXACT_LIMIT / 3) {
+            return false;
+        }
+        LongVector low = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+        LongVector high = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        int i = 0;
+        for (int upper = LONGS.loopBound(length); i < upper; i += LONGS.length()) {
+            LongVector amounts = LongVector.fromArray(LONGS, source, offset + i);
+            low = low.min(amounts);
+            high = high.max(amounts);
+        }
+        long min = low.reduceLanes(VectorOperators.MIN);
+        long max = high.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) {
+            min = Math.min(min, source[offset + i]);
+            max = Math.max(max, source[offset + i]);
+        }
+        return min >= 0 && (multiplier == 0 || max <= (EXACT_LIMIT - 3 * divisor) / (2 * multiplier));
+    }
+
+    @Override
+    public String description() {
+        return "vector (" + DOUBLES.length() + " x 64-bit lanes)";
+    }
+}
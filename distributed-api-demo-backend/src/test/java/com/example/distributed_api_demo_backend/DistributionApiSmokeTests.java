@@ -0,0 +1,145 @@
+package com.example.distributed_api_demo_backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end pass over every shop, book and agent endpoint. Runs on the JVM with {@code mvn test}
+ * and inside the native test image with {@code mvn -PnativeTest test}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DistributionApiSmokeTests {
+
+    private static final String CREATE_BODY = """
+            {"reservations":[{"roomStay":{"arrivalDate":"2024-12-10","departureDate":"2024-12-12",
+              "roomRates":[{"guestCounts":{"adults":1},"roomType":"A1K","ratePlanCode":"FLEX","numberOfUnits":1}],
+              "guarantee":{"guaranteeType":"38"}},
+              "reservationGuests":[{"profileInfo":{"profile":{"customer":{"personName":[
+                {"surname":"Smith","givenName":"John","email":"john.smith@example.com"}]}}}}]}]}
+            """;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void shopEndpointsRespond() {
+        String stay = "adults=2&numberOfUnits=1&arrivalDate=2024-12-10&departureDate=2024-12-13";
+
+        assertThat(get("/shop/v1/hotels?" + stay).getBody().get("roomStays").isArray()).isTrue();
+        assertThat(get("/shop/v1/hotels/XSBOXD1/offers?" + stay).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/shop/v1/hotels/XSBOXD1/calendar?adults=2&numberOfUnits=1&startDate=2024-12-01&endDate=2024-12-10")
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/shop/v1/hotels/XSBOXD1/offer?roomType=A1K&ratePlanCode=FLEX&" + stay)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/shop/v1/hotels/NOSUCH1/offers?" + stay).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        String cursor = get("/shop/v1/hotels?limit=1&sortBy=NAME&" + stay).getBody().get("nextCursor").asText();
+        assertThat(get("/shop/v1/hotels?limit=1&sortBy=LOWEST_RATE&cursor=" + cursor + "&" + stay).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void bookLifecycleResponds() {
+        ResponseEntity<JsonNode> created = createWithRetry();
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String confirmation = confirmationNumber(created.getBody());
+        String path = "/book/v1/hotels/XSBOXD1/reservations/" + confirmation;
+
+        assertThat(get(path).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get("/book/v1/hotels/XSBOXD2/reservations/" + confirmation).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(get("/book/v1/hotels/XSBOXD1/reservations?surname=smith").getBody().get("totalResults").asInt())
+                .isPositive();
+
+        ResponseEntity<JsonNode> modified = exchange(path, HttpMethod.PUT,
+                "{\"reservations\":[{\"roomStay\":{\"departureDate\":\"2024-12-13\"}}]}");
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getBody().get(0).path("roomStay").path("departureDate").asText()).isEqualTo("2024-12-13");
+
+        assertThat(exchange(path, HttpMethod.DELETE, null).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(get(path).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void modifyHonoursIfMatch() {
+        String path = "/book/v1/hotels/XSBOXD1/reservations/" + confirmationNumber(createWithRetry().getBody());
+        String eTag = get(path).getHeaders().getETag();
+        assertThat(eTag).isEqualTo("\"1\"");
+
+        ResponseEntity<JsonNode> modified = exchange(path, HttpMethod.PUT,
+                "{\"reservations\":[{\"roomStay\":{\"departureDate\":\"2024-12-13\"}}]}", eTag);
+        assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(modified.getHeaders().getETag()).isEqualTo("\"2\"");
+
+        assertThat(exchange(path, HttpMethod.PUT,
+                "{\"reservations\":[{\"roomStay\":{\"departureDate\":\"2024-12-14\"}}]}", eTag).getStatusCode())
+                .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(exchange(path, HttpMethod.PUT,
+                "{\"reservations\":[{\"roomStay\":{\"departureDate\":\"14/12/2024\"}}]}", null).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+        exchange(path, HttpMethod.DELETE, null);
+    }
+
+    @Test
+    void agentEndpointResponds() {
+        ResponseEntity<JsonNode> response = exchange("/agent/v1/reservation-agent", HttpMethod.POST,
+                "{\"messages\":[{\"role\":\"user\",\"content\":\"Hello\"}]}");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().has("type")).isTrue();
+        assertThat(response.getBody().path("conversationId").asText()).isNotBlank();
+    }
+
+    private ResponseEntity<JsonNode> createWithRetry() {
+        ResponseEntity<JsonNode> response = null;
+        for (int attempt = 0; attempt < 20; attempt++) {
+            response = exchange("/book/v1/hotels/XSBOXD1/reservations", HttpMethod.POST, CREATE_BODY);
+            if (response.getStatusCode() != HttpStatus.CONFLICT) {
+                return response;
+            }
+        }
+        return response;
+    }
+
+    private static String confirmationNumber(JsonNode reservation) {
+        for (JsonNode id : reservation.get(0).get("reservationIds")) {
+            if ("Confirmation".equals(id.path("type").asText())) {
+                return id.path("id").asText();
+            }
+        }
+        throw new AssertionError("No confirmation number in " + reservation);
+    }
+
+    private ResponseEntity<JsonNode> get(String path) {
+        return exchange(path, HttpMethod.GET, null);
+    }
+
+    private ResponseEntity<JsonNode> exchange(String path, HttpMethod method, String body) {
+        return exchange(path, method, body, null);
+    }
+
+    private ResponseEntity<JsonNode> exchange(String path, HttpMethod method, String body, String ifMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifMatch != null) {
+            headers.setIfMatch(ifMatch);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer smoke-test");
+        headers.set("x-app-key", "smoke-test");
+        headers.set("x-channelCode", "SMOKE");
+        headers.set("x-request-id", "smoke-test");
+        return rest.exchange(path, method, new HttpEntity<>(body, headers), JsonNode.class);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClusterRoutingFilterTests {
+
+    static final String SECRET_VALUE = "routing-test-secret";
+    static final ClusterSecret SECRET = new ClusterSecret(true, SECRET_VALUE);
+
+    HttpServer peer;
+
+    @AfterEach
+    void stopPeer() {
+        if (peer != null) {
+            peer.stop(0);
+        }
+    }
+
+    @Test
+    void shopRequestsAreServedLocally() throws Exception {
+        ClusterRoutingFilter filter = filter("n1", "n1=http://localhost:1,n2=http://localhost:2");
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/shop/v1/hotels/XSBOXD1/offers"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getHeader(ClusterRoutingFilter.SERVED_BY)).isEqualTo("n1");
+    }
+
+    @Test
+    void writeFailsOverOnlyOnceThePrimaryIsSuspect() throws Exception {
+        String nodes = "n1=http://localhost:" + closedPort() + ",n2=http://localhost:" + closedPort();
+        ClusterRoutingFilter filter = filter("n1", nodes);
+        String hotel = hotelWithPrimary(nodes, "n2");
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(post(hotel), response, chain);
+            assertThat(response.getStatus()).as("attempt %d", attempt).isEqualTo(503);
+            assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+            assertThat(chain.getRequest()).isNull();
+        }
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(post(hotel), new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).as("served by the replica after the third failure").isNotNull();
+    }
+
+    @Test
+    void readFailsOverOnTheFirstFailure() throws Exception {
+        String nodes = "n1=http://localhost:" + closedPort() + ",n2=http://localhost:" + closedPort();
+        ClusterRoutingFilter filter = filter("n1", nodes);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET",
+                "/book/v1/hotels/" + hotelWithPrimary(nodes, "n2") + "/reservations/1234567"), response, chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getHeader(ClusterRoutingFilter.SERVED_BY)).isEqualTo("n1");
+    }
+
+    @Test
+    void forwardedWriteIsRefusedWhileThePrimaryAnswers() throws Exception {
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        AtomicReference<String> probeSecret = new AtomicReference<>();
+        peer.createContext("/", exchange -> {
+            probeSecret.set(exchange.getRequestHeaders().getFirst(ClusterSecret.HEADER));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        peer.start();
+        String nodes = "n1=http://localhost:" + closedPort() + ",n2=http://localhost:" + peer.getAddress().getPort();
+        ClusterRoutingFilter filter = filter("n1", nodes);
+
+        MockHttpServletRequest request = post(hotelWithPrimary(nodes, "n2"));
+        request.addHeader(ClusterRoutingFilter.FORWARDED_BY, "n3");
+        request.addHeader(ClusterSecret.HEADER, SECRET_VALUE);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(probeSecret.get()).isEqualTo(SECRET_VALUE);
+    }
+
+    @Test
+    void forwardedWriteIsAcceptedOnceThePrimaryIsConfirmedDown() throws Exception {
+        String nodes = "n1=http://localhost:" + closedPort() + ",n2=http://localhost:" + closedPort();
+        ClusterRoutingFilter filter = filter("n1", nodes);
+
+        MockHttpServletRequest request = post(hotelWithPrimary(nodes, "n2"));
+        request.addHeader(ClusterRoutingFilter.FORWARDED_BY, "n3");
+        request.addHeader(ClusterSecret.HEADER, SECRET_VALUE);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void forwardedWriteIsRefusedByANonOwner() throws Exception {
+        String nodes = "n1=http://localhost:1,n2=http://localhost:2,n3=http://localhost:3";
+        ClusterTopology topology = new ClusterTopology(true, "n1", nodes, 2, 128, 3);
+        String hotel = IntStream.range(0, 1000).mapToObj(i -> "H" + i)
+                .filter(code -> !topology.ownersOf(code).contains("n1"))
+                .findFirst().orElseThrow();
+        ClusterRoutingFilter filter = new ClusterRoutingFilter(topology, SECRET, new ObjectMapper());
+
+        MockHttpServletRequest request = post(hotel);
+        request.addHeader(ClusterRoutingFilter.FORWARDED_BY, "n2");
+        request.addHeader(ClusterSecret.HEADER, SECRET_VALUE);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void internalEndpointsNeedTheClusterSecret() throws Exception {
+        ClusterRoutingFilter filter = filter("n1", "n1=http://localhost:1,n2=http://localhost:2");
+
+        MockFilterChain refused = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/internal/cluster/v1/snapshot");
+        request.addHeader(ClusterSecret.HEADER, "not-the-cluster-secret");
+        filter.doFilter(request, response, refused);
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(refused.getRequest()).isNull();
+
+        MockFilterChain accepted = new MockFilterChain();
+        request = new MockHttpServletRequest("GET", "/internal/cluster/v1/snapshot");
+        request.addHeader(ClusterSecret.HEADER, SECRET_VALUE);
+        filter.doFilter(request, new MockHttpServletResponse(), accepted);
+        assertThat(accepted.getRequest()).isNotNull();
+    }
+
+    @Test
+    void forwardedRequestWithoutTheSecretIsRefused() throws Exception {
+        ClusterRoutingFilter filter = filter("n1", "n1=http://localhost:1,n2=http://localhost:2");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book/v1/hotels/H1/reservations/1234567");
+        request.addHeader(ClusterRoutingFilter.FORWARDED_BY, "n2");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void clusterModeNeedsASecret() {
+        assertThatThrownBy(() -> new ClusterSecret(true, "")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new ClusterSecret(true, "short")).isInstanceOf(IllegalStateException.class);
+        assertThat(new ClusterSecret(false, "").matches("")).isFalse();
+    }
+
+    static ClusterRoutingFilter filter(String nodeId, String nodes) {
+        return new ClusterRoutingFilter(new ClusterTopology(true, nodeId, nodes, 2, 128, 3), SECRET,
+                new ObjectMapper());
+    }
+
+    static String hotelWithPrimary(String nodes, String primary) {
+        ClusterTopology topology = new ClusterTopology(true, "n1", nodes, 2, 128, 3);
+        return IntStream.range(0, 1000).mapToObj(i -> "H" + i)
+                .filter(code -> topology.ownersOf(code).get(0).equals(primary))
+                .findFirst().orElseThrow();
+    }
+
+    static MockHttpServletRequest post(String hotel) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/book/v1/hotels/" + hotel + "/reservations");
+        request.setContent("{}".getBytes());
+        return request;
+    }
+
+    static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterTopologyTests {
+
+    static final String NODES = "n1=http://localhost:18081,n2=http://localhost:18082,n3=http://localhost:18083";
+
+    @Test
+    void ownersAreDistinctAndTheSameOnEveryNode() {
+        ClusterTopology n1 = new ClusterTopology(true, "n1", NODES, 2, 128, 3);
+        ClusterTopology n3 = new ClusterTopology(true, "n3", NODES, 2, 128, 3);
+
+        for (int i = 0; i < 500; i++) {
+            String hotel = "HOTEL" + i;
+            List<String> owners = n1.ownersOf(hotel);
+            assertThat(owners).hasSize(2).doesNotHaveDuplicates();
+            assertThat(n3.ownersOf(hotel)).isEqualTo(owners);
+        }
+    }
+
+    @Test
+    void primariesSpreadEvenlyOverTheNodes() {
+        ClusterTopology topology = new ClusterTopology(true, "n1", NODES, 2, 128, 3);
+        Map<String, Integer> primaries = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            primaries.merge(topology.ownersOf("H" + i).get(0), 1, Integer::sum);
+        }
+
+        assertThat(primaries).containsOnlyKeys("n1", "n2", "n3");
+        assertThat(primaries.values()).allSatisfy(count -> assertThat(count).isBetween(700, 1300));
+    }
+
+    @Test
+    void replicationFactorIsCappedByClusterSize() {
+        ClusterTopology topology = new ClusterTopology(true, "n1", NODES, 5, 128, 3);
+
+        assertThat(topology.ownersOf("XSBOXD1")).containsExactlyInAnyOrder("n1", "n2", "n3");
+    }
+
+    @Test
+    void nodeIsSuspectOnlyAfterConsecutiveFailures() {
+        ClusterTopology topology = new ClusterTopology(true, "n1", NODES, 2, 128, 3);
+
+        assertThat(topology.recordFailure("n2")).isFalse();
+        assertThat(topology.recordFailure("n2")).isFalse();
+        assertThat(topology.isSuspect("n2")).isFalse();
+        assertThat(topology.recordFailure("n2")).isTrue();
+        assertThat(topology.isSuspect("n2")).isTrue();
+
+        topology.recordSuccess("n2");
+        assertThat(topology.isSuspect("n2")).isFalse();
+        assertThat(topology.recordFailure("n2")).as("success resets the count").isFalse();
+    }
+
+    @Test
+    void takingOverStartsAnEpochAboveEveryOneSeen() {
+        ClusterTopology n1 = new ClusterTopology(true, "n1", NODES, 2, 128, 3);
+        ClusterTopology n2 = new ClusterTopology(true, "n2", NODES, 2, 128, 3);
+
+        long first = n1.writeEpoch("XSBOXD1");
+        assertThat(n1.writeEpoch("XSBOXD1")).isEqualTo(first);
+        assertThat(n2.observeEpoch("XSBOXD1", first)).isTrue();
+
+        long takeover = n2.writeEpoch("XSBOXD1");
+        assertThat(takeover).isGreaterThan(first);
+        assertThat(n1.observeEpoch("XSBOXD1", takeover)).isTrue();
+        assertThat(n2.observeEpoch("XSBOXD1", first)).as("the superseded owner is fenced").isFalse();
+
+        assertThat(n1.writeEpoch("XSBOXD1")).isGreaterThan(takeover);
+    }
+
+    @Test
+    void nodesNeverShareAnEpoch() {
+        ClusterTopology n1 = new ClusterTopology(true, "n1", NODES, 2, 128, 3);
+        ClusterTopology n2 = new ClusterTopology(true, "n2", NODES, 2, 128, 3);
+
+        // Both start writing without having seen the other, as on either side of a partition
+        assertThat(n1.writeEpoch("XSBOXD1")).isNotEqualTo(n2.writeEpoch("XSBOXD1"));
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.distributed_api_demo_backend.cluster;
+
+import com.example.distributed_api_demo_backend.exception.NotFoundException;
+import com.example.distributed_api_demo_backend.exception.ReplicationQuorumException;
+import com.example.distributed_api_demo_backend.exception.StaleOwnerException;
+import com.example.distributed_api_demo_backend.service.BookService;
+import com.example.distributed_api_demo_backend.service.BookingEventStream;
+import com.example.distributed_api_demo_backend.service.InventoryService;
+import com.example.distributed_api_demo_backend.service.ReservationIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservationReplicatorTests {
+
+    static final String HOTEL = "XSBOXD1";
+    static final String SECRET = "replication-test-secret";
+    static final LocalDate ARRIVAL = LocalDate.of(2026, 11, 2);
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final InventoryService inventory = new InventoryService(20, Duration.ofMinutes(15), Duration.ofSeconds(1), 60,
+            Duration.ofMinutes(1), new SimpleMeterRegistry());
+    final BookingEventStream events = new BookingEventStream(objectMapper, 1024);
+    HttpServer peer;
+    ClusterTopology topology;
+    ReservationReplicator replicator;
+    BookService bookService;
+
+    @AfterEach
+    void shutdown() {
+        if (peer != null) {
+            peer.stop(0);
+        }
+        events.shutdown();
+        inventory.shutdown();
+    }
+
+    @Test
+    void writeFromASupersededEpochIsRefused() throws Exception {
+        start(closedPort());
+
+        assertThat(replicator.apply(entry("1234567", 5, 1, body("Smith")))).isTrue();
+        assertThat(replicator.apply(entry("1234567", 3, 2, body("Jones")))).isFalse();
+
+        assertThat(bookService.getReservation(HOTEL, "1234567").body().path(0).path("guest").asText()).isEqualTo("Smith");
+        assertThat(topology.seenEpoch(HOTEL)).isEqualTo(5);
+    }
+
+    @Test
+    void newerEpochWinsOverAHigherVersion() throws Exception {
+        start(closedPort());
+
+        replicator.apply(entry("1234567", 1, 7, body("Smith")));
+        replicator.apply(entry("1234567", 2, 1, body("Jones")));
+
+        assertThat(bookService.getReservation(HOTEL, "1234567").version()).isEqualTo(1);
+        assertThat(bookService.getReservation(HOTEL, "1234567").epoch()).isEqualTo(2);
+    }
+
+    @Test
+    void redeliveredWriteDoesNotResurrectACancellation() throws Exception {
+        start(closedPort());
+
+        replicator.apply(entry("1234567", 1, 1, body("Smith")));
+        replicator.apply(entry("1234567", 1, 2, null));
+        replicator.apply(entry("1234567", 1, 1, body("Smith")));
+
+        assertThatThrownBy(() -> bookService.getReservation(HOTEL, "1234567")).isInstanceOf(NotFoundException.class);
+        assertThat(bookService.snapshot(hotel -> true)).hasEntrySatisfying("1234567", tombstone -> {
+            assertThat(tombstone.body()).isNull();
+            assertThat(tombstone.version()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void refusedWriteCatchesUpFromThePeerAndFails() throws Exception {
+        startPeer(409, objectMapper.createArrayNode().add(entry("7654321", 12, 3, null)));
+        start(peer.getAddress().getPort());
+
+        long epoch = replicator.writeEpoch(HOTEL);
+        assertThatThrownBy(() -> replicator.replicate(HOTEL, "1234567", epoch, 1, body("Smith"), null))
+                .isInstanceOf(StaleOwnerException.class);
+
+        assertThat(topology.seenEpoch(HOTEL)).isEqualTo(12);
+        assertThat(replicator.writeEpoch(HOTEL)).isGreaterThan(12);
+        for (int i = 0; i < 100 && !bookService.snapshot(hotel -> true).containsKey("7654321"); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(bookService.snapshot(hotel -> true)).containsKey("7654321");
+    }
+
+    @Test
+    void writeRefusedAsStaleLeavesReservationInventoryAndFeedAsTheyWere() throws Exception {
+        startPeer(409, objectMapper.createArrayNode());
+        start(peer.getAddress().getPort());
+        replicator.apply(entry("1234567", 1, 1, stay("Smith")));
+
+        assertThatThrownBy(() -> bookService.cancelReservation(HOTEL, "1234567"))
+                .isInstanceOf(StaleOwnerException.class);
+
+        assertUnchanged("1234567");
+    }
+
+    @Test
+    void writeWithoutAQuorumFailsAndIsNotStored() throws Exception {
+        start(closedPort());
+        replicator.apply(entry("1234567", 1, 1, stay("Smith")));
+
+        assertThatThrownBy(() -> bookService.cancelReservation(HOTEL, "1234567"))
+                .isInstanceOf(ReplicationQuorumException.class);
+
+        assertUnchanged("1234567");
+    }
+
+    @Test
+    void revertRestoresThePreviousVersionUnlessSuperseded() throws Exception {
+        start(closedPort());
+        replicator.apply(entry("1234567", 1, 1, stay("Smith")));
+        replicator.apply(entry("1234567", 1, 2, null));
+
+        ObjectNode revert = entry("1234567", 1, 2, null);
+        revert.set("previous", entry("1234567", 1, 1, stay("Smith")));
+        replicator.revert(revert);
+
+        assertUnchanged("1234567");
+
+        replicator.apply(entry("7654321", 1, 1, body("Jones")));
+        replicator.apply(entry("7654321", 1, 2, body("Brown")));
+        replicator.revert(entry("7654321", 1, 1, null));
+
+        assertThat(bookService.getReservation(HOTEL, "7654321").version()).isEqualTo(2);
+    }
+
+    void assertUnchanged(String confirmationNumber) {
+        assertThat(bookService.getReservation(HOTEL, confirmationNumber).version()).isEqualTo(1);
+        assertThat(inventory.available(HOTEL, "KING", ARRIVAL)).isEqualTo(19);
+        assertThat(events.read(0, 10, null).events()).isEmpty();
+    }
+
+    void startPeer(int replicateStatus, JsonNode snapshot) throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext(ReservationReplicator.REPLICATE_PATH, exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (!SECRET.equals(exchange.getRequestHeaders().getFirst(ClusterSecret.HEADER))) {
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+                return;
+            }
+            byte[] refusal = objectMapper.writeValueAsBytes(
+                    objectMapper.createObjectNode().put("hotelCode", HOTEL).put("epoch", 12));
+            exchange.sendResponseHeaders(replicateStatus, refusal.length);
+            exchange.getResponseBody().write(refusal);
+            exchange.close();
+        });
+        peer.createContext(ReservationReplicator.SNAPSHOT_PATH, exchange -> {
+            if (!SECRET.equals(exchange.getRequestHeaders().getFirst(ClusterSecret.HEADER))) {
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+                return;
+            }
+            byte[] entries = objectMapper.writeValueAsBytes(snapshot);
+            exchange.sendResponseHeaders(200, entries.length);
+            exchange.getResponseBody().write(entries);
+            exchange.close();
+        });
+        peer.start();
+    }
+
+    void start(int peerPort) throws IOException {
+        topology = new ClusterTopology(true, "n1",
+                "n1=http://localhost:" + closedPort() + ",n2=http://localhost:" + peerPort, 2, 128, 3);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        replicator = new ReservationReplicator(topology, new ClusterSecret(true, SECRET), objectMapper,
+                beans.getBeanProvider(BookService.class));
+        bookService = new BookService(objectMapper, new ReservationIndex(), inventory, events, replicator);
+        bookService.loadTestData();
+        beans.addBean("bookService", bookService);
+    }
+
+    ObjectNode entry(String confirmationNumber, long epoch, long version, JsonNode reservation) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("origin", "n2");
+        entry.put("hotelCode", HOTEL);
+        entry.put("confirmationNumber", confirmationNumber);
+        entry.put("epoch", epoch);
+        entry.put("version", version);
+        entry.set("reservation", reservation);
+        return entry;
+    }
+
+    JsonNode body(String guest) {
+        ArrayNode reservations = objectMapper.createArrayNode();
+        reservations.addObject().put("guest", guest);
+        return reservations;
+    }
+
+    JsonNode stay(String guest) {
+        ArrayNode reservations = objectMapper.createArrayNode();
+        ObjectNode roomStay = reservations.addObject().put("guest", guest).putObject("roomStay");
+        roomStay.put("arrivalDate", ARRIVAL.toString());
+        roomStay.put("departureDate", ARRIVAL.plusDays(2).toString());
+        roomStay.putArray("roomRates").addObject().put("roomType", "KING").put("numberOfUnits", 1);
+        return reservations;
+    }
+
+    static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.distributed_api_demo_backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class LazyAgentConfigTests {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void springAiBeansAreNotCreatedAtStartup() {
+        List<String> springAiBeans = new ArrayList<>();
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            String type = definition.getFactoryBeanName() != null
+                    ? beanFactory.getBeanDefinition(definition.getFactoryBeanName()).getBeanClassName()
+                    : definition.getBeanClassName();
+            if (type != null && type.startsWith("org.springframework.ai.")) {
+                springAiBeans.add(name);
+                assertThat(definition.isLazyInit()).as("%s is lazy", name).isTrue();
+            }
+        }
+
+        // Micrometer pulls in the observation handlers; the models and their HTTP clients must wait for a call
+        List<String> clients = List.of("openAiChatModel", "openAiEmbeddingModel", "openAiImageModel",
+                "openAiAudioTranscriptionModel", "openAiModerationClient", "openAiAudioSpeechClient",
+                "chatClientBuilder", "retryTemplate");
+        assertThat(springAiBeans).containsAll(clients);
+        assertThat(clients).noneMatch(beanFactory::containsSingleton);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.distributed_api_demo_backend.controller;
+
+import com.example.distributed_api_demo_backend.service.SequencedRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SsePumpTests {
+
+    final SequencedRing<String> ring = new SequencedRing<>("test", 4);
+
+    @AfterEach
+    void shutdown() {
+        ring.shutdown();
+    }
+
+    @Test
+    void sendsGapThenEventsFromTheOldestRetainedEntry() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            ring.publish(Long::toString);
+        }
+        RecordingEmitter emitter = new RecordingEmitter(4);
+
+        start(emitter, 1);
+
+        assertThat(emitter.outcome.get(5, TimeUnit.SECONDS)).isInstanceOf(IOException.class);
+        assertThat(emitter.sent).hasSize(4);
+        assertThat(emitter.sent.get(0)).contains("event:gap");
+        assertThat(emitter.sent.get(1)).contains("id:3").contains("data:3");
+        assertThat(emitter.sent.get(3)).contains("id:5");
+    }
+
+    @Test
+    void completesTheEmitterWhenTheClientIsGone() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(1);
+        ring.publish(Long::toString);
+        ring.publish(Long::toString);
+
+        start(emitter, 1);
+
+        assertThat(emitter.outcome.get(5, TimeUnit.SECONDS))
+                .as("completeWithError releases the async request")
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void completesTheEmitterWhenTheFeedFails() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(10);
+
+        SsePump.start(emitter, "test-sse", 1,
+                (cursor, limit, timeout) -> CompletableFuture.failedFuture(new IllegalStateException("feed down")),
+                batch -> "gap", value -> SseEmitter.event().data(value));
+
+        assertThat(emitter.outcome.get(5, TimeUnit.SECONDS)).hasMessage("feed down");
+    }
+
+    private void start(RecordingEmitter emitter, long fromSequence) {
+        SsePump.start(emitter, "test-sse", fromSequence,
+                (cursor, limit, timeout) -> ring.poll(cursor, limit, value -> true, timeout),
+                batch -> "gap",
+                value -> SseEmitter.event().id(value).data(value));
+    }
+
+    /**
+     * Captures what the pump sends and fails every send after {@code accepted}, like a disconnected client.
+     */
+    static class RecordingEmitter extends SseEmitter {
+
+        final List<String> sent = new ArrayList<>();
+        final CompletableFuture<Throwable> outcome = new CompletableFuture<>();
+        private final int accepted;
+
+        RecordingEmitter(int accepted) {
+            super(0L);
+            this.accepted = accepted;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (sent.size() == accepted) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            sent.add(event.toString().replace("\n", "|"));
+        }
+
+        @Override
+        public void complete() {
+            outcome.complete(null);
+        }
+
+        @Override
+        public void completeWithError(Throwable error) {
+            outcome.complete(error);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.distributed_api_demo_backend.diagnostics;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightRecorderEndpointTests {
+
+    final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint();
+    final List<Long> started = new ArrayList<>();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(endpoint, "continuousMaxAge", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(endpoint, "continuousThreshold", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(endpoint, "maxDuration", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void closeRecordings() {
+        started.forEach(endpoint::stop);
+        endpoint.stopContinuous();
+    }
+
+    @Test
+    void continuousRecordingUsesTheTrimmedSettings() {
+        ReflectionTestUtils.setField(endpoint, "continuousEnabled", true);
+        endpoint.startContinuous();
+        Recording continuous = (Recording) ReflectionTestUtils.getField(endpoint, "continuous");
+        assertThat(continuous.getName()).isEqualTo("continuous");
+        assertNoSecrets(continuous);
+        assertThat(continuous.getSettings())
+                .containsEntry(EventType.getEventType(BookingOperationEvent.class).getId() + "#enabled", "true")
+                .containsEntry("jdk.GarbageCollection#enabled", "true")
+                .containsEntry("jdk.SafepointBegin#threshold", "10 ms")
+                .containsEntry("jdk.ThreadPark#threshold", "50 ms")
+                .containsEntry("jdk.ExecutionSample#period", "200 ms")
+                .doesNotContainKey("jdk.ObjectAllocationSample#enabled")
+                .doesNotContainKey("jdk.NativeMethodSample#enabled");
+    }
+
+    @Test
+    void continuousRecordingCanBeTurnedOff() {
+        int before = FlightRecorder.getFlightRecorder().getRecordings().size();
+        ReflectionTestUtils.setField(endpoint, "continuousEnabled", false);
+        endpoint.startContinuous();
+        assertThat(FlightRecorder.getFlightRecorder().getRecordings()).hasSize(before);
+    }
+
+    @Test
+    void onDemandRecordingsLeaveOutEnvironmentAndSystemProperties() {
+        for (String settings : new String[] {null, "default", "profile"}) {
+            Recording recording = recording(endpoint.start(settings, 5));
+            assertNoSecrets(recording);
+            assertThat(recording.getSettings())
+                    .containsEntry(EventType.getEventType(BookingOperationEvent.class).getId() + "#enabled", "true");
+        }
+    }
+
+    @Test
+    void onlyTheJdkSettingsAreAccepted() {
+        for (String settings : new String[] {"custom", "/etc/passwd", "../profile", ""}) {
+            assertThatThrownBy(() -> endpoint.start(settings, 5))
+                    .as(settings)
+                    .isInstanceOf(InvalidEndpointRequestException.class);
+        }
+    }
+
+    @Test
+    void durationIsClamped() {
+        assertThat(recording(endpoint.start(null, null)).getDuration()).isEqualTo(Duration.ofSeconds(60));
+        assertThat(recording(endpoint.start(null, 86_400)).getDuration()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(recording(endpoint.start(null, 0)).getDuration()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(recording(endpoint.start(null, -30)).getDuration()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void listsAndClosesRecordings() {
+        FlightRecorderEndpoint.RecordingInfo info = endpoint.start("default", 5);
+
+        @SuppressWarnings("unchecked")
+        List<FlightRecorderEndpoint.RecordingInfo> listed =
+                (List<FlightRecorderEndpoint.RecordingInfo>) endpoint.recordings().get("recordings");
+        assertThat(listed).extracting(FlightRecorderEndpoint.RecordingInfo::id).contains(info.id());
+        assertThat(endpoint.recordings()).containsEntry("available", true);
+
+        assertThat(endpoint.stop(info.id()).getStatus()).isEqualTo(204);
+        assertThat(endpoint.stop(info.id()).getStatus()).isEqualTo(404);
+        assertThat(endpoint.dump(info.id()).getStatus()).isEqualTo(404);
+    }
+
+    Recording recording(FlightRecorderEndpoint.RecordingInfo info) {
+        started.add(info.id());
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> recording.getId() == info.id())
+                .findFirst().orElseThrow();
+    }
+
+    static void assertNoSecrets(Recording recording) {
+        Map<String, String> settings = recording.getSettings();
+        assertThat(settings)
+                .containsEntry("jdk.InitialEnvironmentVariable#enabled", "false")
+                .containsEntry("jdk.InitialSystemProperty#enabled", "false");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.distributed_api_demo_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AgentPromptBuilderTests {
+
+    final ShopService shopService = mock(ShopService.class);
+    final RatePricingEngine ratePricingEngine = mock(RatePricingEngine.class);
+    final AgentPromptBuilder builder = new AgentPromptBuilder(shopService, ratePricingEngine);
+
+    @Test
+    void amountOffUsesTheFractionDigitsOfItsCurrency() {
+        when(shopService.propertyCatalogue()).thenReturn(List.of());
+        when(ratePricingEngine.baseRatePlanCode()).thenReturn("FLEX");
+        when(ratePricingEngine.rules()).thenReturn(List.of(
+                amountOff("MEMBER", 1500, "USD"),
+                amountOff("JPMEMBER", 2000, "JPY"),
+                amountOff("KWMEMBER", 12345, "KWD")));
+
+        String text = builder.rebuild().text();
+
+        assertThat(text).contains(" MEMBER|Member|15 USD off/night, ")
+                .contains(" JPMEMBER|Member|2000 JPY off/night, ")
+                .contains(" KWMEMBER|Member|12.345 KWD off/night, ");
+    }
+
+    @Test
+    void unchangedCatalogueKeepsThePromptVersion() {
+        when(shopService.propertyCatalogue()).thenReturn(List.of());
+        when(ratePricingEngine.baseRatePlanCode()).thenReturn("FLEX");
+        when(ratePricingEngine.rules()).thenReturn(List.of(amountOff("MEMBER", 1500, "USD")));
+
+        AgentPromptBuilder.AgentPrompt first = builder.rebuild();
+
+        assertThat(builder.rebuild()).isSameAs(first);
+        assertThat(builder.current()).isSameAs(first);
+    }
+
+    static RatePlanRule amountOff(String ratePlanCode, long amountOffMinor, String currency) {
+        return new RatePlanRule(ratePlanCode, "Member", "MEMBER", 0, amountOffMinor, currency,
+                0, 0, 0, 0, 0, false, null, "Non-refundable");
+    }
+}
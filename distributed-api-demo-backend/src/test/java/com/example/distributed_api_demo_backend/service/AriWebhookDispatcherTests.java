@@ -0,0 +1,136 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.cluster.ClusterTopology;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AriWebhookDispatcherTests {
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final AriDeltaFeed feed = mock(AriDeltaFeed.class);
+    final ClusterTopology singleNode = new ClusterTopology(false, "local", "", 1, 1, 3);
+    AriWebhookDispatcher dispatcher;
+    HttpServer channel;
+
+    @AfterEach
+    void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (channel != null) {
+            channel.stop(0);
+        }
+    }
+
+    @Test
+    void callbacksToInternalAndPrivateAddressesAreRejected() {
+        dispatcher = new AriWebhookDispatcher(feed, objectMapper, singleNode, "", false);
+
+        for (String callback : List.of("http://localhost:9000/hook", "http://127.0.0.1/hook", "http://10.1.2.3/hook",
+                "http://172.16.0.1/hook", "http://192.168.1.1/hook", "http://169.254.169.254/latest/meta-data",
+                "http://100.64.0.1/hook", "http://0.0.0.0/hook", "http://[::1]/hook", "http://[fd00::1]/hook",
+                "http://[fe80::1]/hook", "ftp://example.com/hook", "http://example.com/internal/cluster/v1/replicate")) {
+            assertThatThrownBy(() -> dispatcher.subscribe("CH", URI.create(callback), Set.of(), 0))
+                    .as(callback)
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+        assertThat(dispatcher.listSubscriptions().path("subscriptions")).isEmpty();
+    }
+
+    @Test
+    void callbacksOutsideTheAllowlistAreRejected() {
+        dispatcher = new AriWebhookDispatcher(feed, objectMapper, singleNode, "hooks.example.com", true);
+
+        assertThatThrownBy(() -> dispatcher.checkCallback(URI.create("https://other.example.com/ari")))
+                .isInstanceOf(InvalidRequestException.class);
+        dispatcher.checkCallback(URI.create("https://HOOKS.example.com/ari"));
+    }
+
+    @Test
+    void callbacksToClusterNodesAreRejected() {
+        ClusterTopology cluster = new ClusterTopology(true, "n1",
+                "n1=http://10.0.0.5:8081,n2=http://10.0.0.6:8081", 2, 16, 3);
+        dispatcher = new AriWebhookDispatcher(feed, objectMapper, cluster, "", true);
+
+        assertThatThrownBy(() -> dispatcher.checkCallback(URI.create("http://10.0.0.6:8081/book/v1/hotels/X/reservations")))
+                .isInstanceOf(InvalidRequestException.class);
+        dispatcher.checkCallback(URI.create("http://10.0.0.6:9000/ari"));
+    }
+
+    @Test
+    void unsubscribeRightAfterSubscribeStopsTheSender() {
+        when(feed.poll(anyLong(), anyInt(), any(), any())).thenAnswer(invocation -> new CompletableFuture<>());
+        dispatcher = new AriWebhookDispatcher(feed, objectMapper, singleNode, "", true);
+
+        for (int i = 0; i < 200; i++) {
+            String id = dispatcher.subscribe("CH", URI.create("http://localhost:9/ari"), Set.of(), 0)
+                    .path("subscriptionId").asText();
+            dispatcher.unsubscribe(id);
+        }
+        assertThat(dispatcher.listSubscriptions().path("subscriptions")).isEmpty();
+    }
+
+    @Test
+    void stoppedSenderIsListedAsInactive() throws Exception {
+        when(feed.poll(anyLong(), anyInt(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("feed closed")));
+        dispatcher = new AriWebhookDispatcher(feed, objectMapper, singleNode, "", true);
+
+        dispatcher.subscribe("CH", URI.create("http://localhost:9/ari"), Set.of(), 0);
+
+        JsonNode subscription = null;
+        for (int i = 0; i < 100 && (subscription == null || subscription.path("active").asBoolean()); i++) {
+            Thread.sleep(20);
+            subscription = dispatcher.listSubscriptions().path("subscriptions").path(0);
+        }
+        assertThat(subscription.path("active").asBoolean()).isFalse();
+        assertThat(subscription.path("lastError").asText()).contains("feed closed");
+    }
+
+    @Test
+    void batchesArePostedToTheCallback() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        channel = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        channel.createContext("/ari", exchange -> {
+            received.add(exchange.getRequestHeaders().getFirst("x-subscription-id") + " "
+                    + new String(exchange.getRequestBody().readAllBytes()));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        channel.start();
+
+        AriDeltaFeed.AriDelta delta = new AriDeltaFeed.AriDelta(1, 1, "XSBOXD1", "2024-12-01T00:00:00Z", List.of());
+        when(feed.poll(anyLong(), anyInt(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new SequencedRing.Batch<>(List.of(delta), 2, 1, false)))
+                .thenAnswer(invocation -> new CompletableFuture<>());
+        when(feed.toJson(ArgumentMatchers.<SequencedRing.Batch<AriDeltaFeed.AriDelta>>any())).thenAnswer(invocation -> objectMapper.createObjectNode().put("nextSequence", 2));
+        dispatcher = new AriWebhookDispatcher(feed, objectMapper, singleNode, "", true);
+
+        String id = dispatcher.subscribe("CH", URI.create("http://localhost:" + channel.getAddress().getPort() + "/ari"),
+                Set.of(), 0).path("subscriptionId").asText();
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).startsWith(id + " ").contains("\"nextSequence\":2");
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.cluster.ClusterSecret;
+import com.example.distributed_api_demo_backend.cluster.ClusterTopology;
+import com.example.distributed_api_demo_backend.cluster.ReservationReplicator;
+import com.example.distributed_api_demo_backend.diagnostics.BookingOperationEvent;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.NoAvailabilityException;
+import com.example.distributed_api_demo_backend.exception.NotFoundException;
+import com.example.distributed_api_demo_backend.exception.ReplicationQuorumException;
+import com.example.distributed_api_demo_backend.exception.VersionConflictException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookServiceTests {
+
+    static final String HOTEL = "XSBOXD1";
+    static final LocalDate ARRIVAL = LocalDate.of(2024, 12, 10);
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final ReservationIndex index = new ReservationIndex();
+    final InventoryService inventory = new InventoryService(20, Duration.ofMinutes(15), Duration.ofSeconds(1), 60,
+            Duration.ofMinutes(1), new SimpleMeterRegistry());
+    final BookingEventStream events = new BookingEventStream(objectMapper, 1024);
+    final BookService bookService = new BookService(objectMapper, index, inventory, events,
+            new ReservationReplicator(new ClusterTopology(false, "local", "", 1, 1, 3),
+                    new ClusterSecret(false, ""), objectMapper, null));
+
+    @BeforeEach
+    void loadTemplates() {
+        bookService.loadTestData();
+    }
+
+    @AfterEach
+    void shutdown() {
+        events.shutdown();
+        inventory.shutdown();
+    }
+
+    @Test
+    void indexAndFeedFollowTheStoreWhenModifyRacesCancel() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> racers = List.of(
+                        pool.submit(() -> quietly(start, () -> modify(confirmation, ARRIVAL.plusDays(1), ARRIVAL.plusDays(3)))),
+                        pool.submit(() -> quietly(start, () -> modify(confirmation, ARRIVAL.plusDays(2), ARRIVAL.plusDays(4)))),
+                        pool.submit(() -> quietly(start, () -> bookService.cancelReservation(HOTEL, confirmation))));
+                start.countDown();
+                for (Future<?> racer : racers) {
+                    racer.get();
+                }
+
+                assertThat(index.hotelOf(confirmation)).as("cancelled reservation left in the index").isNull();
+                assertThat(index.findBySurname(HOTEL, "Smith")).doesNotContain(confirmation);
+                assertThat(index.findByArrival(HOTEL, null, null, 1000)).doesNotContain(confirmation);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentModifiesLeaveTheIndexOnTheStoredBody() throws Exception {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(1));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> racers = List.of(
+                    pool.submit(() -> quietly(start, () -> {
+                        for (int i = 0; i < 200; i++) {
+                            modify(confirmation, ARRIVAL.plusDays(i % 5), ARRIVAL.plusDays(i % 5 + 1));
+                        }
+                    })),
+                    pool.submit(() -> quietly(start, () -> {
+                        for (int i = 0; i < 200; i++) {
+                            modify(confirmation, ARRIVAL.plusDays(7 - i % 3), ARRIVAL.plusDays(8 - i % 3));
+                        }
+                    })));
+            start.countDown();
+            for (Future<?> racer : racers) {
+                racer.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        StoredReservation stored = bookService.getReservation(HOTEL, confirmation);
+        LocalDate arrival = LocalDate.parse(stored.body().path(0).path("roomStay").path("arrivalDate").asText());
+        assertThat(index.findByArrival(HOTEL, arrival, arrival, 10)).containsExactly(confirmation);
+        assertThat(index.findByArrival(HOTEL, null, null, 10)).containsExactly(confirmation);
+
+        long previous = 0;
+        for (BookingEventStream.BookingEvent event : events.read(1, 1000, HOTEL).events()) {
+            assertThat(event.version()).as("feed order follows version order").isEqualTo(previous + 1);
+            previous = event.version();
+        }
+        assertThat(previous).isEqualTo(stored.version());
+    }
+
+    @Test
+    void modifyCopiesOnlyTheChangedPath() {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2));
+        StoredReservation before = bookService.getReservation(HOTEL, confirmation);
+
+        StoredReservation after = modify(confirmation, null, ARRIVAL.plusDays(3));
+
+        JsonNode old = before.body().get(0);
+        JsonNode updated = after.body().get(0);
+        assertThat(updated.path("roomStay").path("departureDate").asText()).isEqualTo("2024-12-13");
+        assertThat(updated.path("roomStay").path("roomRates").get(0).path("end").asText()).isEqualTo("2024-12-12");
+        assertThat(old.path("roomStay").path("departureDate").asText()).as("previous version untouched")
+                .isEqualTo("2024-12-12");
+        assertThat(updated.get("reservationGuests")).isSameAs(old.get("reservationGuests"));
+        assertThat(updated.get("roomStay")).isNotSameAs(old.get("roomStay"));
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+        assertThat(after.eTag()).isNotEqualTo(before.eTag());
+    }
+
+    @Test
+    void staleExpectedVersionIsRejected() {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2));
+        bookService.modifyReservation(HOTEL, confirmation, request(null, ARRIVAL.plusDays(3), null), 1L);
+
+        assertThatThrownBy(() -> bookService.modifyReservation(HOTEL, confirmation,
+                request(null, ARRIVAL.plusDays(4), null), 1L))
+                .isInstanceOf(VersionConflictException.class);
+        assertThat(bookService.getReservation(HOTEL, confirmation).version()).isEqualTo(2);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(3))).isEqualTo(20);
+    }
+
+    @Test
+    void shiftingDatesMovesOnlyTheChangedNights() {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2));
+        modify(confirmation, ARRIVAL.plusDays(1), ARRIVAL.plusDays(3));
+
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL)).isEqualTo(20);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(1))).isEqualTo(19);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(2))).isEqualTo(19);
+
+        bookService.cancelReservation(HOTEL, confirmation);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(1))).isEqualTo(20);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(2))).isEqualTo(20);
+    }
+
+    @Test
+    void changingUnitsAtFullOccupancyOnlyTakesTheDifference() {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2), 20);
+
+        bookService.modifyReservation(HOTEL, confirmation, request(null, null, 12), null);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL)).isEqualTo(8);
+
+        bookService.modifyReservation(HOTEL, confirmation, request(null, ARRIVAL.plusDays(3), 20), null);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL)).isZero();
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(2))).isZero();
+    }
+
+    @Test
+    void failedUnitIncreaseReleasesTheAddedNights() {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2), 10);
+        create(ARRIVAL, ARRIVAL.plusDays(2), 10);
+
+        assertThatThrownBy(() -> bookService.modifyReservation(HOTEL, confirmation,
+                request(null, ARRIVAL.plusDays(3), 11), null))
+                .isInstanceOf(NoAvailabilityException.class);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL)).isZero();
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL.plusDays(2))).isEqualTo(20);
+        assertThat(bookService.getReservation(HOTEL, confirmation).version()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidDateIsAValidationError() {
+        String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2));
+        ObjectNode request = request(null, null, null);
+        ((ObjectNode) request.at("/reservations/0/roomStay")).put("arrivalDate", "10/12/2024");
+
+        assertThatThrownBy(() -> bookService.modifyReservation(HOTEL, confirmation, request, null))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> modify(confirmation, ARRIVAL.plusDays(2), ARRIVAL.plusDays(1)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void bookingOperationsAreRecordedWithTheirOutcome() throws Exception {
+        Path file = Files.createTempFile("booking-", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(BookingOperationEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            String confirmation = create(ARRIVAL, ARRIVAL.plusDays(2));
+            assertThatThrownBy(() -> bookService.cancelReservation(HOTEL, "0000000"))
+                    .isInstanceOf(NotFoundException.class);
+            bookService.cancelReservation(HOTEL, confirmation);
+            recording.stop();
+            recording.dump(file);
+
+            List<String> recorded = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.example.distribution.BookingOperation"))
+                    .map(event -> event.getString("operation") + " " + event.getString("confirmationNumber") + " "
+                            + event.getBoolean("succeeded") + " " + event.getString("hotelCode"))
+                    .toList();
+            assertThat(recorded).containsExactlyInAnyOrder("create " + confirmation + " true " + HOTEL,
+                    "cancel 0000000 false " + HOTEL, "cancel " + confirmation + " true " + HOTEL);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void failedCreateHandsTheHoldBackAndStoresNothing() throws Exception {
+        int unreachable;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            unreachable = socket.getLocalPort();
+        }
+        ClusterTopology topology = new ClusterTopology(true, "n1",
+                "n1=http://localhost:1,n2=http://localhost:" + unreachable, 2, 128, 3);
+        BookService clustered = new BookService(objectMapper, index, inventory, events, new ReservationReplicator(
+                topology, new ClusterSecret(true, "book-service-test-secret"), objectMapper, null));
+        clustered.loadTestData();
+        LocalDate departure = ARRIVAL.plusDays(2);
+        InventoryService.Hold hold = inventory.hold("conversation", "test", HOTEL, "A1K", ARRIVAL, departure, 1);
+        ReservationChange stay = new ReservationChange(ARRIVAL, departure, "A1K", "FLEX", 1, null, 1);
+
+        assertThatThrownBy(() -> clustered.createReservation(HOTEL,
+                new BookingRequest(false, "Smith", "John", "john.smith@example.com", stay), hold.holdId()))
+                .isInstanceOf(ReplicationQuorumException.class);
+
+        assertThat(inventory.getHold(hold.holdId())).isEqualTo(hold);
+        assertThat(inventory.available(HOTEL, "A1K", ARRIVAL)).isEqualTo(19);
+        assertThat(clustered.snapshot(hotel -> true)).isEmpty();
+        assertThat(index.findByArrival(HOTEL, ARRIVAL, departure, 10)).isEmpty();
+        assertThat(events.read(0, 10, null).events()).isEmpty();
+    }
+
+    String create(LocalDate arrival, LocalDate departure) {
+        return create(arrival, departure, 1);
+    }
+
+    String create(LocalDate arrival, LocalDate departure, int units) {
+        // A live hold skips the simulated sold-out response, so creation is deterministic
+        InventoryService.Hold hold = inventory.hold("conversation", "test", HOTEL, "A1K", arrival, departure, units);
+        ReservationChange stay = new ReservationChange(arrival, departure, "A1K", "FLEX", 1, null, units);
+        JsonNode created = bookService.createReservation(HOTEL,
+                new BookingRequest(false, "Smith", "John", "john.smith@example.com", stay), hold.holdId());
+        for (JsonNode id : created.path(0).path("reservationIds")) {
+            if ("Confirmation".equals(id.path("type").asText())) {
+                return id.path("id").asText();
+            }
+        }
+        throw new AssertionError("No confirmation number in " + created);
+    }
+
+    StoredReservation modify(String confirmation, LocalDate arrival, LocalDate departure) {
+        return bookService.modifyReservation(HOTEL, confirmation, request(arrival, departure, null), null);
+    }
+
+    ObjectNode request(LocalDate arrival, LocalDate departure, Integer units) {
+        ObjectNode request = objectMapper.createObjectNode();
+        ObjectNode roomStay = request.putArray("reservations").addObject().putObject("roomStay");
+        if (arrival != null) {
+            roomStay.put("arrivalDate", arrival.toString());
+        }
+        if (departure != null) {
+            roomStay.put("departureDate", departure.toString());
+        }
+        if (units != null) {
+            roomStay.putArray("roomRates").addObject().put("numberOfUnits", units);
+        }
+        return request;
+    }
+
+    private static void quietly(CountDownLatch start, Runnable action) {
+        try {
+            start.await();
+            action.run();
+        } catch (NotFoundException e) {
+            // lost the race to a cancellation
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
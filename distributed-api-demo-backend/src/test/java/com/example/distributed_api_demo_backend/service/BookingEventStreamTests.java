@@ -0,0 +1,64 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingEventStreamTests {
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final BookingEventStream stream = new BookingEventStream(objectMapper, 16);
+
+    @AfterEach
+    void shutdown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void filtersByHotelAndKeepsGlobalSequenceNumbers() {
+        stream.publish(BookingEventStream.EventType.RESERVATION_CREATED, "H1", "1", 1, objectMapper.createObjectNode());
+        stream.publish(BookingEventStream.EventType.RESERVATION_CREATED, "H2", "2", 1, objectMapper.createObjectNode());
+        long modified = stream.publish(BookingEventStream.EventType.RESERVATION_MODIFIED, "H1", "1", 2,
+                objectMapper.createObjectNode());
+
+        SequencedRing.Batch<BookingEventStream.BookingEvent> batch = stream.read(0, 10, "H1");
+        assertThat(batch.events()).extracting(BookingEventStream.BookingEvent::sequence).containsExactly(1L, modified);
+        assertThat(batch.nextSequence()).isEqualTo(4);
+        assertThat(stream.read(0, 10, null).events()).hasSize(3);
+    }
+
+    @Test
+    void pollWakesForTheRequestedHotelOnly() throws Exception {
+        CompletableFuture<SequencedRing.Batch<BookingEventStream.BookingEvent>> poll =
+                stream.poll(1, 10, "H1", Duration.ofSeconds(10));
+
+        stream.publish(BookingEventStream.EventType.RESERVATION_CREATED, "H2", "2", 1, objectMapper.createObjectNode());
+        stream.publish(BookingEventStream.EventType.RESERVATION_CANCELLED, "H1", "1", 2, objectMapper.createObjectNode());
+
+        assertThat(poll.get(5, TimeUnit.SECONDS).events())
+                .extracting(BookingEventStream.BookingEvent::type)
+                .containsExactly(BookingEventStream.EventType.RESERVATION_CANCELLED);
+    }
+
+    @Test
+    void serialisesEventsAndBatches() {
+        ObjectNode reservation = objectMapper.createObjectNode().put("hotelId", "H1");
+        stream.publish(BookingEventStream.EventType.RESERVATION_CREATED, "H1", "1", 1, reservation);
+
+        ObjectNode json = stream.toJson(stream.read(0, 10, null));
+        assertThat(json.path("nextSequence").asLong()).isEqualTo(2);
+        assertThat(json.path("truncated").asBoolean()).isFalse();
+        ObjectNode event = (ObjectNode) json.path("events").get(0);
+        assertThat(event.path("eventType").asText()).isEqualTo("RESERVATION_CREATED");
+        assertThat(event.path("confirmationNumber").asText()).isEqualTo("1");
+        assertThat(event.path("version").asLong()).isEqualTo(1);
+        assertThat(event.path("reservation")).isEqualTo(reservation);
+    }
+}
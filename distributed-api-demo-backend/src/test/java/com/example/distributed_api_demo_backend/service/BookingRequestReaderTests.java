@@ -0,0 +1,109 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.PayloadTooLargeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookingRequestReaderTests {
+
+    static final String REQUEST = """
+            {"reservations":[{"roomStay":{"arrivalDate":"2024-12-10","departureDate":"2024-12-12",
+              "guestCounts":{"adults":%s,"children":0},
+              "roomRates":[{"roomType":"A1K","ratePlanCode":"FLEX","numberOfUnits":1}],
+              "guarantee":{"creditCard":{"number":"4111111111111111"}}},
+             "reservationGuests":[{"profileInfo":{"profile":{"customer":{"personName":[
+               {"surname":"Smith","givenName":"John","email":"john@example.com"}]}}}}]}]}
+            """;
+
+    final BookingRequestReader reader = new BookingRequestReader(1024);
+
+    @Test
+    void readsTheFirstReservation() {
+        BookingRequest request = read(REQUEST.formatted("2"));
+
+        assertThat(request.creditCardGuarantee()).isTrue();
+        assertThat(request.surname()).isEqualTo("Smith");
+        assertThat(request.givenName()).isEqualTo("John");
+        assertThat(request.email()).isEqualTo("john@example.com");
+        assertThat(request.stay().arrivalDate()).isEqualTo(LocalDate.of(2024, 12, 10));
+        assertThat(request.stay().departureDate()).isEqualTo(LocalDate.of(2024, 12, 12));
+        assertThat(request.stay().roomType()).isEqualTo("A1K");
+        assertThat(request.stay().adults()).isEqualTo(2);
+        assertThat(request.stay().numberOfUnits()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownFieldsAndFurtherReservationsAreSkipped() {
+        BookingRequest request = read("""
+                {"channel":{"deep":[1,{"x":[true,null]}]},"reservations":[
+                  {"comments":[{"text":"late arrival"}],"roomStay":{"arrivalDate":"2024-12-10","extra":{"a":1},
+                   "roomRates":[{"roomType":"A1K","unknown":[1,2]},{"roomType":"B2Q"}]}},
+                  {"roomStay":{"arrivalDate":"2030-01-01"}}]}
+                """);
+
+        assertThat(request.stay().arrivalDate()).isEqualTo(LocalDate.of(2024, 12, 10));
+        assertThat(request.stay().roomType()).isEqualTo("A1K");
+        assertThat(request.creditCardGuarantee()).isFalse();
+    }
+
+    @Test
+    void numericStringsAreAcceptedForIntegers() {
+        assertThat(read(REQUEST.formatted("\"3\"")).stay().adults()).isEqualTo(3);
+        assertThat(read(REQUEST.formatted("null")).stay().adults()).isNull();
+    }
+
+    @Test
+    void wrongTypesAreRejected() {
+        for (String adults : new String[] {"\"two\"", "\"\"", "2.5", "true", "{}", "[2]", "99999999999"}) {
+            assertThatThrownBy(() -> read(REQUEST.formatted(adults)))
+                    .as(adults)
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+        assertThatThrownBy(() -> read("{\"reservations\":[{\"roomStay\":{\"arrivalDate\":\"10/12/2024\"}}]}"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> read("[]")).isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void truncatedOrTrailingInputIsRejected() {
+        String request = REQUEST.formatted("2");
+        for (int length : new int[] {1, 20, request.length() / 2, request.length() - 3}) {
+            assertThatThrownBy(() -> read(request.substring(0, length)))
+                    .as("first %d chars", length)
+                    .isInstanceOf(InvalidRequestException.class);
+        }
+        assertThatThrownBy(() -> read(request + "{}")).isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void deepNestingIsRejected() {
+        String nested = "{\"a\":".repeat(40) + "1" + "}".repeat(40);
+
+        assertThatThrownBy(() -> read(nested)).isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void oversizedBodiesAreRejectedWithOrWithoutContentLength() {
+        byte[] padded = ("{\"padding\":\"" + "x".repeat(2000) + "\"}").getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> reader.read(new ByteArrayInputStream(padded), padded.length))
+                .isInstanceOf(PayloadTooLargeException.class);
+        assertThatThrownBy(() -> reader.read(new ByteArrayInputStream(padded), -1))
+                .isInstanceOf(PayloadTooLargeException.class);
+
+        byte[] exact = ("{\"padding\":\"" + "x".repeat(1024 - 14) + "\"}").getBytes(StandardCharsets.UTF_8);
+        assertThat(exact).hasSize(1024);
+        assertThat(reader.read(new ByteArrayInputStream(exact), -1).stay().isEmpty()).isTrue();
+    }
+
+    BookingRequest read(String body) {
+        return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), -1);
+    }
+}
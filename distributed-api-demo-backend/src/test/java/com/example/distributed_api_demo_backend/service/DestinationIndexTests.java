@@ -0,0 +1,130 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.PropertyInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DestinationIndexTests {
+
+    static final List<PropertyInfo> CITIES = List.of(
+            property("Paris", 48.8566, 2.3522),
+            property("New York City", 40.7233, -74.003),
+            property("São Paulo", -23.5505, -46.6333),
+            property("Zürich", 47.3769, 8.5417),
+            property("Saint-Denis", 48.9362, 2.3574),
+            property(null, null, null),
+            property("PARIS", 48.86, 2.35));
+
+    final DestinationIndex index = DestinationIndex.build(CITIES, 1.0);
+
+    @Test
+    void cityMatchesByPrefixIgnoringCase() {
+        assertThat(index.byCity("par")).containsExactly(0, 6);
+        assertThat(index.byCity("  Paris ")).containsExactly(0, 6);
+        assertThat(index.byCity("parisx")).isEmpty();
+        assertThat(index.byCity("")).isEmpty();
+        assertThat(index.byCity(null)).isEmpty();
+        assertThat(index.byCity("--")).isEmpty();
+    }
+
+    @Test
+    void accentsFoldBothWays() {
+        assertThat(index.byCity("sao")).containsExactly(2);
+        assertThat(index.byCity("SÃO P")).containsExactly(2);
+        assertThat(index.byCity("zurich")).containsExactly(3);
+        assertThat(index.byCity("Zür")).containsExactly(3);
+    }
+
+    @Test
+    void multiWordNamesMatchFromAnyWord() {
+        assertThat(index.byCity("york")).containsExactly(1);
+        assertThat(index.byCity("city")).containsExactly(1);
+        assertThat(index.byCity("new york c")).containsExactly(1);
+        assertThat(index.byCity("new-york")).containsExactly(1);
+        assertThat(index.byCity("ork")).as("not a word start").isEmpty();
+        assertThat(index.byCity("denis")).containsExactly(4);
+        assertThat(index.byCity("saint denis")).containsExactly(4);
+        assertThat(index.byCity("s")).containsExactly(2, 4);
+    }
+
+    @Test
+    void radiusFindsNearbyAndSkipsUnlocated() {
+        assertThat(index.within(48.8566, 2.3522, 12_000)).containsExactly(0, 4, 6);
+        assertThat(index.within(48.8566, 2.3522, 500)).containsExactly(0, 6);
+        assertThat(index.within(40.7, -74.0, 25_000)).containsExactly(1);
+        assertThat(index.within(0, 0, 1_000)).isEmpty();
+    }
+
+    @Test
+    void radiusWrapsAcrossTheAntimeridian() {
+        DestinationIndex fiji = DestinationIndex.build(List.of(
+                property("East", -17.0, 179.95),
+                property("West", -17.0, -179.95),
+                property("Far", -17.0, -179.0)), 1.0);
+
+        // The two sides are about 11 km apart across 180°
+        assertThat(fiji.within(-17.0, 179.99, 20_000)).containsExactly(0, 1);
+        assertThat(fiji.within(-17.0, -179.99, 20_000)).containsExactly(0, 1);
+        assertThat(fiji.within(-17.0, 180.0, 20_000)).containsExactly(0, 1);
+        assertThat(fiji.within(-17.0, -180.0, 120_000)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void radiusCoversThePoles() {
+        DestinationIndex polar = DestinationIndex.build(List.of(
+                property("North A", 89.9, 0.0),
+                property("North B", 89.9, 180.0),
+                property("South", -89.95, 45.0),
+                property("Pole", 90.0, 0.0)), 1.0);
+
+        // Across the pole the two northern ones are about 22 km apart
+        assertThat(polar.within(89.95, 90.0, 15_000)).containsExactly(0, 1, 3);
+        assertThat(polar.within(89.9, 0.0, 25_000)).containsExactly(0, 1, 3);
+        assertThat(polar.within(90.0, 123.0, 12_000)).containsExactly(0, 1, 3);
+        assertThat(polar.within(-90.0, 0.0, 6_000)).containsExactly(2);
+        assertThat(polar.within(0, 0, 25_000_000)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void radiusAgreesWithAFullScan() {
+        Random random = new Random(42);
+        List<PropertyInfo> properties = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // Bias towards the poles and the antimeridian, where the grid wraps and stretches
+            double latitude = i % 4 == 0 ? Math.copySign(85 + random.nextDouble() * 5, random.nextDouble() - 0.5)
+                    : random.nextDouble() * 180 - 90;
+            double longitude = i % 3 == 0 ? Math.copySign(175 + random.nextDouble() * 5, random.nextDouble() - 0.5)
+                    : random.nextDouble() * 360 - 180;
+            properties.add(property("C" + i, latitude, longitude));
+        }
+        for (double cellDegrees : new double[] {0.5, 1.0, 7.0}) {
+            DestinationIndex grid = DestinationIndex.build(properties, cellDegrees);
+            for (int query = 0; query < 300; query++) {
+                double latitude = query % 5 == 0 ? Math.copySign(88 + random.nextDouble() * 2, random.nextDouble() - 0.5)
+                        : random.nextDouble() * 180 - 90;
+                double longitude = query % 2 == 0 ? Math.copySign(178 + random.nextDouble() * 2, random.nextDouble() - 0.5)
+                        : random.nextDouble() * 360 - 180;
+                double radius = Math.pow(10, 3 + random.nextDouble() * 4);
+                int[] expected = IntStream.range(0, properties.size())
+                        .filter(i -> DestinationIndex.distanceMetres(latitude, longitude,
+                                properties.get(i).latitude(), properties.get(i).longitude()) <= radius)
+                        .toArray();
+
+                assertThat(grid.within(latitude, longitude, radius))
+                        .as("%s,%s within %s m on %s° cells", latitude, longitude, radius, cellDegrees)
+                        .containsExactly(expected);
+            }
+        }
+    }
+
+    static PropertyInfo property(String city, Double latitude, Double longitude) {
+        PropertyInfo.Address address = city == null ? null : new PropertyInfo.Address(null, null, city, null, null);
+        return new PropertyInfo(city, city, null, null, address, null, null, latitude, longitude);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.example.distributed_api_demo_backend.exception.NoAvailabilityException;
+import com.example.distributed_api_demo_backend.exception.TooManyHoldsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryServiceTests {
+
+    static final String HOTEL = "XSBOXD1";
+    static final LocalDate ARRIVAL = LocalDate.of(2030, 3, 1);
+    static final LocalDate DEPARTURE = ARRIVAL.plusDays(2);
+    static final Duration TICK = Duration.ofSeconds(1);
+
+    final AtomicLong clock = new AtomicLong();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TimingWheel<InventoryService.Hold> wheel;
+    final InventoryService inventory = new InventoryService(5, Duration.ofSeconds(10), 3, Duration.ofSeconds(60),
+            clock::get, onExpiry -> wheel = new TimingWheel<>(TICK, clock::get, onExpiry), meterRegistry);
+
+    @Test
+    void holdTakesInventoryUntilItExpires() {
+        InventoryService.Hold hold = inventory.hold("chat", "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 2);
+
+        assertThat(available("A1K")).containsExactly(3, 3);
+        assertThat(inventory.getHold(hold.holdId())).isEqualTo(hold);
+        assertThat(activeHolds()).isEqualTo(1);
+
+        advanceTo(9);
+        assertThat(inventory.getHold(hold.holdId())).isNotNull();
+        advanceTo(10);
+        assertThat(inventory.getHold(hold.holdId())).isNull();
+        assertThat(available("A1K")).containsExactly(5, 5);
+        assertThat(count("expired")).isEqualTo(1);
+        assertThat(activeHolds()).isZero();
+    }
+
+    @Test
+    void convertedHoldKeepsItsInventoryPastExpiry() {
+        InventoryService.Hold hold = inventory.hold("chat", "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1);
+
+        assertThat(inventory.convertHold(hold.holdId(), HOTEL, "A1K", hold.nights(), 1)).isTrue();
+        assertThat(inventory.convertHold(hold.holdId(), HOTEL, "A1K", hold.nights(), 1)).as("only once").isFalse();
+        advanceTo(20);
+
+        assertThat(available("A1K")).containsExactly(4, 4);
+        assertThat(count("converted")).isEqualTo(1);
+        assertThat(count("expired")).isZero();
+        assertThat(activeHolds()).isZero();
+    }
+
+    @Test
+    void holdForAnotherStayIsReleasedNotConverted() {
+        InventoryService.Hold hold = inventory.hold("chat", "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1);
+
+        assertThat(inventory.convertHold(hold.holdId(), HOTEL, "B2D", hold.nights(), 1)).isFalse();
+        assertThat(available("A1K")).containsExactly(5, 5);
+        assertThat(inventory.getHold(hold.holdId())).isNull();
+        assertThat(inventory.convertHold("no-such-hold", HOTEL, "A1K", hold.nights(), 1)).isFalse();
+        assertThat(inventory.convertHold(null, HOTEL, "A1K", hold.nights(), 1)).isFalse();
+    }
+
+    @Test
+    void newDraftReplacesOnlyItsOwnConversationsHold() {
+        InventoryService.Hold first = inventory.hold("chat", "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1);
+        InventoryService.Hold other = inventory.hold("other-chat", "other-app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1);
+        InventoryService.Hold second = inventory.hold("chat", "app", HOTEL, "B2D", ARRIVAL, DEPARTURE, 1);
+
+        assertThat(inventory.getHold(first.holdId())).isNull();
+        assertThat(inventory.getHold(second.holdId())).isNotNull();
+        assertThat(inventory.getHold(other.holdId())).as("other conversations keep theirs").isNotNull();
+        assertThat(available("A1K")).containsExactly(4, 4);
+        assertThat(count("replaced")).isEqualTo(1);
+        assertThat(activeHolds()).isEqualTo(2);
+
+        // A converted hold is no longer the conversation's to replace
+        assertThat(inventory.convertHold(second.holdId(), HOTEL, "B2D", second.nights(), 1)).isTrue();
+        inventory.hold("chat", "app", HOTEL, "C3Q", ARRIVAL, DEPARTURE, 1);
+        assertThat(available("B2D")).containsExactly(4, 4);
+    }
+
+    @Test
+    void clientPastItsRateIsRefusedWithoutReleasingAnyHold() {
+        List<InventoryService.Hold> placed = IntStream.range(0, 3)
+                .mapToObj(i -> inventory.hold("chat-" + i, "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1))
+                .toList();
+
+        assertThatThrownBy(() -> inventory.hold("chat-3", "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1))
+                .isInstanceOf(TooManyHoldsException.class);
+        assertThat(placed).allSatisfy(hold -> assertThat(inventory.getHold(hold.holdId())).isNotNull());
+        assertThat(available("A1K")).containsExactly(2, 2);
+        assertThat(count("rate_limited")).isEqualTo(1);
+        assertThat(inventory.hold("chat-3", "other-app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 1)).isNotNull();
+
+        clock.set(Duration.ofSeconds(60).toNanos());
+        assertThat(inventory.hold("chat-3", "app", HOTEL, "B2D", ARRIVAL, DEPARTURE, 1)).as("next window").isNotNull();
+    }
+
+    @Test
+    void soldOutOrEmptyHoldsAreRefusedWithoutTrace() {
+        assertThatThrownBy(() -> inventory.hold("chat", "app", HOTEL, "A1K", ARRIVAL, DEPARTURE, 6))
+                .isInstanceOf(NoAvailabilityException.class);
+        assertThatThrownBy(() -> inventory.hold("chat", "app", HOTEL, "A1K", ARRIVAL, ARRIVAL, 1))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(available("A1K")).containsExactly(5, 5);
+        assertThat(activeHolds()).isZero();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void conversionRacingExpiryHandsTheRoomsToExactlyOneSide() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            InventoryService.Hold hold = inventory.hold("chat-" + round, "app-" + round, HOTEL, "A1K", ARRIVAL, DEPARTURE, 1);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean converted = new AtomicBoolean();
+            long expiry = clock.get() + Duration.ofSeconds(10).toNanos();
+            Thread booking = Thread.ofPlatform().start(() -> {
+                TimingWheelTests.await(start);
+                converted.set(inventory.convertHold(hold.holdId(), HOTEL, "A1K", hold.nights(), 1));
+            });
+            Thread ticker = Thread.ofPlatform().start(() -> {
+                TimingWheelTests.await(start);
+                clock.set(expiry);
+                wheel.advance();
+            });
+            start.countDown();
+            booking.join();
+            ticker.join();
+
+            if (converted.get()) {
+                assertThat(available("A1K")).as("round %s converted", round).containsExactly(4, 4);
+                inventory.release(HOTEL, "A1K", hold.nights(), 1);
+            } else {
+                assertThat(available("A1K")).as("round %s expired", round).containsExactly(5, 5);
+            }
+            assertThat(inventory.getHold(hold.holdId())).isNull();
+        }
+        assertThat(count("converted") + count("expired")).isEqualTo(200);
+        assertThat(activeHolds()).isZero();
+    }
+
+    List<Integer> available(String roomType) {
+        return ARRIVAL.datesUntil(DEPARTURE).map(night -> inventory.available(HOTEL, roomType, night)).toList();
+    }
+
+    void advanceTo(long seconds) {
+        clock.set(TICK.toNanos() * seconds);
+        wheel.advance();
+    }
+
+    double count(String result) {
+        return meterRegistry.counter("inventory.holds", "result", result).count();
+    }
+
+    double activeHolds() {
+        return meterRegistry.get("inventory.holds.active").gauge().value();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.exception.NotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OfferRequestCoalescerTests {
+
+    static final LocalDate ARRIVAL = LocalDate.of(2030, 5, 1);
+    static final OfferRequestCoalescer.OfferQuery QUERY =
+            OfferRequestCoalescer.OfferQuery.of("XSBOXD1", ARRIVAL, ARRIVAL.plusDays(2), null, false, null);
+
+    final ShopService shopService = mock(ShopService.class);
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicInteger runs = new AtomicInteger();
+    final AtomicInteger interrupted = new AtomicInteger();
+    OfferRequestCoalescer coalescer;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        coalescer.shutdown();
+    }
+
+    @Test
+    void identicalConcurrentRequestsShareOneRun() throws Exception {
+        pricingBlocksUntilReleased();
+        coalescer = coalescer(5000);
+
+        CompletableFuture<OfferRequestCoalescer.OfferResult> first = coalescer.offers(QUERY);
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<OfferRequestCoalescer.OfferResult> second = coalescer.offers(
+                OfferRequestCoalescer.OfferQuery.of("XSBOXD1", ARRIVAL, ARRIVAL.plusDays(2), null, true, " "));
+        release.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS).json()).isSameAs(first.get(5, TimeUnit.SECONDS).json());
+        assertThat(runs).hasValue(1);
+        assertThat(count("shop.offers.requests", "computed")).isEqualTo(1);
+        assertThat(count("shop.offers.requests", "coalesced")).isEqualTo(1);
+
+        coalescer.offers(QUERY).get(5, TimeUnit.SECONDS);
+        assertThat(runs).as("finished runs are not cached").hasValue(2);
+    }
+
+    @Test
+    void oneCallerTimingOutLeavesTheOthersWaiting() throws Exception {
+        pricingBlocksUntilReleased();
+        coalescer = coalescer(1000);
+
+        CompletableFuture<OfferRequestCoalescer.OfferResult> early = coalescer.offers(QUERY);
+        started.await(5, TimeUnit.SECONDS);
+        Thread.sleep(600);
+        CompletableFuture<OfferRequestCoalescer.OfferResult> late = coalescer.offers(QUERY);
+
+        assertThatThrownBy(() -> early.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        release.countDown();
+
+        assertThat(late.get(5, TimeUnit.SECONDS).offers()).isNotNull();
+        assertThat(meterRegistry.counter("shop.offers.timeouts").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("shop.offers.abandoned").count()).isZero();
+        assertThat(interrupted).hasValue(0);
+    }
+
+    @Test
+    void runIsCancelledOnlyWhenTheLastCallerLeaves() throws Exception {
+        pricingBlocksUntilReleased();
+        coalescer = coalescer(5000);
+
+        CompletableFuture<OfferRequestCoalescer.OfferResult> first = coalescer.offers(QUERY);
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<OfferRequestCoalescer.OfferResult> second = coalescer.offers(QUERY);
+
+        first.cancel(false);
+        assertThat(meterRegistry.counter("shop.offers.abandoned").count()).isZero();
+        second.cancel(false);
+
+        assertThat(meterRegistry.counter("shop.offers.abandoned").count()).isEqualTo(1);
+        for (int i = 0; i < 100 && interrupted.get() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(interrupted).as("pricing thread interrupted").hasValue(1);
+        assertThatThrownBy(first::join).isInstanceOf(CancellationException.class);
+
+        CompletableFuture<OfferRequestCoalescer.OfferResult> next = coalescer.offers(QUERY);
+        release.countDown();
+        assertThat(next.get(5, TimeUnit.SECONDS).offers()).isNotNull();
+        assertThat(runs).as("a new run starts after the abandoned one").hasValue(2);
+    }
+
+    @Test
+    void pricingFailureReachesEveryCallerAndIsNotKept() throws Exception {
+        when(shopService.getPropertyOffers(eq("XSBOXD1"), any(), any(), any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    release.await();
+                    throw new NotFoundException("Hotel not found: XSBOXD1");
+                });
+        coalescer = coalescer(5000);
+
+        CompletableFuture<OfferRequestCoalescer.OfferResult> first = coalescer.offers(QUERY);
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<OfferRequestCoalescer.OfferResult> second = coalescer.offers(QUERY);
+        release.countDown();
+
+        for (CompletableFuture<OfferRequestCoalescer.OfferResult> caller : List.of(first, second)) {
+            assertThatThrownBy(() -> caller.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasRootCauseInstanceOf(NotFoundException.class);
+        }
+        assertThatThrownBy(() -> coalescer.offers(QUERY).get(5, TimeUnit.SECONDS))
+                .hasRootCauseInstanceOf(NotFoundException.class);
+        assertThat(runs).hasValue(2);
+    }
+
+    void pricingBlocksUntilReleased() {
+        when(shopService.getPropertyOffers(eq("XSBOXD1"), any(), any(), any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        interrupted.incrementAndGet();
+                        throw e;
+                    }
+                    return new PropertyOffers(List.of());
+                });
+    }
+
+    OfferRequestCoalescer coalescer(long waitTimeoutMs) {
+        return new OfferRequestCoalescer(shopService, new ObjectMapper(), meterRegistry, waitTimeoutMs);
+    }
+
+    double count(String name, String result) {
+        return meterRegistry.counter(name, "result", result).count();
+    }
+}
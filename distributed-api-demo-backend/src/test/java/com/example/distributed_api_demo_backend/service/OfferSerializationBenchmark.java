@@ -0,0 +1,78 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Property offers response for XSBOXD1 over 4 nights: pricing plus serialisation, and serialisation alone of
+ * the typed records (with and without Blackbird) against the same response as a JsonNode tree. Not run by
+ * surefire; to run it with allocation rates:
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath) org.openjdk.jmh.Main \
+ *      OfferSerializationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class OfferSerializationBenchmark {
+
+    private final ObjectMapper plain = new ObjectMapper();
+    private final ObjectMapper blackbird = new ObjectMapper().registerModule(new BlackbirdModule());
+    private ShopService shopService;
+    private LocalDate arrival;
+    private PropertyOffers offers;
+    private JsonNode tree;
+
+    @Setup
+    public void load() {
+        RatePricingEngine ratePricingEngine = new RatePricingEngine(blackbird);
+        ratePricingEngine.loadRules();
+        shopService = new ShopService(blackbird, ratePricingEngine);
+        shopService.loadTestData();
+        arrival = LocalDate.now().plusDays(30);
+        offers = shopService.getPropertyOffers("XSBOXD1", arrival, arrival.plusDays(4), null, false, null);
+        tree = plain.valueToTree(offers);
+    }
+
+    @Benchmark
+    public byte[] priceAndWrite() throws IOException {
+        return blackbird.writeValueAsBytes(
+                shopService.getPropertyOffers("XSBOXD1", arrival, arrival.plusDays(4), null, false, null));
+    }
+
+    @Benchmark
+    public byte[] writeRecords() throws IOException {
+        return plain.writeValueAsBytes(offers);
+    }
+
+    @Benchmark
+    public byte[] writeRecordsWithBlackbird() throws IOException {
+        return blackbird.writeValueAsBytes(offers);
+    }
+
+    @Benchmark
+    public byte[] writeTree() throws IOException {
+        return plain.writeValueAsBytes(tree);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.distributed_api_demo_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PricingKernelTests {
+
+    // Basis-point tax, a per-mille discount, and minor-unit conversions USD->JPY, JPY->USD and USD->KWD
+    static final long[][] FACTORS = {
+            {11475, 10000}, {850, 1000}, {14950, 10000}, {10000, 1495000}, {3074, 10000}, {1, 1}, {0, 7}};
+
+    final Random random = new Random(42);
+
+    @Test
+    void scalarKernelMatchesBigDecimal() {
+        assertMatchesReference(new ScalarPricingKernel());
+    }
+
+    @Test
+    void vectorKernelMatchesBigDecimal() {
+        assertMatchesReference(vectorKernel());
+    }
+
+    @Test
+    void vectorKernelFallsBackAtTheExactDoubleBoundary() {
+        PricingKernel vector = vectorKernel();
+        long multiplier = 11475;
+        long divisor = 10000;
+        long limit = ((1L << 53) - 3 * divisor) / (2 * multiplier);
+
+        for (long top : new long[] {limit - 1, limit, limit + 1, limit * 2}) {
+            long[] source = new long[19];
+            for (int i = 0; i < source.length; i++) {
+                source[i] = top - i * 7919L;
+            }
+            assertThat(run(vector, source, multiplier, divisor, 0))
+                    .as("max %d (limit %d)", top, limit)
+                    .containsExactly(reference(source, multiplier, divisor, 0));
+        }
+    }
+
+    @Test
+    void halvesRoundUpAndResultsClampAtZero() {
+        for (PricingKernel kernel : kernels()) {
+            // 5 * 1 / 2 = 2.5 -> 3, 1 * 1 / 2 = 0.5 -> 1, 3 * 1 / 2 = 1.5 -> 2
+            assertThat(run(kernel, new long[] {5, 1, 3, 0}, 1, 2, 0)).containsExactly(3, 1, 2, 0);
+            assertThat(run(kernel, new long[] {5, 1, 3, 0}, 1, 2, 2)).containsExactly(1, 0, 0, 0);
+        }
+    }
+
+    @Test
+    void jpyConversionHasNoMinorUnitsToRoundInto() {
+        for (PricingKernel kernel : kernels()) {
+            // USD 199.99 at 149.50 JPY/USD is JPY 29898.505 -> 29899; USD 0.01 is JPY 1.495 -> 1
+            assertThat(run(kernel, new long[] {19999, 1, 100}, 14950, 10000, 0)).containsExactly(29899, 1, 150);
+        }
+    }
+
+    void assertMatchesReference(PricingKernel kernel) {
+        for (long[] factor : FACTORS) {
+            for (int length : new int[] {0, 1, 3, 4, 7, 8, 9, 16, 31, 64}) {
+                long[] source = new long[length];
+                for (int i = 0; i < length; i++) {
+                    source[i] = random.nextInt(4) == 0 ? random.nextInt(100) : random.nextLong(10_000_000_000L);
+                }
+                long subtract = random.nextInt(3) == 0 ? random.nextInt(5000) : 0;
+                assertThat(run(kernel, source, factor[0], factor[1], subtract))
+                        .as("%s x %d/%d - %d over %d", kernel.description(), factor[0], factor[1], subtract, length)
+                        .containsExactly(reference(source, factor[0], factor[1], subtract));
+            }
+        }
+        // Offsets into a shared array, in place
+        long[] shared = {1000, 2001, 3003, 4005, 5007, 6009, 7011, 8013, 9015, 10017};
+        long[] expected = reference(Arrays.copyOfRange(shared, 2, 9), 11475, 10000, 0);
+        kernel.scaleRound(shared, 2, shared, 2, 7, 11475, 10000, 0);
+        assertThat(Arrays.copyOfRange(shared, 2, 9)).containsExactly(expected);
+        assertThat(shared[0]).isEqualTo(1000);
+        assertThat(shared[9]).isEqualTo(10017);
+    }
+
+    static long[] run(PricingKernel kernel, long[] source, long multiplier, long divisor, long subtract) {
+        long[] target = new long[source.length];
+        kernel.scaleRound(source, 0, target, 0, source.length, multiplier, divisor, subtract);
+        return target;
+    }
+
+    static long[] reference(long[] source, long multiplier, long divisor, long subtract) {
+        long[] expected = new long[source.length];
+        for (int i = 0; i < source.length; i++) {
+            long rounded = BigDecimal.valueOf(source[i]).multiply(BigDecimal.valueOf(multiplier))
+                    .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+            expected[i] = Math.max(0, rounded - subtract);
+        }
+        return expected;
+    }
+
+    List<PricingKernel> kernels() {
+        List<PricingKernel> kernels = new ArrayList<>(List.of(new ScalarPricingKernel()));
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            kernels.add(vectorKernel());
+        }
+        return kernels;
+    }
+
+    static PricingKernel vectorKernel() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector not resolved");
+        try {
+            // Loaded by name, as RatePricingEngine does, so this class compiles without the incubator module
+            return (PricingKernel) Class.forName(PricingKernel.class.getPackageName() + ".VectorPricingKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
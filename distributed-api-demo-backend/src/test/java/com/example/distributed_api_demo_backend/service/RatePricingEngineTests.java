@@ -0,0 +1,92 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RatePricingEngineTests {
+
+    final RatePricingEngine engine = new RatePricingEngine(new ObjectMapper());
+
+    @BeforeEach
+    void loadRules() {
+        engine.loadRules();
+    }
+
+    @Test
+    void derivesPlansThenAddsTaxAndFees() {
+        RatePricingEngine.PricedStay stay = engine.priceStay(new long[] {20000, 21000}, 1, 2, "USD", true,
+                List.of(rule("EARLY"), rule("MEMBER")), engine.propertyPricing("XSBOXD1", "USD"), "USD");
+
+        assertThat(stay.nightly()).containsExactly(20000, 21000, 17000, 17850, 18500, 19500);
+        assertThat(stay.beforeTax(2, 0)).isEqualTo(38000);
+        // 14.75% tax per night rounded half up (2729 + 2876), plus a 3.50 fee per night
+        assertThat(stay.afterTax(2, 0)).isEqualTo(38000 + 2729 + 2876 + 700);
+        assertThat(stay.amount(stay.afterTax(2, 0))).isEqualByComparingTo(new BigDecimal("443.05"));
+    }
+
+    @Test
+    void amountOffIsConvertedIntoThePropertyCurrency() {
+        RatePlanRule member = rule("MEMBER");
+        assertThat(member.amountOffCurrency()).isEqualTo("USD");
+
+        RatePricingEngine.PricedStay stay = engine.priceStay(new long[] {30000, 30000}, 1, 2, "JPY", false,
+                List.of(member), engine.propertyPricing("XSBOXD4", "JPY"), "JPY");
+
+        // USD 15.00 off is JPY 2242.5, rounded half up
+        assertThat(stay.nightly()).containsExactly(27757, 27757);
+        assertThat(stay.fractionDigits()).isZero();
+        assertThat(stay.amount(stay.beforeTax(0, 0))).isEqualByComparingTo("55514");
+    }
+
+    @Test
+    void convertsToTheSellingCurrencyPerNight() {
+        RatePricingEngine.PricedStay stay = engine.priceStay(new long[] {30000, 29999}, 1, 2, "JPY", true,
+                List.of(), engine.propertyPricing("XSBOXD4", "JPY"), "USD");
+
+        assertThat(stay.currencyCode()).isEqualTo("USD");
+        assertThat(stay.nightly()).containsExactly(20067, 20066);
+        assertThat(stay.beforeTax(0, 0)).isEqualTo(20067 + 20066);
+        assertThat(engine.convert(30000, "JPY", "USD")).isEqualTo(20067);
+        assertThat(engine.convert(10000, "USD", "EUR")).isEqualTo(9200);
+        assertThat(engine.convert(10000, "EUR", "EUR")).isEqualTo(10000);
+    }
+
+    @Test
+    void discountsNeverGoBelowZero() {
+        RatePricingEngine.PricedStay stay = engine.priceStay(new long[] {1000}, 1, 1, "USD", false,
+                List.of(rule("MEMBER")), engine.propertyPricing("XSBOXD3", "USD"), "USD");
+
+        assertThat(stay.nightly()).containsExactly(0);
+    }
+
+    @Test
+    void unknownHotelsUseTheDefaultTaxWithoutFees() {
+        RatePricingEngine.PropertyPricing pricing = engine.propertyPricing("UNKNOWN", "EUR");
+
+        assertThat(pricing.currencyCode()).isEqualTo("EUR");
+        assertThat(pricing.taxBasisPoints()).isEqualTo(1000);
+        assertThat(pricing.nightlyFeeMinor()).isZero();
+        assertThat(engine.supportsCurrency("CHF")).isFalse();
+    }
+
+    @Test
+    void stayRestrictionsLimitWhereRulesApply() {
+        assertThat(rule("STAY3").appliesTo(2, 30)).isFalse();
+        assertThat(rule("STAY3").appliesTo(3, 30)).isTrue();
+        assertThat(rule("ADV14").appliesTo(1, 13)).isFalse();
+        assertThat(rule("ADV14").appliesTo(1, 14)).isTrue();
+    }
+
+    private RatePlanRule rule(String ratePlanCode) {
+        return engine.rules().stream()
+                .filter(rule -> rule.ratePlanCode().equals(ratePlanCode))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservationChangeTests {
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsIntegersGivenAsNumbersOrNumericStrings() throws Exception {
+        ReservationChange change = ReservationChange.from(objectMapper.readTree("""
+                {"reservations":[{"roomStay":{"guestCounts":{"adults":2,"children":"1"},
+                  "roomRates":[{"numberOfUnits":null}]}}]}
+                """));
+
+        assertThat(change.adults()).isEqualTo(2);
+        assertThat(change.children()).isEqualTo(1);
+        assertThat(change.numberOfUnits()).isNull();
+    }
+
+    @Test
+    void rejectsNonIntegerValues() {
+        for (String units : new String[] {"\"two\"", "1.5", "false", "{}", "4294967296"}) {
+            assertThatThrownBy(() -> ReservationChange.from(objectMapper.readTree(
+                    "{\"reservations\":[{\"roomStay\":{\"roomRates\":[{\"numberOfUnits\":" + units + "}]}}]}")))
+                    .as(units)
+                    .isInstanceOf(InvalidRequestException.class)
+                    .hasMessageContaining("numberOfUnits");
+        }
+    }
+}
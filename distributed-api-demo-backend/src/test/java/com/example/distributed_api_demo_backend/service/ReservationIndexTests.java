@@ -0,0 +1,86 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationIndexTests {
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final ReservationIndex index = new ReservationIndex();
+
+    @Test
+    void findsByArrivalRangeWithinTheHotelOnly() {
+        index.index("1", "H1", reservation("2024-12-10", "Smith", "a@example.com"));
+        index.index("2", "H1", reservation("2024-12-12", "Jones", "b@example.com"));
+        index.index("3", "H1", reservation("2024-12-20", "Brown", "c@example.com"));
+        index.index("4", "H2", reservation("2024-12-11", "Smith", "a@example.com"));
+
+        assertThat(index.findByArrival("H1", LocalDate.of(2024, 12, 10), LocalDate.of(2024, 12, 12), 10))
+                .containsExactly("1", "2");
+        assertThat(index.findByArrival("H1", LocalDate.of(2024, 12, 11), null, 10)).containsExactly("2", "3");
+        assertThat(index.findByArrival("H1", null, LocalDate.of(2024, 12, 10), 10)).containsExactly("1");
+        assertThat(index.findByArrival("H1", null, null, 2)).containsExactly("1", "2");
+        assertThat(index.findByArrival("H3", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void matchesSurnameAndEmailCaseInsensitively() {
+        index.index("1", "H1", reservation("2024-12-10", "Smith", "John.Smith@Example.com"));
+        index.index("2", "H2", reservation("2024-12-10", "Smith", "john.smith@example.com"));
+
+        assertThat(index.findBySurname("H1", " SMITH ")).containsExactly("1");
+        assertThat(index.findByEmail("H1", "john.smith@example.com")).containsExactly("1");
+        assertThat(index.findBySurname("H1", "Jones")).isEmpty();
+        assertThat(index.hotelOf("2")).isEqualTo("H2");
+    }
+
+    @Test
+    void reindexingReplacesThePreviousEntries() {
+        index.index("1", "H1", reservation("2024-12-10", "Smith", "a@example.com"));
+        index.index("1", "H1", reservation("2024-12-15", "Jones", "b@example.com"));
+
+        assertThat(index.findByArrival("H1", LocalDate.of(2024, 12, 10), LocalDate.of(2024, 12, 10), 10)).isEmpty();
+        assertThat(index.findByArrival("H1", LocalDate.of(2024, 12, 15), LocalDate.of(2024, 12, 15), 10))
+                .containsExactly("1");
+        assertThat(index.findBySurname("H1", "Smith")).isEmpty();
+        assertThat(index.findByEmail("H1", "b@example.com")).containsExactly("1");
+    }
+
+    @Test
+    void removeDropsEveryEntry() {
+        index.index("1", "H1", reservation("2024-12-10", "Smith", "a@example.com"));
+        index.remove("1");
+        index.remove("1");
+
+        assertThat(index.hotelOf("1")).isNull();
+        assertThat(index.findByArrival("H1", null, null, 10)).isEmpty();
+        assertThat(index.findBySurname("H1", "Smith")).isEmpty();
+        assertThat(index.findByEmail("H1", "a@example.com")).isEmpty();
+    }
+
+    @Test
+    void unparseableArrivalIsIndexedByGuestOnly() {
+        index.index("1", "H1", reservation("10/12/2024", "Smith", "a@example.com"));
+
+        assertThat(index.findByArrival("H1", null, null, 10)).isEmpty();
+        assertThat(index.findBySurname("H1", "smith")).containsExactly("1");
+    }
+
+    private JsonNode reservation(String arrivalDate, String surname, String email) {
+        ArrayNode body = objectMapper.createArrayNode();
+        ObjectNode reservation = body.addObject();
+        reservation.putObject("roomStay").put("arrivalDate", arrivalDate);
+        ObjectNode customer = reservation.putArray("reservationGuests").addObject()
+                .putObject("profileInfo").putObject("profile").putObject("customer");
+        customer.putArray("personName").addObject().put("surname", surname);
+        customer.putArray("email").addObject().put("email", email);
+        return body;
+    }
+}
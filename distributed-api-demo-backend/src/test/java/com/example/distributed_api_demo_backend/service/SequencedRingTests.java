@@ -0,0 +1,96 @@
+package com.example.distributed_api_demo_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequencedRingTests {
+
+    final SequencedRing<String> ring = new SequencedRing<>("test", 4);
+
+    @AfterEach
+    void shutdown() {
+        ring.shutdown();
+    }
+
+    @Test
+    void readsInSequenceOrderAndResumesFromNextSequence() {
+        for (String value : List.of("a", "b", "c")) {
+            ring.publish(sequence -> value + sequence);
+        }
+
+        SequencedRing.Batch<String> first = ring.read(0, 2, value -> true);
+        assertThat(first.events()).containsExactly("a1", "b2");
+        assertThat(first.nextSequence()).isEqualTo(3);
+        assertThat(first.truncated()).isFalse();
+
+        SequencedRing.Batch<String> second = ring.read(first.nextSequence(), 10, value -> true);
+        assertThat(second.events()).containsExactly("c3");
+        assertThat(second.nextSequence()).isEqualTo(4);
+    }
+
+    @Test
+    void filterSkipsEntriesButAdvancesTheCursor() {
+        for (String value : List.of("x", "y", "x")) {
+            ring.publish(sequence -> value + sequence);
+        }
+
+        SequencedRing.Batch<String> batch = ring.read(1, 10, value -> value.startsWith("x"));
+        assertThat(batch.events()).containsExactly("x1", "x3");
+        assertThat(batch.nextSequence()).isEqualTo(4);
+    }
+
+    @Test
+    void consumerFallenBehindCapacityGetsATruncatedBatch() {
+        for (int i = 0; i < 10; i++) {
+            ring.publish(Long::toString);
+        }
+
+        SequencedRing.Batch<String> batch = ring.read(2, 10, value -> true);
+        assertThat(batch.truncated()).isTrue();
+        assertThat(batch.oldestSequence()).isEqualTo(7);
+        assertThat(batch.events()).containsExactly("7", "8", "9", "10");
+        assertThat(batch.withoutEvents().events()).isEmpty();
+        assertThat(batch.withoutEvents().nextSequence()).isEqualTo(11);
+
+        assertThat(ring.read(0, 10, value -> true).truncated()).as("0 means oldest retained").isFalse();
+    }
+
+    @Test
+    void pollCompletesWhenAMatchingEntryIsPublished() throws Exception {
+        CompletableFuture<SequencedRing.Batch<String>> poll =
+                ring.poll(1, 10, value -> value.startsWith("hit"), Duration.ofSeconds(10));
+        assertThat(poll).isNotDone();
+
+        ring.publish(sequence -> "miss" + sequence);
+        ring.publish(sequence -> "hit" + sequence);
+
+        SequencedRing.Batch<String> batch = poll.get(5, TimeUnit.SECONDS);
+        assertThat(batch.events()).containsExactly("hit2");
+        assertThat(batch.nextSequence()).isEqualTo(3);
+    }
+
+    @Test
+    void pollReturnsImmediatelyWhenEntriesExist() {
+        ring.publish(sequence -> "a");
+
+        assertThat(ring.poll(1, 10, value -> true, Duration.ofSeconds(10))).isCompleted();
+    }
+
+    @Test
+    void pollTimesOutWithAnEmptyBatch() throws Exception {
+        long started = System.nanoTime();
+        SequencedRing.Batch<String> batch = ring.poll(1, 10, value -> true, Duration.ofMillis(100))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(batch.events()).isEmpty();
+        assertThat(batch.nextSequence()).isEqualTo(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+    }
+}
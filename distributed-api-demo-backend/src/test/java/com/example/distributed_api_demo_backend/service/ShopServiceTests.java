@@ -0,0 +1,152 @@
+package com.example.distributed_api_demo_backend.service;
+
+import com.example.distributed_api_demo_backend.dto.PropertyAvailability;
+import com.example.distributed_api_demo_backend.dto.PropertyOffers;
+import com.example.distributed_api_demo_backend.dto.PropertySearchResults;
+import com.example.distributed_api_demo_backend.dto.RatePlan;
+import com.example.distributed_api_demo_backend.dto.RateSummary;
+import com.example.distributed_api_demo_backend.dto.RoomStay;
+import com.example.distributed_api_demo_backend.dto.RoomType;
+import com.example.distributed_api_demo_backend.exception.InvalidRequestException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShopServiceTests {
+
+    static final LocalDate ARRIVAL = LocalDate.of(2024, 12, 10);
+    static final LocalDate DEPARTURE = LocalDate.of(2024, 12, 13);
+
+    ShopService shopService;
+    RatePricingEngine engine;
+
+    @BeforeEach
+    void load() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        engine = new RatePricingEngine(objectMapper);
+        engine.loadRules();
+        shopService = new ShopService(objectMapper, engine);
+        ReflectionTestUtils.setField(shopService, "rankingCurrency", "USD");
+        ReflectionTestUtils.setField(shopService, "maxPageSize", 100);
+        shopService.loadTestData();
+    }
+
+    @Test
+    void lowestRateRanksOnTheAmountThePageShows() {
+        List<PropertyAvailability> all = search(ShopService.SearchSort.LOWEST_RATE, "USD", 100, null).roomStays();
+
+        assertThat(all).hasSize(5);
+        long previous = Long.MIN_VALUE;
+        for (PropertyAvailability entry : all) {
+            long shown = shownMinor(entry.minRate());
+            assertThat(shown).as("%s after %s", entry.propertyInfo().hotelCode(), previous).isGreaterThanOrEqualTo(previous);
+            previous = shown;
+        }
+        // XSBOXD1 has indexed rates, so the page shows tax and fees on top of the base rate
+        PropertyAvailability priced = all.stream()
+                .filter(entry -> entry.propertyInfo().hotelCode().equals("XSBOXD1")).findFirst().orElseThrow();
+        assertThat(priced.minRate().amountAfterTax()).isGreaterThan(priced.minRate().amountBeforeTax());
+    }
+
+    @Test
+    void everyConfiguredPropertyIsPricedInItsOwnCurrency() throws Exception {
+        JsonNode properties = new ObjectMapper()
+                .readTree(getClass().getResourceAsStream("/data/rate-plan-rules.json")).path("properties");
+        List<String> hotelCodes = new ArrayList<>();
+        properties.fieldNames().forEachRemaining(hotelCodes::add);
+        assertThat(hotelCodes).contains("XSBOXD1", "XSBOXD2", "XSBOXD3", "XSBOXD4");
+
+        for (String hotelCode : hotelCodes) {
+            String currencyCode = properties.path(hotelCode).path("currencyCode").asText();
+            PropertyOffers offers = shopService.getPropertyOffers(hotelCode, ARRIVAL, DEPARTURE, null, false, null);
+
+            RoomStay stay = offers.roomStays().get(0);
+            assertThat(stay.propertyInfo().hotelCode()).isEqualTo(hotelCode);
+            assertThat(stay.roomTypes()).as(hotelCode).isNotEmpty();
+            for (RoomType roomType : stay.roomTypes()) {
+                assertThat(roomType.ratePlans()).as("%s %s", hotelCode, roomType.roomType()).isNotEmpty();
+                for (RatePlan plan : roomType.ratePlans()) {
+                    assertThat(plan.total().currencyCode()).as("%s %s", hotelCode, plan.ratePlanCode())
+                            .isEqualTo(currencyCode);
+                    assertThat(plan.total().amountAfterTax()).as("%s %s", hotelCode, plan.ratePlanCode())
+                            .isPositive();
+                }
+            }
+        }
+    }
+
+    @Test
+    void boundedHeapPagesMatchTheFullRanking() {
+        for (ShopService.SearchSort sort : ShopService.SearchSort.values()) {
+            List<String> full = hotelCodes(search(sort, "USD", 100, null));
+            assertThat(full).as("%s", sort).hasSize(5).doesNotHaveDuplicates();
+
+            List<String> paged = new ArrayList<>();
+            String cursor = null;
+            do {
+                PropertySearchResults page = search(sort, "USD", 2, cursor);
+                assertThat(page.roomStays()).hasSizeLessThanOrEqualTo(2);
+                assertThat(page.totalResults()).isEqualTo(5);
+                paged.addAll(hotelCodes(page));
+                cursor = page.nextCursor();
+            } while (cursor != null);
+
+            assertThat(paged).as("%s", sort).isEqualTo(full);
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertThat(search(ShopService.SearchSort.NAME, "USD", 5, null).nextCursor()).isNull();
+        assertThat(search(ShopService.SearchSort.NAME, "USD", 4, null).nextCursor()).isNotNull();
+    }
+
+    @Test
+    void cursorOnlyContinuesTheSearchThatIssuedIt() {
+        String cursor = search(ShopService.SearchSort.LOWEST_RATE, "USD", 2, null).nextCursor();
+
+        assertThatThrownBy(() -> search(ShopService.SearchSort.NAME, "USD", 2, cursor))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("does not belong");
+        assertThatThrownBy(() -> search(ShopService.SearchSort.LOWEST_RATE, "EUR", 2, cursor))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("does not belong");
+        assertThatThrownBy(() -> search(ShopService.SearchSort.LOWEST_RATE, "USD", 2, "not*base64"))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    PropertySearchResults search(ShopService.SearchSort sort, String currencyCode, int limit, String cursor) {
+        Double latitude = sort == ShopService.SearchSort.DISTANCE ? 40.7 : null;
+        Double longitude = sort == ShopService.SearchSort.DISTANCE ? -74.0 : null;
+        return shopService.searchProperties(new ShopService.PropertySearch(ARRIVAL, DEPARTURE, Set.of(), null, null,
+                latitude, longitude, null, sort, currencyCode, limit, cursor));
+    }
+
+    static List<String> hotelCodes(PropertySearchResults results) {
+        return results.roomStays().stream().map(entry -> entry.propertyInfo().hotelCode()).toList();
+    }
+
+    /**
+     * The nightly amount a guest sees, in cents; unpriced entries sort last.
+     */
+    static long shownMinor(RateSummary rate) {
+        if (rate == null) {
+            return Long.MAX_VALUE;
+        }
+        BigDecimal amount = rate.amountAfterTax() != null ? rate.amountAfterTax() : rate.amountBeforeTax();
+        return amount == null ? Long.MAX_VALUE : amount.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.distributed_api_demo_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingWheelTests {
+
+    static final Duration TICK = Duration.ofMillis(1);
+    static final long RANGE = 1L << 24;
+
+    final AtomicLong clock = new AtomicLong();
+    final List<Long> expired = new ArrayList<>();
+    final TimingWheel<Long> wheel = new TimingWheel<>(TICK, clock::get, expired::add);
+
+    @Test
+    void expiresOnItsTickRoundedUp() {
+        wheel.schedule(5L, Duration.ofMillis(5));
+        wheel.schedule(1L, Duration.ofNanos(1));
+        wheel.schedule(0L, Duration.ZERO);
+
+        advanceTo(0);
+        assertThat(expired).isEmpty();
+        advanceTo(1);
+        assertThat(expired).containsExactlyInAnyOrder(0L, 1L);
+        advanceTo(4);
+        assertThat(expired).hasSize(2);
+        advanceTo(5);
+        assertThat(expired).containsExactlyInAnyOrder(0L, 1L, 5L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void coarserWheelsCascadeToTheExactTick() {
+        long[] delays = {63, 64, 65, 127, 4095, 4096, 4097, 262_143, 262_144, 262_145, 1_000_003, RANGE - 1};
+        for (long delay : delays) {
+            wheel.schedule(delay, Duration.ofMillis(delay));
+        }
+        assertThat(wheel.size()).isEqualTo(delays.length);
+
+        for (long delay : delays) {
+            advanceTo(delay - 1);
+            assertThat(expired).as("before %s", delay).doesNotContain(delay);
+            advanceTo(delay);
+            assertThat(expired).as("at %s", delay).endsWith(delay);
+        }
+        assertThat(expired).containsExactly(delays[0], delays[1], delays[2], delays[3], delays[4], delays[5],
+                delays[6], delays[7], delays[8], delays[9], delays[10], delays[11]);
+    }
+
+    @Test
+    void deadlinesBeyondTheTopWheelAreParkedAndReplaced() {
+        long far = 3 * RANGE + 12_345;
+        wheel.schedule(far, Duration.ofMillis(far));
+        wheel.schedule(RANGE, Duration.ofMillis(RANGE));
+
+        advanceTo(RANGE - 1);
+        assertThat(expired).isEmpty();
+        advanceTo(RANGE);
+        assertThat(expired).containsExactly(RANGE);
+        advanceTo(far - 1);
+        assertThat(expired).containsExactly(RANGE);
+        advanceTo(far);
+        assertThat(expired).containsExactly(RANGE, far);
+    }
+
+    @Test
+    void schedulingLaterStartsFromTheCurrentTick() {
+        advanceTo(1_000);
+        wheel.schedule(1L, Duration.ofMillis(70));
+
+        advanceTo(1_069);
+        assertThat(expired).isEmpty();
+        advanceTo(1_070);
+        assertThat(expired).containsExactly(1L);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverExpire() {
+        TimingWheel.Timeout<Long> kept = wheel.schedule(1L, Duration.ofMillis(100));
+        TimingWheel.Timeout<Long> cancelled = wheel.schedule(2L, Duration.ofMillis(100));
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+        advanceTo(100);
+
+        assertThat(expired).containsExactly(1L);
+        assertThat(wheel.cancel(kept)).as("already expired").isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void aTimeoutIsScheduledOnce() {
+        TimingWheel.Timeout<Long> timeout = new TimingWheel.Timeout<>(1L);
+        assertThat(wheel.cancel(timeout)).as("not scheduled yet").isFalse();
+
+        wheel.schedule(timeout, Duration.ofMillis(3));
+        assertThatThrownBy(() -> wheel.schedule(timeout, Duration.ofMillis(3)))
+                .isInstanceOf(IllegalStateException.class);
+        advanceTo(3);
+        assertThat(expired).containsExactly(1L);
+    }
+
+    @Test
+    void cancelAndExpiryRacingDecideEachTimeoutOnce() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Set<Long> fired = ConcurrentHashMap.newKeySet();
+            Set<Long> cancelled = ConcurrentHashMap.newKeySet();
+            AtomicLong time = new AtomicLong();
+            TimingWheel<Long> racing = new TimingWheel<>(TICK, time::get, fired::add);
+            List<TimingWheel.Timeout<Long>> timeouts = new ArrayList<>();
+            for (long i = 0; i < 2_000; i++) {
+                timeouts.add(racing.schedule(i, Duration.ofMillis(1 + i % 3)));
+            }
+
+            CountDownLatch start = new CountDownLatch(1);
+            Thread canceller = Thread.ofPlatform().start(() -> {
+                await(start);
+                for (int i = timeouts.size() - 1; i >= 0; i--) {
+                    if (racing.cancel(timeouts.get(i))) {
+                        cancelled.add(timeouts.get(i).value());
+                    }
+                }
+            });
+            Thread ticker = Thread.ofPlatform().start(() -> {
+                await(start);
+                for (int tick = 1; tick <= 3; tick++) {
+                    time.set(TICK.toNanos() * tick);
+                    racing.advance();
+                }
+            });
+            start.countDown();
+            canceller.join();
+            ticker.join();
+
+            Set<Long> both = new HashSet<>(fired);
+            both.retainAll(cancelled);
+            assertThat(both).as("both fired and cancelled").isEmpty();
+            assertThat(fired.size() + cancelled.size()).isEqualTo(timeouts.size());
+            assertThat(racing.size()).isZero();
+        }
+    }
+
+    void advanceTo(long ticks) {
+        clock.set(TICK.toNanos() * ticks);
+        wheel.advance();
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}